@@ -4,6 +4,8 @@ import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
 import components.simplewriter.SimpleWriter1L;
+import components.stack.Stack;
+import components.stack.Stack1L;
 
 /**
  * Utility class with implementation of binary search tree static, generic
@@ -29,6 +31,58 @@ public final class BinarySearchTreeMethods {
     private BinarySearchTreeMethods() {
     }
 
+    /**
+     * A non-empty tree taken apart during a search, waiting to be put back
+     * together.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     */
+    private static final class Frame<T> {
+
+        /**
+         * The tree, which is empty while taken apart.
+         */
+        private final BinaryTree<T> tree;
+
+        /**
+         * The root label of {@code tree}.
+         */
+        private final T root;
+
+        /**
+         * The left subtree of {@code tree}.
+         */
+        private final BinaryTree<T> left;
+
+        /**
+         * The right subtree of {@code tree}.
+         */
+        private final BinaryTree<T> right;
+
+        /**
+         * Constructor, which takes {@code tree} apart.
+         *
+         * @param tree
+         *            the tree
+         * @requires |tree| > 0
+         */
+        Frame(BinaryTree<T> tree) {
+            this.tree = tree;
+            this.left = tree.newInstance();
+            this.right = tree.newInstance();
+            this.root = tree.disassemble(this.left, this.right);
+        }
+
+        /**
+         * Puts {@code tree} back together.
+         */
+        void restore() {
+            this.tree.assemble(this.root, this.left, this.right);
+        }
+
+    }
+
     /**
      * Returns whether {@code x} is in {@code t}.
      *
@@ -44,22 +98,37 @@ public final class BinarySearchTreeMethods {
      */
     public static <T extends Comparable<T>> boolean isInTree(BinaryTree<T> t,
             T x) {
+        assert t != null : "Violation of: t is not null";
+        assert x != null : "Violation of: x is not null";
 
-        boolean checker = true; //boolean statement
-        if (t.height() > 0) { //checking if tree is empty or not
-            BinaryTree<T> left = t.newInstance();
-            BinaryTree<T> right = t.newInstance();
-            T rootNode = t.disassemble(left, right);
-            if (rootNode.equals("")) {
-                checker = false;
-            } else if (rootNode.compareTo(x) < 0 && !checker) {
-                checker = isInTree(right, x);
+        /*
+         * BinaryTree gives no read-only access to the subtrees, so each level
+         * is disassembled and put back together; this is at least limited to
+         * the search path, with one comparison per level. The levels taken
+         * apart are kept on an explicit stack rather than the call stack, so
+         * a degenerate tree of any height can be searched, and they are all
+         * restored before returning. A read path that leaves the tree alone
+         * needs the nodes themselves, as Set3a has.
+         */
+        boolean found = false;
+        Stack<Frame<T>> path = new Stack1L<Frame<T>>();
+        BinaryTree<T> subtree = t;
+        while (!found && subtree.size() > 0) {
+            Frame<T> top = new Frame<T>(subtree);
+            path.push(top);
+            int cmp = x.compareTo(top.root);
+            if (cmp == 0) {
+                found = true;
+            } else if (cmp < 0) {
+                subtree = top.left;
             } else {
-                checker = isInTree(left, x);
+                subtree = top.right;
             }
-            t.assemble(rootNode, left, right);
         }
-        return checker;
+        while (path.length() > 0) {
+            path.pop().restore();
+        }
+        return found;
     }
 
     /**
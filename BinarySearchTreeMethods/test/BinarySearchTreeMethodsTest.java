@@ -47,6 +47,74 @@ public final class BinarySearchTreeMethodsTest {
         assertEquals(t2, t1);
     }
 
+    @Test
+    public void isInTreeEmpty() {
+        BinaryTree<String> t1 = createBSTFromArgs();
+        BinaryTree<String> t2 = createBSTFromArgs();
+        boolean inTree = BinarySearchTreeMethods.isInTree(t1, "a");
+        assertEquals(false, inTree);
+        assertEquals(t2, t1);
+    }
+
+    @Test
+    public void isInTreeRoot() {
+        BinaryTree<String> t1 = createBSTFromArgs("d", "b", "f");
+        BinaryTree<String> t2 = createBSTFromArgs("d", "b", "f");
+        boolean inTree = BinarySearchTreeMethods.isInTree(t1, "d");
+        assertEquals(true, inTree);
+        assertEquals(t2, t1);
+    }
+
+    @Test
+    public void isInTreeLeftSubtree() {
+        BinaryTree<String> t1 = createBSTFromArgs("d", "b", "f", "a", "c",
+                "e", "g");
+        BinaryTree<String> t2 = createBSTFromArgs("d", "b", "f", "a", "c",
+                "e", "g");
+        boolean inTree = BinarySearchTreeMethods.isInTree(t1, "c");
+        assertEquals(true, inTree);
+        assertEquals(t2, t1);
+    }
+
+    @Test
+    public void isInTreeRightSubtree() {
+        BinaryTree<String> t1 = createBSTFromArgs("d", "b", "f", "a", "c",
+                "e", "g");
+        BinaryTree<String> t2 = createBSTFromArgs("d", "b", "f", "a", "c",
+                "e", "g");
+        boolean inTree = BinarySearchTreeMethods.isInTree(t1, "e");
+        assertEquals(true, inTree);
+        assertEquals(t2, t1);
+    }
+
+    @Test
+    public void isInTreeMissing() {
+        BinaryTree<String> t1 = createBSTFromArgs("d", "b", "f", "a", "g");
+        BinaryTree<String> t2 = createBSTFromArgs("d", "b", "f", "a", "g");
+        boolean inTree = BinarySearchTreeMethods.isInTree(t1, "e");
+        assertEquals(false, inTree);
+        assertEquals(t2, t1);
+    }
+
+    @Test
+    public void isInTreeDegenerate() {
+        /*
+         * Build the tree bottom-up, since inserting sorted labels one at a
+         * time would itself recurse once per level
+         */
+        final int n = 100000;
+        BinaryTree<Integer> t1 = new BinaryTree1<Integer>();
+        for (int i = n - 1; i >= 0; i--) {
+            BinaryTree<Integer> right = new BinaryTree1<Integer>();
+            right.transferFrom(t1);
+            t1.assemble(i, new BinaryTree1<Integer>(), right);
+        }
+        assertEquals(true, BinarySearchTreeMethods.isInTree(t1, n - 1));
+        assertEquals(false, BinarySearchTreeMethods.isInTree(t1, n));
+        assertEquals(n, t1.size());
+        assertEquals(Integer.valueOf(0), t1.root());
+    }
+
     @Test
     public void removeSmallestTest() {
         /*
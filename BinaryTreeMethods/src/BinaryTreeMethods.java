@@ -1,13 +1,24 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 import components.binarytree.BinaryTree;
-import components.binarytree.BinaryTree1;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
 import components.simplewriter.SimpleWriter1L;
+import components.stack.Stack;
+import components.stack.Stack1L;
 
 /**
  * Utility class with implementation of {@code BinaryTree} static, generic
- * methods height and isInTree.
+ * methods height, size, and isInTree.
+ *
+ * <p>
+ * The sequential methods walk the tree with an explicit stack instead of
+ * recursion, so they work on trees of any height. The parallel methods split
+ * the work between the two subtrees of any tree both of whose subtrees have
+ * at least {@code cutoff} nodes, and use the sequential methods below that.
+ * Every method leaves its tree as it found it.
  *
  * @author Put your name here
  *
@@ -20,6 +31,82 @@ public final class BinaryTreeMethods {
     private BinaryTreeMethods() {
     }
 
+    /**
+     * A non-empty tree taken apart during a walk, waiting to be put back
+     * together.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     */
+    private static final class Frame<T> {
+
+        /**
+         * The tree, which is empty while taken apart.
+         */
+        private final BinaryTree<T> tree;
+
+        /**
+         * The root label of {@code tree}.
+         */
+        private final T root;
+
+        /**
+         * The left subtree of {@code tree}.
+         */
+        private final BinaryTree<T> left;
+
+        /**
+         * The right subtree of {@code tree}.
+         */
+        private final BinaryTree<T> right;
+
+        /**
+         * Number of subtrees of {@code tree} already walked (0, 1, or 2).
+         */
+        private int visited;
+
+        /**
+         * Constructor, which takes {@code tree} apart.
+         *
+         * @param tree
+         *            the tree
+         * @requires |tree| > 0
+         */
+        Frame(BinaryTree<T> tree) {
+            this.tree = tree;
+            this.left = tree.newInstance();
+            this.right = tree.newInstance();
+            this.root = tree.disassemble(this.left, this.right);
+            this.visited = 0;
+        }
+
+        /**
+         * Puts {@code tree} back together.
+         */
+        void restore() {
+            this.tree.assemble(this.root, this.left, this.right);
+        }
+
+    }
+
+    /**
+     * Takes {@code t} apart and pushes it on {@code path}, if it is not
+     * empty.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     * @param path
+     *            the trees taken apart so far
+     * @param t
+     *            the tree
+     * @updates path, t
+     */
+    private static <T> void enter(Stack<Frame<T>> path, BinaryTree<T> t) {
+        if (t.size() > 0) {
+            path.push(new Frame<T>(t));
+        }
+    }
+
     /**
      * Returns the height of the given {@code BinaryTree<T>}.
      *
@@ -33,27 +120,58 @@ public final class BinaryTreeMethods {
     public static <T> int height(BinaryTree<T> t) {
         assert t != null : "Violation of: t is not null";
 
-        // TODO - fill in body
-        BinaryTree<T> bn = t.newInstance();
+        /*
+         * Walk the tree depth-first; the stack holds the path from the root
+         * to the current node, so the height is its longest length
+         */
         int height = 0;
-        BinaryTree<T> left = new BinaryTree1<>();
-        BinaryTree<T> right = new BinaryTree1<>();
-
-        bn.disassemble(left, right);
+        Stack<Frame<T>> path = new Stack1L<Frame<T>>();
+        enter(path, t);
+        while (path.length() > 0) {
+            height = Math.max(height, path.length());
+            Frame<T> top = path.top();
+            top.visited++;
+            if (top.visited == 1) {
+                enter(path, top.left);
+            } else if (top.visited == 2) {
+                enter(path, top.right);
+            } else {
+                path.pop().restore();
+            }
+        }
+        return height;
+    }
 
-        int lHeight = height(left);
-        int rHeight = height(right);
+    /**
+     * Returns the number of nodes of the given {@code BinaryTree<T>}, by
+     * counting them.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     * @param t
+     *            the {@code BinaryTree} whose nodes to count
+     * @return the number of nodes of the given {@code BinaryTree}
+     * @ensures size = |t|
+     */
+    public static <T> int size(BinaryTree<T> t) {
+        assert t != null : "Violation of: t is not null";
 
-        if (lHeight >= rHeight) {
-            height(left);
-            height += lHeight;
-        } else {
-            height(right);
-            height += rHeight;
+        int size = 0;
+        Stack<Frame<T>> path = new Stack1L<Frame<T>>();
+        enter(path, t);
+        while (path.length() > 0) {
+            Frame<T> top = path.top();
+            top.visited++;
+            if (top.visited == 1) {
+                size++;
+                enter(path, top.left);
+            } else if (top.visited == 2) {
+                enter(path, top.right);
+            } else {
+                path.pop().restore();
+            }
         }
-
-        // This line added just to make the component compilable.
-        return height;
+        return size;
     }
 
     /**
@@ -74,10 +192,339 @@ public final class BinaryTreeMethods {
         assert t != null : "Violation of: t is not null";
         assert x != null : "Violation of: x is not null";
 
-        // TODO - fill in body
+        boolean found = false;
+        Stack<Frame<T>> path = new Stack1L<Frame<T>>();
+        enter(path, t);
+        while (path.length() > 0) {
+            Frame<T> top = path.top();
+            top.visited++;
+            if (top.visited == 1 && top.root.equals(x)) {
+                found = true;
+            }
+            if (found || top.visited > 2) {
+                path.pop().restore();
+            } else if (top.visited == 1) {
+                enter(path, top.left);
+            } else {
+                enter(path, top.right);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Task computing a value for a {@code BinaryTree<T>} from the values of
+     * its subtrees, in parallel when both subtrees are large enough.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     */
+    private abstract static class SubtreeTask<T>
+            extends RecursiveTask<Integer> {
+
+        /**
+         * Serialization version, as {@code RecursiveTask} is serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The tree.
+         */
+        private final transient BinaryTree<T> tree;
+
+        /**
+         * Minimum size of both subtrees for them to be handled in parallel.
+         */
+        private final int cutoff;
+
+        /**
+         * Constructor.
+         *
+         * @param tree
+         *            the tree
+         * @param cutoff
+         *            minimum size of both subtrees for a split
+         */
+        SubtreeTask(BinaryTree<T> tree, int cutoff) {
+            this.tree = tree;
+            this.cutoff = cutoff;
+        }
+
+        /**
+         * Returns the task for {@code subtree}.
+         *
+         * @param subtree
+         *            the subtree
+         * @param subtreeCutoff
+         *            minimum size of both subtrees for a split
+         * @return the task
+         */
+        abstract SubtreeTask<T> forSubtree(BinaryTree<T> subtree,
+                int subtreeCutoff);
+
+        /**
+         * Returns the value for {@code t}, computed sequentially.
+         *
+         * @param t
+         *            the tree
+         * @return the value
+         */
+        abstract int sequential(BinaryTree<T> t);
+
+        /**
+         * Returns the value for a tree from its root and the values of its
+         * subtrees.
+         *
+         * @param root
+         *            the root label
+         * @param left
+         *            the value for the left subtree
+         * @param right
+         *            the value for the right subtree
+         * @return the value
+         */
+        abstract int combine(T root, int left, int right);
+
+        @Override
+        protected final Integer compute() {
+            int result;
+            if (this.tree.size() < 2 * this.cutoff + 1) {
+                result = this.sequential(this.tree);
+            } else {
+                Frame<T> frame = new Frame<T>(this.tree);
+                if (frame.left.size() < this.cutoff
+                        || frame.right.size() < this.cutoff) {
+                    frame.restore();
+                    result = this.sequential(this.tree);
+                } else {
+                    SubtreeTask<T> leftTask = this.forSubtree(frame.left,
+                            this.cutoff);
+                    leftTask.fork();
+                    int right = this.forSubtree(frame.right, this.cutoff)
+                            .compute();
+                    int left = leftTask.join();
+                    frame.restore();
+                    result = this.combine(frame.root, left, right);
+                }
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Task computing the height of a {@code BinaryTree<T>}.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     */
+    private static final class HeightTask<T> extends SubtreeTask<T> {
+
+        /**
+         * Serialization version, as {@code RecursiveTask} is serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor.
+         *
+         * @param tree
+         *            the tree
+         * @param cutoff
+         *            minimum size of both subtrees for a split
+         */
+        HeightTask(BinaryTree<T> tree, int cutoff) {
+            super(tree, cutoff);
+        }
+
+        @Override
+        SubtreeTask<T> forSubtree(BinaryTree<T> subtree, int subtreeCutoff) {
+            return new HeightTask<T>(subtree, subtreeCutoff);
+        }
+
+        @Override
+        int sequential(BinaryTree<T> t) {
+            return height(t);
+        }
+
+        @Override
+        int combine(T root, int left, int right) {
+            return 1 + Math.max(left, right);
+        }
+
+    }
+
+    /**
+     * Task counting the nodes of a {@code BinaryTree<T>}.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     */
+    private static final class SizeTask<T> extends SubtreeTask<T> {
+
+        /**
+         * Serialization version, as {@code RecursiveTask} is serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor.
+         *
+         * @param tree
+         *            the tree
+         * @param cutoff
+         *            minimum size of both subtrees for a split
+         */
+        SizeTask(BinaryTree<T> tree, int cutoff) {
+            super(tree, cutoff);
+        }
+
+        @Override
+        SubtreeTask<T> forSubtree(BinaryTree<T> subtree, int subtreeCutoff) {
+            return new SizeTask<T>(subtree, subtreeCutoff);
+        }
+
+        @Override
+        int sequential(BinaryTree<T> t) {
+            return size(t);
+        }
+
+        @Override
+        int combine(T root, int left, int right) {
+            return 1 + left + right;
+        }
+
+    }
+
+    /**
+     * Task searching a {@code BinaryTree<T>} for a label; its value is 1 if
+     * the label is found and 0 otherwise.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     */
+    private static final class SearchTask<T> extends SubtreeTask<T> {
+
+        /**
+         * Serialization version, as {@code RecursiveTask} is serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The label searched for.
+         */
+        private final transient T x;
+
+        /**
+         * Constructor.
+         *
+         * @param tree
+         *            the tree
+         * @param x
+         *            the label searched for
+         * @param cutoff
+         *            minimum size of both subtrees for a split
+         */
+        SearchTask(BinaryTree<T> tree, T x, int cutoff) {
+            super(tree, cutoff);
+            this.x = x;
+        }
+
+        @Override
+        SubtreeTask<T> forSubtree(BinaryTree<T> subtree, int subtreeCutoff) {
+            return new SearchTask<T>(subtree, this.x, subtreeCutoff);
+        }
+
+        @Override
+        int sequential(BinaryTree<T> t) {
+            int result = 0;
+            if (isInTree(t, this.x)) {
+                result = 1;
+            }
+            return result;
+        }
+
+        @Override
+        int combine(T root, int left, int right) {
+            int result = left | right;
+            if (root.equals(this.x)) {
+                result = 1;
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Returns the height of the given {@code BinaryTree<T>}, computing the
+     * heights of large subtrees in parallel.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     * @param t
+     *            the {@code BinaryTree} whose height to return
+     * @param cutoff
+     *            minimum size of both subtrees of a tree for them to be
+     *            handled in parallel
+     * @return the height of the given {@code BinaryTree}
+     * @requires cutoff > 0
+     * @ensures parallelHeight = ht(t)
+     */
+    public static <T> int parallelHeight(BinaryTree<T> t, int cutoff) {
+        assert t != null : "Violation of: t is not null";
+        assert cutoff > 0 : "Violation of: cutoff > 0";
+
+        return ForkJoinPool.commonPool().invoke(new HeightTask<T>(t, cutoff));
+    }
+
+    /**
+     * Returns the number of nodes of the given {@code BinaryTree<T>},
+     * counting those of large subtrees in parallel.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     * @param t
+     *            the {@code BinaryTree} whose nodes to count
+     * @param cutoff
+     *            minimum size of both subtrees of a tree for them to be
+     *            handled in parallel
+     * @return the number of nodes of the given {@code BinaryTree}
+     * @requires cutoff > 0
+     * @ensures parallelSize = |t|
+     */
+    public static <T> int parallelSize(BinaryTree<T> t, int cutoff) {
+        assert t != null : "Violation of: t is not null";
+        assert cutoff > 0 : "Violation of: cutoff > 0";
+
+        return ForkJoinPool.commonPool().invoke(new SizeTask<T>(t, cutoff));
+    }
+
+    /**
+     * Returns true if the given {@code T} is in the given {@code BinaryTree<T>}
+     * or false otherwise, searching large subtrees in parallel.
+     *
+     * @param <T>
+     *            the type of the {@code BinaryTree} node labels
+     * @param t
+     *            the {@code BinaryTree} to search
+     * @param x
+     *            the {@code T} to search for
+     * @param cutoff
+     *            minimum size of both subtrees of a tree for them to be
+     *            handled in parallel
+     * @return true if the given {@code T} is in the given {@code BinaryTree},
+     *         false otherwise
+     * @requires cutoff > 0
+     * @ensures parallelIsInTree = [true if x is in t, false otherwise]
+     */
+    public static <T> boolean parallelIsInTree(BinaryTree<T> t, T x,
+            int cutoff) {
+        assert t != null : "Violation of: t is not null";
+        assert x != null : "Violation of: x is not null";
+        assert cutoff > 0 : "Violation of: cutoff > 0";
 
-        // This line added just to make the component compilable.
-        return false;
+        return ForkJoinPool.commonPool()
+                .invoke(new SearchTask<T>(t, x, cutoff)) == 1;
     }
 
     /**
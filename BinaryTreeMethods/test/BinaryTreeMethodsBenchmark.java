@@ -0,0 +1,91 @@
+import components.binarytree.BinaryTree;
+import components.binarytree.BinaryTree1;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that reports the time {@code BinaryTreeMethods} takes to compute
+ * the height and size of a balanced tree of 10^6 nodes, sequentially and in
+ * parallel. Speed-up shows only on a machine with several cores.
+ */
+public final class BinaryTreeMethodsBenchmark {
+
+    /**
+     * Number of nodes in the tree.
+     */
+    private static final int N = 1000000;
+
+    /**
+     * Subtree size below which the parallel methods work sequentially.
+     */
+    private static final int CUTOFF = 10000;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private BinaryTreeMethodsBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns a tree of minimum height with nodes labeled {@code lo} to
+     * {@code hi - 1}.
+     *
+     * @param lo
+     *            the first label
+     * @param hi
+     *            one past the last label
+     * @return the tree
+     */
+    private static BinaryTree<Integer> balancedTree(int lo, int hi) {
+        BinaryTree<Integer> t = new BinaryTree1<Integer>();
+        if (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            t.assemble(mid, balancedTree(lo, mid), balancedTree(mid + 1, hi));
+        }
+        return t;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        BinaryTree<Integer> t = balancedTree(0, N);
+        // warm up
+        BinaryTreeMethods.height(t);
+        BinaryTreeMethods.parallelHeight(t, CUTOFF);
+        BinaryTreeMethods.size(t);
+        BinaryTreeMethods.parallelSize(t, CUTOFF);
+
+        long start = System.nanoTime();
+        BinaryTreeMethods.height(t);
+        long sequentialHeight = System.nanoTime() - start;
+        start = System.nanoTime();
+        BinaryTreeMethods.parallelHeight(t, CUTOFF);
+        long parallelHeight = System.nanoTime() - start;
+        start = System.nanoTime();
+        BinaryTreeMethods.size(t);
+        long sequentialSize = System.nanoTime() - start;
+        start = System.nanoTime();
+        BinaryTreeMethods.parallelSize(t, CUTOFF);
+        long parallelSize = System.nanoTime() - start;
+
+        out.println(Runtime.getRuntime().availableProcessors() + " cores, "
+                + "balanced tree of " + N + " nodes");
+        out.println("height: sequential " + sequentialHeight / NANOS_PER_MILLI
+                + " ms, parallel " + parallelHeight / NANOS_PER_MILLI + " ms");
+        out.println("size: sequential " + sequentialSize / NANOS_PER_MILLI
+                + " ms, parallel " + parallelSize / NANOS_PER_MILLI + " ms");
+        out.close();
+    }
+
+}
@@ -0,0 +1,110 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.binarytree.BinaryTree;
+import components.binarytree.BinaryTree1;
+
+/**
+ * JUnit test fixture for {@code BinaryTreeMethods}'s sequential and parallel
+ * methods on trees with 10^6 nodes. Their times are compared by
+ * {@code BinaryTreeMethodsBenchmark}.
+ */
+public final class BinaryTreeMethodsLargeTest {
+
+    /**
+     * Number of nodes in the test trees.
+     */
+    private static final int N = 1000000;
+
+    /**
+     * Subtree size below which the parallel methods work sequentially.
+     */
+    private static final int CUTOFF = 10000;
+
+    /**
+     * Returns a tree of {@code n} nodes labeled {@code 0} to {@code n - 1}
+     * in which every left subtree is empty, so its height is {@code n}.
+     *
+     * @param n
+     *            the number of nodes
+     * @return the tree
+     */
+    private static BinaryTree<Integer> skewedTree(int n) {
+        BinaryTree<Integer> t = new BinaryTree1<Integer>();
+        for (int i = n - 1; i >= 0; i--) {
+            BinaryTree<Integer> left = t.newInstance();
+            BinaryTree<Integer> right = t.newInstance();
+            right.transferFrom(t);
+            t.assemble(i, left, right);
+        }
+        return t;
+    }
+
+    /**
+     * Returns a tree of minimum height with nodes labeled {@code lo} to
+     * {@code hi - 1}.
+     *
+     * @param lo
+     *            the first label
+     * @param hi
+     *            one past the last label
+     * @return the tree
+     */
+    private static BinaryTree<Integer> balancedTree(int lo, int hi) {
+        BinaryTree<Integer> t = new BinaryTree1<Integer>();
+        if (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            t.assemble(mid, balancedTree(lo, mid), balancedTree(mid + 1, hi));
+        }
+        return t;
+    }
+
+    /**
+     * Checks height, size, and isInTree, sequential and parallel, on
+     * {@code t}, and that {@code t} is unchanged.
+     *
+     * @param t
+     *            the tree, labeled 0 to N - 1
+     * @param expectedHeight
+     *            the height of t
+     */
+    private static void checkAll(BinaryTree<Integer> t, int expectedHeight) {
+        Integer root = t.root();
+        assertEquals(expectedHeight, BinaryTreeMethods.height(t));
+        assertEquals(expectedHeight,
+                BinaryTreeMethods.parallelHeight(t, CUTOFF));
+        assertEquals(N, BinaryTreeMethods.size(t));
+        assertEquals(N, BinaryTreeMethods.parallelSize(t, CUTOFF));
+        final int[] present = { 0, N / 3, N - 1 };
+        for (int x : present) {
+            assertTrue(BinaryTreeMethods.isInTree(t, x));
+            assertTrue(BinaryTreeMethods.parallelIsInTree(t, x, CUTOFF));
+        }
+        assertFalse(BinaryTreeMethods.isInTree(t, N));
+        assertFalse(BinaryTreeMethods.parallelIsInTree(t, -1, CUTOFF));
+        assertEquals(N, t.size());
+        assertEquals(root, t.root());
+    }
+
+    /**
+     * Test on a skewed tree of height 10^6.
+     */
+    @Test
+    public void skewedMillion() {
+        checkAll(skewedTree(N), N);
+    }
+
+    /**
+     * Test on a balanced tree of 10^6 nodes.
+     */
+    @Test
+    public void balancedMillion() {
+        BinaryTree<Integer> t = balancedTree(0, N);
+        int expectedHeight = 32 - Integer.numberOfLeadingZeros(N);
+        checkAll(t, expectedHeight);
+    }
+
+}
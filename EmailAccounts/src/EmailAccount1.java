@@ -1,6 +1,3 @@
-import components.map.Map;
-import components.map.Map1L;
-
 /**
  * Implementation of {@code EmailAccount}.
  *
@@ -36,7 +33,7 @@ public final class EmailAccount1 implements EmailAccount {
     /*
      * Map of all last names and their dotNum
      */
-    private static Map<String, Integer> database = new Map1L<String, Integer>();
+    private static CountMap<String> database = new CountMap<String>();
 
     /*
      * Constructor ------------------------------------------------------------
@@ -55,14 +52,7 @@ public final class EmailAccount1 implements EmailAccount {
         this.firstName = firstName;
         this.lastName = lastName;
         String lastNameLower = lastName.toLowerCase();
-        if (EmailAccount1.database.hasKey(lastNameLower)) {
-            int num = EmailAccount1.database.value(lastNameLower);
-            this.dotNum = num + 1;
-            EmailAccount1.database.replaceValue(lastNameLower, this.dotNum);
-        } else {
-            this.dotNum = 1;
-            EmailAccount1.database.add(lastNameLower, 1);
-        }
+        this.dotNum = EmailAccount1.database.increment(lastNameLower);
 
     }
 
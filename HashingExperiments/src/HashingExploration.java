@@ -1,5 +1,4 @@
 import components.set.Set;
-import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -88,7 +87,7 @@ public final class HashingExploration {
          * initialized to 0.
          */
         int[] counts = new int[hashTableSize];
-        Set<String> counted = new Set1L<String>();
+        Set<String> counted = new Set4<String>();
         /*
          * Get some lines of input, hash them, and record counts.
          */
@@ -0,0 +1,595 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.Set2;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a hash table using {@code Set}s for the buckets,
+ * with implementations of primary methods.
+ *
+ * <p>
+ * The hash table grows to about twice its size (the next prime) whenever the
+ * number of elements per bucket exceeds the maximum load factor, and shrinks
+ * by half when it falls below a quarter of that, but never below its initial
+ * size, so {@code add}, {@code remove}, and {@code contains} take O(1)
+ * expected time. The non-empty buckets are kept in a dense list, so
+ * {@code removeAny} and iteration never visit empty buckets.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @convention <pre>
+ * |$this.hashTable| > 0  and
+ * for all i: integer, s: finite set of T, x: T
+ *     where (0 <= i  and  i < |$this.hashTable|  and
+ *            <s> = $this.hashTable[i, i+1)  and
+ *            x is in s)
+ *   ([computed result of x.hashCode()] mod |$this.hashTable| = i)  and
+ * [a null entry in $this.hashTable is an empty bucket]  and
+ * $this.occupied = {i: integer
+ *                   where ($this.hashTable[i, i+1) /= <{}>)
+ *                     (i)}  and
+ * $this.size = sum i: integer, s: finite set of T
+ *     where (0 <= i  and  i < |$this.hashTable|  and
+ *            <s> = $this.hashTable[i, i+1))
+ *   (|s|)  and
+ * $this.maxLoadFactor > 0  and
+ * 0 < $this.initialHashTableSize <= |$this.hashTable|  and
+ * [$this.size <= $this.maxLoadFactor * |$this.hashTable|, unless
+ *  |$this.hashTable| > MAXIMUM_HASH_TABLE_SIZE / 2]
+ * </pre>
+ * @correspondence <pre>
+ * this = union i: integer, s: finite set of T
+ *            where (0 <= i  and  i < |$this.hashTable|  and
+ *                   <s> = $this.hashTable[i, i+1))
+ *          (s)
+ * </pre>
+ */
+public class Set4<T> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default size of hash table.
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 101;
+
+    /**
+     * Default maximum load factor (elements per bucket) before the hash table
+     * grows.
+     */
+    private static final double DEFAULT_MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Largest hash table size this implementation will grow to.
+     */
+    private static final int MAXIMUM_HASH_TABLE_SIZE = 1 << 30;
+
+    /**
+     * The hash table shrinks once its load factor falls below
+     * {@code maxLoadFactor / SHRINK_RATIO}.
+     */
+    private static final int SHRINK_RATIO = 4;
+
+    /**
+     * Buckets for hashing.
+     */
+    private Set<T>[] hashTable;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Hash table size chosen at construction; the table never shrinks below
+     * it.
+     */
+    private int initialHashTableSize;
+
+    /**
+     * Maximum load factor before the hash table grows.
+     */
+    private double maxLoadFactor;
+
+    /**
+     * Indices of the non-empty buckets of {@code hashTable}.
+     */
+    private Occupancy occupied;
+
+    /**
+     * Set of bucket indices kept as a dense list, so that finding a non-empty
+     * bucket, and visiting all of them, costs time proportional to the number
+     * of non-empty buckets rather than to the length of the hash table.
+     */
+    private static final class Occupancy {
+
+        /**
+         * Indices in the set, in positions [0, count).
+         */
+        private final int[] indices;
+
+        /**
+         * For each possible index, 1 + its position in {@code indices}, or 0
+         * if it is not in the set; zero-initialized so that no fill is
+         * needed.
+         */
+        private final int[] positions;
+
+        /**
+         * Number of indices in the set.
+         */
+        private int count;
+
+        /**
+         * Constructor resulting in an empty set of indices less than
+         * {@code tableLength}.
+         *
+         * @param tableLength
+         *            bound on the indices
+         */
+        Occupancy(int tableLength) {
+            this.indices = new int[tableLength];
+            this.positions = new int[tableLength];
+            this.count = 0;
+        }
+
+        /**
+         * Adds {@code i} to the set.
+         *
+         * @param i
+         *            the index, not already in the set
+         */
+        void mark(int i) {
+            assert this.positions[i] == 0 : "Violation of: i is not marked";
+            this.indices[this.count] = i;
+            this.count++;
+            this.positions[i] = this.count;
+        }
+
+        /**
+         * Removes {@code i} from the set, moving the last index into its
+         * place.
+         *
+         * @param i
+         *            the index, in the set
+         */
+        void unmark(int i) {
+            assert this.positions[i] > 0 : "Violation of: i is marked";
+            int position = this.positions[i] - 1;
+            this.count--;
+            int last = this.indices[this.count];
+            this.indices[position] = last;
+            this.positions[last] = position + 1;
+            this.positions[i] = 0;
+        }
+
+        /**
+         * Reports the number of indices in the set.
+         *
+         * @return the number of indices
+         */
+        int count() {
+            return this.count;
+        }
+
+        /**
+         * Reports the index at position {@code k} of the dense list.
+         *
+         * @param k
+         *            the position
+         * @return the index at position {@code k}
+         */
+        int get(int k) {
+            assert 0 <= k && k < this.count : "Violation of: 0 <= k < count";
+            return this.indices[k];
+        }
+
+    }
+
+    /**
+     * Computes {@code a} mod {@code b} as % should have been defined to work.
+     *
+     * @param a
+     *            the number being reduced
+     * @param b
+     *            the modulus
+     * @return the result of a mod b, which satisfies 0 <= {@code mod} < b
+     * @requires b > 0
+     * @ensures <pre>
+     * 0 <= mod  and  mod < b  and
+     * there exists k: integer (a = k * b + mod)
+     * </pre>
+     */
+    private static int mod(int a, int b) {
+        assert b > 0 : "Violation of: b > 0";
+
+        int result = a % b;
+        while (result < 0) {
+            result += b;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest prime number not less than {@code n}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the smallest prime >= n
+     * @requires n > 0
+     * @ensures <pre>
+     * nextPrime >= n  and  [nextPrime is prime]  and
+     * [there is no prime p such that n <= p < nextPrime]
+     * </pre>
+     */
+    private static int nextPrime(int n) {
+        assert n > 0 : "Violation of: n > 0";
+
+        int candidate = Math.max(n, 2);
+        boolean isPrime = false;
+        while (!isPrime) {
+            isPrime = true;
+            for (int d = 2; (long) d * d <= candidate && isPrime; d++) {
+                if (candidate % d == 0) {
+                    isPrime = false;
+                }
+            }
+            if (!isPrime) {
+                candidate++;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Creates an array of {@code length} null buckets.
+     *
+     * @param length
+     *            the length of the array
+     * @return the new array
+     * @ensures |newBucketArray| = length
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Set<T>[] newBucketArray(int length) {
+        /*
+         * With "new Set<T>[...]" in place of "new Set[...]" it does not
+         * compile; as shown, it results in a warning about an unchecked
+         * conversion, though it cannot fail.
+         */
+        return new Set[length];
+    }
+
+    /**
+     * Returns the index of the bucket for {@code x}.
+     *
+     * @param x
+     *            the element
+     * @return the bucket index
+     * @ensures <pre>
+     * indexFor = [computed result of x.hashCode()] mod |$this.hashTable|
+     * </pre>
+     */
+    private int indexFor(T x) {
+        return mod(x.hashCode(), this.hashTable.length);
+    }
+
+    /**
+     * Adds {@code x} to its bucket, creating the bucket first if it is still
+     * null, and records the bucket as occupied.
+     *
+     * @param x
+     *            the element
+     * @aliases reference {@code x}
+     * @updates $this.hashTable, $this.occupied
+     * @requires x is not in this
+     * @ensures <pre>
+     * [the bucket of $this.hashTable for x] = [its previous value] union {x}
+     * </pre>
+     */
+    private void addElement(T x) {
+        int i = this.indexFor(x);
+        if (this.hashTable[i] == null) {
+            this.hashTable[i] = new Set2<T>();
+        }
+        Set<T> bucket = this.hashTable[i];
+        bucket.add(x);
+        if (bucket.size() == 1) {
+            this.occupied.mark(i);
+        }
+    }
+
+    /**
+     * Moves every element of {@code this} into a new hash table of size
+     * {@code newHashTableSize}.
+     *
+     * @param newHashTableSize
+     *            the size of the new hash table
+     * @updates $this.hashTable, $this.occupied
+     * @requires newHashTableSize > 0
+     * @ensures |$this.hashTable| = newHashTableSize  and  this = #this
+     */
+    private void rehash(int newHashTableSize) {
+        Set<T>[] oldHashTable = this.hashTable;
+        Occupancy oldOccupied = this.occupied;
+        this.hashTable = newBucketArray(newHashTableSize);
+        this.occupied = new Occupancy(newHashTableSize);
+        for (int k = 0; k < oldOccupied.count(); k++) {
+            Set<T> oldBucket = oldHashTable[oldOccupied.get(k)];
+            while (oldBucket.size() > 0) {
+                this.addElement(oldBucket.removeAny());
+            }
+        }
+    }
+
+    /**
+     * Grows the hash table if an addition has pushed the load factor above
+     * {@code $this.maxLoadFactor}.
+     *
+     * @updates $this.hashTable
+     * @ensures <pre>
+     * this = #this  and
+     * [$this.size <= $this.maxLoadFactor * |$this.hashTable|, unless
+     *  |$this.hashTable| > MAXIMUM_HASH_TABLE_SIZE / 2]
+     * </pre>
+     */
+    private void growIfNeeded() {
+        int length = this.hashTable.length;
+        if (this.size > this.maxLoadFactor * length
+                && length <= MAXIMUM_HASH_TABLE_SIZE / 2) {
+            this.rehash(nextPrime(2 * length + 1));
+        }
+    }
+
+    /**
+     * Shrinks the hash table if removals have pushed the load factor below
+     * {@code $this.maxLoadFactor / SHRINK_RATIO}, without going below
+     * {@code $this.initialHashTableSize}.
+     *
+     * @updates $this.hashTable
+     * @ensures this = #this
+     */
+    private void shrinkIfNeeded() {
+        int length = this.hashTable.length;
+        if (length > this.initialHashTableSize
+                && this.size < this.maxLoadFactor * length / SHRINK_RATIO) {
+            this.rehash(Math.max(this.initialHashTableSize,
+                    nextPrime(length / 2)));
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.hashTable = newBucketArray(this.initialHashTableSize);
+        this.occupied = new Occupancy(this.initialHashTableSize);
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set4() {
+        this(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /**
+     * Constructor resulting in a hash table of initial size
+     * {@code hashTableSize}.
+     *
+     * @param hashTableSize
+     *            initial size of hash table
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public Set4(int hashTableSize) {
+        this(hashTableSize, DEFAULT_MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructor resulting in a hash table of initial size
+     * {@code hashTableSize} that grows whenever the number of elements per
+     * bucket exceeds {@code loadFactor}.
+     *
+     * @param hashTableSize
+     *            initial size of hash table
+     * @param loadFactor
+     *            maximum load factor before the hash table grows
+     * @requires hashTableSize > 0  and  loadFactor > 0
+     * @ensures this = {}
+     */
+    public Set4(int hashTableSize, double loadFactor) {
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+        assert loadFactor > 0 : "Violation of: loadFactor > 0";
+
+        this.initialHashTableSize = hashTableSize;
+        this.maxLoadFactor = loadFactor;
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set4<?> : ""
+                + "Violation of: source is of dynamic type Set4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set4<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set4<T> localSource = (Set4<T>) source;
+        this.hashTable = localSource.hashTable;
+        this.size = localSource.size;
+        this.initialHashTableSize = localSource.initialHashTableSize;
+        this.maxLoadFactor = localSource.maxLoadFactor;
+        this.occupied = localSource.occupied;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        this.addElement(x);
+        this.size++;
+        this.growIfNeeded();
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        int i = this.indexFor(x);
+        T removed = this.hashTable[i].remove(x);
+        if (this.hashTable[i].size() == 0) {
+            this.occupied.unmark(i);
+        }
+        this.size--;
+        this.shrinkIfNeeded();
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int i = this.occupied.get(this.occupied.count() - 1);
+        T removed = this.hashTable[i].removeAny();
+        if (this.hashTable[i].size() == 0) {
+            this.occupied.unmark(i);
+        }
+        this.size--;
+        this.shrinkIfNeeded();
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Set<T> bucket = this.hashTable[this.indexFor(x)];
+        return bucket != null && bucket.contains(x);
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    /**
+     * Reports the current number of buckets in the hash table.
+     *
+     * @return the number of buckets
+     * @ensures hashTableSize = |$this.hashTable|
+     */
+    final int hashTableSize() {
+        return this.hashTable.length;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set4}.
+     */
+    private final class Set4Iterator implements Iterator<T> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Position, in the list of non-empty buckets, of the bucket from which
+         * the next bucket iterator will come.
+         */
+        private int nextOccupied;
+
+        /**
+         * Bucket iterator from which next element will come; {@code null}
+         * before the first bucket has been reached.
+         */
+        private Iterator<T> bucketIterator;
+
+        /**
+         * No-argument constructor.
+         */
+        Set4Iterator() {
+            this.numberSeen = 0;
+            this.nextOccupied = 0;
+            this.bucketIterator = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Set4.this.size;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.numberSeen++;
+            // walk the occupancy list, so empty buckets cost nothing
+            while (this.bucketIterator == null
+                    || !this.bucketIterator.hasNext()) {
+                int bucket = Set4.this.occupied.get(this.nextOccupied);
+                this.nextOccupied++;
+                this.bucketIterator = Set4.this.hashTable[bucket].iterator();
+            }
+            return this.bucketIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
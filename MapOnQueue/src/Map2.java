@@ -1,26 +1,50 @@
 import java.util.Iterator;
 
 import components.map.Map;
+import components.map.Map4;
 import components.map.MapSecondary;
 import components.queue.Queue;
 import components.queue.Queue1L;
 
 /**
  * {@code Map} represented as a {@code Queue} of pairs with implementations of
- * primary methods.
+ * primary methods, which switches to a hash table while it holds more than a
+ * threshold number of entries.
+ *
+ * <p>
+ * While small, {@code this} is a self-organizing list: every lookup moves the
+ * pair found to the front of the queue, so that frequently used keys are found
+ * after few comparisons. Once an addition takes the size past
+ * {@code hashingThreshold}, the pairs move into a hash table, where lookups
+ * take expected constant time, and they move back into the queue once removals
+ * take the size below {@code max(1, hashingThreshold / SHRINK_RATIO)}; the
+ * floor of 1 makes sure even a small threshold lets an emptied map switch back.
+ * The gap between the two sizes keeps a map whose size hovers around the
+ * threshold from switching back and forth on every operation.
  *
  * @param <K>
  *            type of {@code Map} domain (key) entries
  * @param <V>
  *            type of {@code Map} range (associated value) entries
  * @convention <pre>
- * for all key1, key2: K, value1, value2: V, str1, str2: string of (key, value)
- *     where (str1 * <(key1, value1)> is prefix of $this.pairsQueue and
- *            str2 * <(key2, value2)> is prefix of $this.pairsQueue and
- *            str1 /= str2)
- *   (key1 /= key2)
+ * $this.hashingThreshold > 0  and
+ * if $this.hashedPairs = null then
+ *  (for all key1, key2: K, value1, value2: V,
+ *           str1, str2: string of (key, value)
+ *       where (str1 * <(key1, value1)> is prefix of $this.pairsQueue and
+ *              str2 * <(key2, value2)> is prefix of $this.pairsQueue and
+ *              str1 /= str2)
+ *     (key1 /= key2)  and
+ *   |$this.pairsQueue| <= $this.hashingThreshold)
+ * else
+ *  ($this.pairsQueue = <>  and
+ *   |$this.hashedPairs| >= max(1, $this.hashingThreshold / SHRINK_RATIO)  and
+ *   |$this.hashedPairs| <= $this.hashTableSize)
+ * </pre>
+ * @correspondence <pre>
+ * if $this.hashedPairs = null then this = entries($this.pairsQueue)
+ *  else this = $this.hashedPairs
  * </pre>
- * @correspondence this = entries($this.pairsQueue)
  */
 public class Map2<K, V> extends MapSecondary<K, V> {
 
@@ -29,10 +53,37 @@ public class Map2<K, V> extends MapSecondary<K, V> {
      */
 
     /**
-     * Pairs included in {@code this}.
+     * Default size above which {@code this} switches to a hash table.
+     */
+    private static final int DEFAULT_HASHING_THRESHOLD = 32;
+
+    /**
+     * {@code this} switches back to a queue once its size falls below
+     * {@code max(1, hashingThreshold / SHRINK_RATIO)}.
+     */
+    private static final int SHRINK_RATIO = 4;
+
+    /**
+     * Pairs included in {@code this} while it is represented as a queue.
      */
     private Queue<Pair<K, V>> pairsQueue;
 
+    /**
+     * Pairs included in {@code this} while it is represented as a hash table;
+     * {@code null} while it is represented as a queue.
+     */
+    private Map<K, V> hashedPairs;
+
+    /**
+     * Number of buckets in {@code hashedPairs}.
+     */
+    private int hashTableSize;
+
+    /**
+     * Size above which {@code this} switches to a hash table.
+     */
+    private int hashingThreshold;
+
     /**
      * Finds pair with first component {@code key} and, if such exists, moves it
      * to the front of {@code q}.
@@ -56,16 +107,109 @@ public class Map2<K, V> extends MapSecondary<K, V> {
         assert q != null : "Violation of: q is not null";
         assert key != null : "Violation of: key is not null";
 
-        Queue<Pair<K, V>> queue1 = q.newInstance();
-        //making sure that it is not an empty queue
-        while (q.length() != 0) {
-            //if the front key does not equal the key argument then it will be dequeued from queue q and enqueued into queue1.
-            if (!q.front().key().equals(key)) {
-                queue1.enqueue(q.dequeue());
+        /*
+         * Find the position of the pair with key with the read-only iterator,
+         * then bring it to the front with a single rotation; a rotation of q
+         * is a permutation of it, so no other queue is needed
+         */
+        int index = 0;
+        boolean found = false;
+        Iterator<Pair<K, V>> it = q.iterator();
+        while (!found && it.hasNext()) {
+            if (it.next().key().equals(key)) {
+                found = true;
+            } else {
+                index++;
+            }
+        }
+        if (found && index > 0) {
+            q.rotate(index);
+        }
+    }
+
+    /**
+     * Moves every pair of {@code this} into a new hash table with
+     * {@code tableSize} buckets.
+     *
+     * @param tableSize
+     *            the number of buckets
+     * @updates $this.pairsQueue, $this.hashedPairs, $this.hashTableSize
+     * @requires tableSize > 0
+     * @ensures <pre>
+     * $this.pairsQueue = <>  and  $this.hashTableSize = tableSize  and
+     * $this.hashedPairs = #this
+     * </pre>
+     */
+    private void rehash(int tableSize) {
+        Map<K, V> newPairs = new Map4<K, V>(tableSize);
+        while (this.pairsQueue.length() > 0) {
+            Pair<K, V> p = this.pairsQueue.dequeue();
+            newPairs.add(p.key(), p.value());
+        }
+        if (this.hashedPairs != null) {
+            while (this.hashedPairs.size() > 0) {
+                Pair<K, V> p = this.hashedPairs.removeAny();
+                newPairs.add(p.key(), p.value());
+            }
+        }
+        this.hashedPairs = newPairs;
+        this.hashTableSize = tableSize;
+    }
+
+    /**
+     * Moves every pair of {@code this} from the hash table back into the
+     * queue.
+     *
+     * @updates $this.pairsQueue, $this.hashedPairs
+     * @requires $this.hashedPairs /= null
+     * @ensures <pre>
+     * $this.hashedPairs = null  and  entries($this.pairsQueue) = #this
+     * </pre>
+     */
+    private void unhash() {
+        while (this.hashedPairs.size() > 0) {
+            this.pairsQueue.enqueue(this.hashedPairs.removeAny());
+        }
+        this.hashedPairs = null;
+    }
+
+    /**
+     * Switches to, or resizes, the hash table if an addition has taken the
+     * size past what the current representation is meant to hold.
+     *
+     * @updates $this.pairsQueue, $this.hashedPairs, $this.hashTableSize
+     * @ensures this = #this
+     */
+    private void growIfNeeded() {
+        if (this.hashedPairs == null) {
+            if (this.pairsQueue.length() > this.hashingThreshold) {
+                this.rehash(2 * this.hashingThreshold + 1);
             }
-            //Then finally we append our queue1 to queue q
-            q.append(queue1);
+        } else if (this.hashedPairs.size() > this.hashTableSize) {
+            this.rehash(2 * this.hashTableSize + 1);
+        }
+    }
+
+    /**
+     * Reports the size below which {@code this} switches back to the queue.
+     *
+     * @return max(1, $this.hashingThreshold / SHRINK_RATIO)
+     */
+    private int unhashingThreshold() {
+        return Math.max(1, this.hashingThreshold / SHRINK_RATIO);
+    }
 
+    /**
+     * Switches back to the queue if a removal has taken the size below
+     * {@code max(1, $this.hashingThreshold / SHRINK_RATIO)}.
+     *
+     * @updates $this.pairsQueue, $this.hashedPairs
+     * @ensures this = #this
+     */
+    private void shrinkIfNeeded() {
+        if (this.hashedPairs != null
+                && this.hashedPairs.size() < this.unhashingThreshold()) {
+            this.unhash();
         }
     }
 
@@ -74,6 +218,8 @@ public class Map2<K, V> extends MapSecondary<K, V> {
      */
     private void createNewRep() {
         this.pairsQueue = new Queue1L<Pair<K, V>>();
+        this.hashedPairs = null;
+        this.hashTableSize = 0;
     }
 
     /*
@@ -84,6 +230,22 @@ public class Map2<K, V> extends MapSecondary<K, V> {
      * No-argument constructor.
      */
     public Map2() {
+        this(DEFAULT_HASHING_THRESHOLD);
+    }
+
+    /**
+     * Constructor resulting in a map that switches to a hash table while it
+     * holds more than {@code hashingThreshold} entries.
+     *
+     * @param hashingThreshold
+     *            size above which a hash table is used
+     * @requires hashingThreshold > 0
+     * @ensures this = {}
+     */
+    public Map2(int hashingThreshold) {
+        assert hashingThreshold > 0 : "Violation of: hashingThreshold > 0";
+
+        this.hashingThreshold = hashingThreshold;
         this.createNewRep();
     }
 
@@ -120,6 +282,9 @@ public class Map2<K, V> extends MapSecondary<K, V> {
          */
         Map2<K, V> localSource = (Map2<K, V>) source;
         this.pairsQueue = localSource.pairsQueue;
+        this.hashedPairs = localSource.hashedPairs;
+        this.hashTableSize = localSource.hashTableSize;
+        this.hashingThreshold = localSource.hashingThreshold;
         localSource.createNewRep();
     }
 
@@ -133,8 +298,12 @@ public class Map2<K, V> extends MapSecondary<K, V> {
         assert value != null : "Violation of: value is not null";
         assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
 
-        // TODO - fill in body
-
+        if (this.hashedPairs == null) {
+            this.pairsQueue.enqueue(new SimplePair<K, V>(key, value));
+        } else {
+            this.hashedPairs.add(key, value);
+        }
+        this.growIfNeeded();
     }
 
     @Override
@@ -142,11 +311,14 @@ public class Map2<K, V> extends MapSecondary<K, V> {
         assert key != null : "Violation of: key is not null";
         assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
 
-        moveToFront(this.pairsQueue, key);
-
-        Pair<K, V> p = this.pairsQueue.dequeue();
-
-        // This line added just to make the component compilable.
+        Pair<K, V> p;
+        if (this.hashedPairs == null) {
+            moveToFront(this.pairsQueue, key);
+            p = this.pairsQueue.dequeue();
+        } else {
+            p = this.hashedPairs.remove(key);
+            this.shrinkIfNeeded();
+        }
         return p;
     }
 
@@ -154,10 +326,14 @@ public class Map2<K, V> extends MapSecondary<K, V> {
     public final Pair<K, V> removeAny() {
         assert this.size() > 0 : "Violation of: |this| > 0";
 
-        this.pairsQueue.dequeue();
-
-        // This line added just to make the component compilable.
-        return null;
+        Pair<K, V> p;
+        if (this.hashedPairs == null) {
+            p = this.pairsQueue.dequeue();
+        } else {
+            p = this.hashedPairs.removeAny();
+            this.shrinkIfNeeded();
+        }
+        return p;
     }
 
     @Override
@@ -165,40 +341,61 @@ public class Map2<K, V> extends MapSecondary<K, V> {
         assert key != null : "Violation of: key is not null";
         assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
 
-        moveToFront(this.pairsQueue, key);
-
-        Pair<K, V> p = this.pairsQueue.dequeue();
-        this.pairsQueue.enqueue(p);
-
-        // This line added just to make the component compilable.
-        return p.value();
+        V v;
+        if (this.hashedPairs == null) {
+            moveToFront(this.pairsQueue, key);
+            v = this.pairsQueue.front().value();
+        } else {
+            v = this.hashedPairs.value(key);
+        }
+        return v;
     }
 
     @Override
     public final boolean hasKey(K key) {
         assert key != null : "Violation of: key is not null";
 
-        moveToFront(this.pairsQueue, key);
-
-        Pair<K, V> p = this.pairsQueue.dequeue();
-        boolean checker = false;
-        if (p.key().equals(key)) {
-            checker = true;
+        boolean result;
+        if (this.hashedPairs == null) {
+            moveToFront(this.pairsQueue, key);
+            result = this.pairsQueue.length() > 0
+                    && this.pairsQueue.front().key().equals(key);
+        } else {
+            result = this.hashedPairs.hasKey(key);
         }
-
-        // This line added just to make the component compilable.
-        return checker;
+        return result;
     }
 
     @Override
     public final int size() {
+        int size;
+        if (this.hashedPairs == null) {
+            size = this.pairsQueue.length();
+        } else {
+            size = this.hashedPairs.size();
+        }
+        return size;
+    }
 
-        return this.pairsQueue.length();
+    /**
+     * Reports whether {@code this} is currently represented as a hash table.
+     *
+     * @return true iff a hash table is in use
+     * @ensures isHashed = ($this.hashedPairs /= null)
+     */
+    final boolean isHashed() {
+        return this.hashedPairs != null;
     }
 
     @Override
     public final Iterator<Pair<K, V>> iterator() {
-        return this.pairsQueue.iterator();
+        Iterator<Pair<K, V>> it;
+        if (this.hashedPairs == null) {
+            it = this.pairsQueue.iterator();
+        } else {
+            it = this.hashedPairs.iterator();
+        }
+        return it;
     }
 
 }
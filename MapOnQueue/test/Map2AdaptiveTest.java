@@ -0,0 +1,145 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code Map2}'s switching between its queue and hash
+ * table representations.
+ */
+public class Map2AdaptiveTest {
+
+    /**
+     * Size above which the maps under test switch to a hash table.
+     */
+    private static final int TEST_HASHING_THRESHOLD = 8;
+
+    /**
+     * Checks that {@code test} and {@code ref} have the same entries, both
+     * through their kernel methods and through their iterators.
+     *
+     * @param ref
+     *            the reference map
+     * @param test
+     *            the map under test
+     */
+    private static void assertSameEntries(Map<String, String> ref,
+            Map<String, String> test) {
+        assertEquals(ref.size(), test.size());
+        int count = 0;
+        for (Map.Pair<String, String> p : test) {
+            assertTrue(ref.hasKey(p.key()));
+            assertEquals(ref.value(p.key()), p.value());
+            count++;
+        }
+        assertEquals(ref.size(), count);
+        for (Map.Pair<String, String> p : ref) {
+            assertTrue(test.hasKey(p.key()));
+            assertEquals(p.value(), test.value(p.key()));
+        }
+    }
+
+    /**
+     * Test kernel methods on a small map, which stays a queue.
+     */
+    @Test
+    public void smallMapStaysQueue() {
+        Map2<String, String> test = new Map2<String, String>(
+                TEST_HASHING_THRESHOLD);
+        Map<String, String> ref = new Map1L<String, String>();
+        for (int i = 0; i < TEST_HASHING_THRESHOLD; i++) {
+            test.add("k" + i, "v" + i);
+            ref.add("k" + i, "v" + i);
+        }
+        assertFalse(test.isHashed());
+        assertFalse(test.hasKey("missing"));
+        assertEquals("v3", test.value("k3"));
+        assertEquals("k5", test.remove("k5").key());
+        ref.remove("k5");
+        assertSameEntries(ref, test);
+        assertFalse(test.isHashed());
+    }
+
+    /**
+     * Test that a map switches to a hash table as it grows past the threshold
+     * and back to a queue as it shrinks, keeping its entries throughout.
+     */
+    @Test
+    public void switchesBothWays() {
+        final int n = 1000;
+        Map2<String, String> test = new Map2<String, String>(
+                TEST_HASHING_THRESHOLD);
+        Map<String, String> ref = new Map1L<String, String>();
+        for (int i = 0; i < n; i++) {
+            test.add("k" + i, "v" + i);
+            ref.add("k" + i, "v" + i);
+            assertEquals(i + 1 > TEST_HASHING_THRESHOLD, test.isHashed());
+        }
+        assertSameEntries(ref, test);
+        for (int i = 0; i < n - 1; i++) {
+            assertEquals("v" + i, test.remove("k" + i).value());
+            ref.remove("k" + i);
+        }
+        assertFalse(test.isHashed());
+        assertSameEntries(ref, test);
+        Map.Pair<String, String> p = test.removeAny();
+        assertEquals("k" + (n - 1), p.key());
+        assertEquals(0, test.size());
+    }
+
+    /**
+     * Test that with thresholds too small for {@code threshold / 4} to be
+     * positive, a hashed map still switches back to a queue once emptied.
+     */
+    @Test
+    public void smallThresholdSwitchesBack() {
+        for (int threshold = 1; threshold < 4; threshold++) {
+            Map2<String, String> test = new Map2<String, String>(threshold);
+            for (int i = 0; i <= threshold; i++) {
+                test.add("k" + i, "v" + i);
+            }
+            assertTrue(test.isHashed());
+            for (int i = 0; i <= threshold; i++) {
+                test.remove("k" + i);
+            }
+            assertEquals(0, test.size());
+            assertFalse(test.isHashed());
+        }
+    }
+
+    /**
+     * Test removeAny draining a hashed map, and clear and transferFrom
+     * restoring an empty queue.
+     */
+    @Test
+    public void removeAnyClearAndTransfer() {
+        final int n = 100;
+        Map2<String, String> test = new Map2<String, String>(
+                TEST_HASHING_THRESHOLD);
+        Map<String, String> ref = new Map1L<String, String>();
+        for (int i = 0; i < n; i++) {
+            test.add("k" + i, "v" + i);
+            ref.add("k" + i, "v" + i);
+        }
+        for (int i = 0; i < n / 2; i++) {
+            Map.Pair<String, String> p = test.removeAny();
+            assertEquals(ref.remove(p.key()).value(), p.value());
+        }
+        assertSameEntries(ref, test);
+
+        Map2<String, String> other = new Map2<String, String>(
+                TEST_HASHING_THRESHOLD);
+        other.transferFrom(test);
+        assertEquals(0, test.size());
+        assertFalse(test.isHashed());
+        assertSameEntries(ref, other);
+        other.clear();
+        assertEquals(0, other.size());
+        assertFalse(other.isHashed());
+    }
+
+}
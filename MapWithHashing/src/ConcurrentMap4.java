@@ -0,0 +1,660 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * Thread-safe {@code Map} represented as a hash table whose buckets are
+ * partitioned into lock stripes, with implementations of primary methods.
+ *
+ * <p>
+ * Each stripe owns its own hash table of buckets and grows it independently
+ * under its own lock, so threads adding keys that fall in different stripes
+ * never contend. Each bucket is an immutable chain of nodes that writers
+ * replace rather than mutate, which lets {@code hasKey} and {@code value} read
+ * without locking. The size is kept in a striped counter.
+ *
+ * <p>
+ * The kernel methods, {@code replaceValue}, and {@code merge} may be called
+ * concurrently. As for every {@code Map}, a caller of {@code add} must know
+ * that the key is absent; threads that may race on the same key should use
+ * {@code merge} instead. {@code clear}, {@code transferFrom}, and iteration
+ * are not atomic with respect to concurrent updates.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * [|$this.stripes| is a power of 2]  and
+ * for all s: Stripe  where (s is in entries($this.stripes))
+ *   ([|s.table| is a power of 2]  and
+ *    for all i: integer, x: K
+ *        where (0 <= i  and  i < |s.table|  and
+ *               x is a key in the chain s.table[i])
+ *      (spread([computed result of x.hashCode()]) mod |s.table| = i  and
+ *       spread([computed result of x.hashCode()]) selects s)  and
+ *    s.count = [total length of the chains in s.table])  and
+ * [no key appears in more than one chain]  and
+ * $this.size = sum s: Stripe where (s is in entries($this.stripes))
+ *                (s.count)
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (K, V)
+ *         where ((key, value) is a node in some chain of some
+ *                s.table, s in entries($this.stripes))}
+ * </pre>
+ */
+public class ConcurrentMap4<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of lock stripes.
+     */
+    private static final int DEFAULT_STRIPE_COUNT = 16;
+
+    /**
+     * Initial number of buckets per stripe.
+     */
+    private static final int INITIAL_STRIPE_TABLE_SIZE = 8;
+
+    /**
+     * Largest number of buckets per stripe.
+     */
+    private static final int MAXIMUM_STRIPE_TABLE_SIZE = 1 << 28;
+
+    /**
+     * Maximum load factor (entries per bucket) before a stripe's table grows.
+     */
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Immutable chain node holding one entry.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     */
+    private static final class Node<K, V> {
+
+        /**
+         * Spread hash code of {@code key}.
+         */
+        private final int hash;
+
+        /**
+         * The key.
+         */
+        private final K key;
+
+        /**
+         * The value.
+         */
+        private final V value;
+
+        /**
+         * Next node in the chain, or {@code null}.
+         */
+        private final Node<K, V> next;
+
+        /**
+         * Constructor.
+         *
+         * @param hash
+         *            spread hash code of {@code key}
+         * @param key
+         *            the key
+         * @param value
+         *            the value
+         * @param next
+         *            next node in the chain
+         */
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+    }
+
+    /**
+     * One lock stripe: a hash table of chains guarded by the stripe's monitor
+     * for writing, and readable without locking.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     */
+    private static final class Stripe<K, V> {
+
+        /**
+         * Buckets of this stripe; replaced wholesale when the stripe grows.
+         */
+        private volatile AtomicReferenceArray<Node<K, V>> table;
+
+        /**
+         * Number of entries in this stripe; only accessed under the lock.
+         */
+        private int count;
+
+        /**
+         * Index below which every bucket of {@code table} is empty, so that
+         * repeated calls of {@code any} do not rescan the same empty buckets;
+         * only accessed under the lock.
+         */
+        private int lowestBucket;
+
+        /**
+         * No-argument constructor.
+         */
+        Stripe() {
+            this.table = new AtomicReferenceArray<Node<K, V>>(
+                    INITIAL_STRIPE_TABLE_SIZE);
+            this.count = 0;
+            this.lowestBucket = 0;
+        }
+
+        /**
+         * Returns some node of this stripe, or {@code null} if it is empty.
+         * Must be called holding the lock.
+         *
+         * @return a node, or null
+         */
+        Node<K, V> any() {
+            Node<K, V> n = null;
+            if (this.count > 0) {
+                AtomicReferenceArray<Node<K, V>> t = this.table;
+                int i = this.lowestBucket;
+                while (t.get(i) == null) {
+                    i++;
+                }
+                this.lowestBucket = i;
+                n = t.get(i);
+            }
+            return n;
+        }
+
+        /**
+         * Returns the node holding {@code key}, or {@code null}, without
+         * locking.
+         *
+         * @param key
+         *            the key
+         * @param hash
+         *            spread hash code of {@code key}
+         * @return the node for {@code key}, or null
+         */
+        Node<K, V> find(K key, int hash) {
+            AtomicReferenceArray<Node<K, V>> t = this.table;
+            Node<K, V> n = t.get(hash & (t.length() - 1));
+            while (n != null && !(n.hash == hash && n.key.equals(key))) {
+                n = n.next;
+            }
+            return n;
+        }
+
+        /**
+         * Doubles the number of buckets of this stripe. Must be called holding
+         * the lock.
+         */
+        void grow() {
+            AtomicReferenceArray<Node<K, V>> old = this.table;
+            int newLength = 2 * old.length();
+            AtomicReferenceArray<Node<K, V>> t = new AtomicReferenceArray<>(
+                    newLength);
+            for (int i = 0; i < old.length(); i++) {
+                for (Node<K, V> n = old.get(i); n != null; n = n.next) {
+                    int j = n.hash & (newLength - 1);
+                    t.set(j, new Node<K, V>(n.hash, n.key, n.value, t.get(j)));
+                }
+            }
+            this.table = t;
+            this.lowestBucket = 0;
+        }
+
+        /**
+         * Adds a new entry. Must be called holding the lock.
+         *
+         * @param key
+         *            the key, not yet present
+         * @param hash
+         *            spread hash code of {@code key}
+         * @param value
+         *            the value
+         */
+        void insert(K key, int hash, V value) {
+            if (this.count + 1 > MAX_LOAD_FACTOR * this.table.length()
+                    && this.table.length() < MAXIMUM_STRIPE_TABLE_SIZE) {
+                this.grow();
+            }
+            AtomicReferenceArray<Node<K, V>> t = this.table;
+            int i = hash & (t.length() - 1);
+            t.set(i, new Node<K, V>(hash, key, value, t.get(i)));
+            this.count++;
+            this.lowestBucket = Math.min(this.lowestBucket, i);
+        }
+
+        /**
+         * Replaces the chain holding {@code target} by one in which
+         * {@code target} is replaced by {@code replacement}, or dropped if
+         * {@code replacement} is null. Must be called holding the lock.
+         *
+         * @param target
+         *            a node currently in this stripe
+         * @param replacement
+         *            the node to put in its place, or null
+         */
+        void replaceNode(Node<K, V> target, Node<K, V> replacement) {
+            AtomicReferenceArray<Node<K, V>> t = this.table;
+            int i = target.hash & (t.length() - 1);
+            Node<K, V> rest = target.next;
+            if (replacement != null) {
+                rest = new Node<K, V>(replacement.hash, replacement.key,
+                        replacement.value, rest);
+            }
+            /*
+             * Copy the nodes in front of target, since readers may be walking
+             * the old chain
+             */
+            Node<K, V> front = null;
+            for (Node<K, V> n = t.get(i); n != target; n = n.next) {
+                front = new Node<K, V>(n.hash, n.key, n.value, front);
+            }
+            while (front != null) {
+                rest = new Node<K, V>(front.hash, front.key, front.value,
+                        rest);
+                front = front.next;
+            }
+            t.set(i, rest);
+            if (replacement == null) {
+                this.count--;
+            }
+        }
+
+    }
+
+    /**
+     * Lock stripes.
+     */
+    private Stripe<K, V>[] stripes;
+
+    /**
+     * Total size of abstract {@code this}, striped across cells so that
+     * concurrent updates do not contend on one counter.
+     */
+    private LongAdder size;
+
+    /**
+     * Round-robin starting stripe for {@code removeAny}, so that concurrent
+     * callers spread out instead of all locking stripe 0.
+     */
+    private int removeAnyStart;
+
+    /**
+     * Mixes the high bits of {@code h} into the low bits.
+     *
+     * @param h
+     *            the hash code
+     * @return the spread hash code
+     * @ensures spread = [h with its high half XORed into its low half]
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the stripe for a key with spread hash code {@code hash}. Stripes
+     * are selected by the high bits, buckets within a stripe by the low bits.
+     *
+     * @param hash
+     *            spread hash code
+     * @return the stripe
+     */
+    private Stripe<K, V> stripeFor(int hash) {
+        return this.stripes[(hash * 0x9E3779B9) >>> 16
+                & (this.stripes.length - 1)];
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param stripeCount
+     *            number of lock stripes
+     * @requires [stripeCount is a power of 2]
+     * @ensures <pre>
+     * |$this.stripes| = stripeCount  and  $this.size = 0  and
+     * [each stripe is empty]
+     * </pre>
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void createNewRep(int stripeCount) {
+        /*
+         * With "new Stripe<K, V>[...]" in place of "new Stripe[...]" it does
+         * not compile; as shown, it results in warnings about a raw type and
+         * an unchecked conversion, though it cannot fail.
+         */
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe<K, V>();
+        }
+        this.size = new LongAdder();
+        this.removeAnyStart = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public ConcurrentMap4() {
+        this.createNewRep(DEFAULT_STRIPE_COUNT);
+    }
+
+    /**
+     * Constructor resulting in {@code stripeCount} lock stripes.
+     *
+     * @param stripeCount
+     *            number of lock stripes
+     * @requires stripeCount > 0  and  [stripeCount is a power of 2]
+     * @ensures this = {}
+     */
+    public ConcurrentMap4(int stripeCount) {
+        assert stripeCount > 0 : "Violation of: stripeCount > 0";
+        assert Integer.bitCount(stripeCount) == 1 : ""
+                + "Violation of: stripeCount is a power of 2";
+
+        this.createNewRep(stripeCount);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.stripes.length);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof ConcurrentMap4<?, ?> : ""
+                + "Violation of: source is of dynamic type ConcurrentMap4<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * ConcurrentMap4<?,?>, and the ?,? must be K,V or the call would not
+         * have compiled.
+         */
+        ConcurrentMap4<K, V> localSource = (ConcurrentMap4<K, V>) source;
+        this.stripes = localSource.stripes;
+        this.size = localSource.size;
+        this.removeAnyStart = 0;
+        localSource.createNewRep(localSource.stripes.length);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        int hash = spread(key.hashCode());
+        Stripe<K, V> s = this.stripeFor(hash);
+        synchronized (s) {
+            s.insert(key, hash, value);
+        }
+        this.size.increment();
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int hash = spread(key.hashCode());
+        Stripe<K, V> s = this.stripeFor(hash);
+        Node<K, V> removed;
+        synchronized (s) {
+            removed = s.find(key, hash);
+            s.replaceNode(removed, null);
+        }
+        this.size.decrement();
+        return new SimplePair<K, V>(removed.key, removed.value);
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int start = this.removeAnyStart;
+        this.removeAnyStart = (start + 1) & (this.stripes.length - 1);
+        Node<K, V> removed = null;
+        for (int k = 0; k < this.stripes.length && removed == null; k++) {
+            Stripe<K, V> s = this.stripes[(start + k)
+                    & (this.stripes.length - 1)];
+            synchronized (s) {
+                removed = s.any();
+                if (removed != null) {
+                    s.replaceNode(removed, null);
+                }
+            }
+        }
+        this.size.decrement();
+        return new SimplePair<K, V>(removed.key, removed.value);
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int hash = spread(key.hashCode());
+        return this.stripeFor(hash).find(key, hash).value;
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int hash = spread(key.hashCode());
+        return this.stripeFor(hash).find(key, hash) != null;
+    }
+
+    @Override
+    public final int size() {
+        return (int) this.size.sum();
+    }
+
+    /**
+     * Atomically replaces the value associated with {@code key}.
+     */
+    @Override
+    public final V replaceValue(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+
+        int hash = spread(key.hashCode());
+        Stripe<K, V> s = this.stripeFor(hash);
+        Node<K, V> old;
+        synchronized (s) {
+            old = s.find(key, hash);
+            assert old != null : "Violation of: key is in DOMAIN(this)";
+            s.replaceNode(old, new Node<K, V>(hash, key, value, null));
+        }
+        return old.value;
+    }
+
+    /**
+     * Atomically adds {@code (key, value)} if {@code key} is not in
+     * {@code this}, or else replaces its value {@code v} by
+     * {@code combiner.apply(v, value)}, and reports the new value. Unlike a
+     * {@code hasKey}/{@code add}/{@code replaceValue} sequence, this is safe
+     * when several threads update the same key.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value to add or combine with
+     * @param combiner
+     *            function combining the current value with {@code value}
+     * @return the value now associated with {@code key}
+     * @updates this
+     * @requires key, value, and combiner are not null, and combiner never
+     *           returns null
+     * @ensures <pre>
+     * if key is in DOMAIN(#this) then
+     *   merge = combiner.apply(#this(key), value)
+     *  else merge = value  and
+     * this = (#this \ {(key, #this(key))}) union {(key, merge)}
+     * </pre>
+     */
+    public final V merge(K key, V value, BinaryOperator<V> combiner) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert combiner != null : "Violation of: combiner is not null";
+
+        int hash = spread(key.hashCode());
+        Stripe<K, V> s = this.stripeFor(hash);
+        V result;
+        boolean added = false;
+        synchronized (s) {
+            Node<K, V> old = s.find(key, hash);
+            if (old == null) {
+                s.insert(key, hash, value);
+                result = value;
+                added = true;
+            } else {
+                result = combiner.apply(old.value, value);
+                assert result != null : ""
+                        + "Violation of: combiner never returns null";
+                s.replaceNode(old, new Node<K, V>(hash, key, result, null));
+            }
+        }
+        if (added) {
+            this.size.increment();
+        }
+        return result;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new ConcurrentMap4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code ConcurrentMap4}.
+     */
+    private final class ConcurrentMap4Iterator
+            implements Iterator<Pair<K, V>> {
+
+        /**
+         * Stripe from which the next node will come.
+         */
+        private int stripe;
+
+        /**
+         * Bucket, within the stripe's table, from which the next node will
+         * come.
+         */
+        private int bucket;
+
+        /**
+         * Table of the current stripe, as it was when the iterator reached it.
+         */
+        private AtomicReferenceArray<Node<K, V>> table;
+
+        /**
+         * Next node to return, or {@code null} if there is none.
+         */
+        private Node<K, V> next;
+
+        /**
+         * No-argument constructor.
+         */
+        ConcurrentMap4Iterator() {
+            this.stripe = 0;
+            this.bucket = 0;
+            this.table = ConcurrentMap4.this.stripes[0].table;
+            this.next = null;
+            this.advance();
+        }
+
+        /**
+         * Moves {@code next} to the first node of the next non-empty bucket.
+         */
+        private void advance() {
+            Stripe<K, V>[] s = ConcurrentMap4.this.stripes;
+            while (this.next == null && this.stripe < s.length) {
+                if (this.bucket < this.table.length()) {
+                    this.next = this.table.get(this.bucket);
+                    this.bucket++;
+                } else {
+                    this.stripe++;
+                    this.bucket = 0;
+                    if (this.stripe < s.length) {
+                        this.table = s[this.stripe].table;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node<K, V> result = this.next;
+            this.next = result.next;
+            this.advance();
+            return new SimplePair<K, V>(result.key, result.value);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
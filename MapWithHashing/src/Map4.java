@@ -1,9 +1,13 @@
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 
 import components.map.Map;
 import components.map.Map2;
 import components.map.MapSecondary;
+import components.simplewriter.SimpleWriter;
 
 /**
  * {@code Map} represented as a hash table using {@code Map}s for the buckets,
@@ -19,20 +23,50 @@ import components.map.MapSecondary;
  *     where (0 <= i  and  i < |$this.hashTable|  and
  *            <pf> = $this.hashTable[i, i+1)  and
  *            x is in DOMAIN(pf))
- *   ([computed result of x.hashCode()] mod |$this.hashTable| = i))  and
+ *   ($this.hashSpreader([computed result of x.hashCode()])
+ *      mod |$this.hashTable| = i))  and
  * for all i: integer
- *     where (0 <= i  and  i < |$this.hashTable|)
- *   ([entry at position i in $this.hashTable is not null])  and
+ *     where (0 <= i  and  i < |$this.hashTable|  and
+ *            $this.hashTable[i] is not null  and
+ *            |$this.hashTable[i]| > $this.largeBucketThreshold > 0)
+ *   (i is in $this.largeBuckets)  and
+ * [a null entry in $this.hashTable or $this.oldHashTable is an empty
+ *  bucket]  and
+ * $this.occupied = {i: integer
+ *                   where ($this.hashTable[i, i+1) /= <{}>)
+ *                     (i)}  and
+ * if $this.oldHashTable /= null then
+ *  (for all i: integer, pf: PARTIAL_FUNCTION, x: K
+ *       where (0 <= i  and  i < |$this.oldHashTable|  and
+ *              <pf> = $this.oldHashTable[i, i+1)  and
+ *              x is in DOMAIN(pf))
+ *     ($this.hashSpreader([computed result of x.hashCode()])
+ *        mod |$this.oldHashTable| = i  and
+ *      i >= $this.migrationIndex)  and
+ *   0 <= $this.migrationIndex < |$this.oldHashTable|  and
+ *   $this.oldOccupied = {i: integer
+ *                        where ($this.oldHashTable[i, i+1) /= <{}>)
+ *                          (i)}  and
+ *   $this.incremental)  and
+ * [no key is in the domain of more than one bucket of $this.hashTable and
+ *  $this.oldHashTable]  and
  * $this.size = sum i: integer, pf: PARTIAL_FUNCTION
  *     where (0 <= i  and  i < |$this.hashTable|  and
  *            <pf> = $this.hashTable[i, i+1))
- *   (|pf|)
+ *   (|pf|) +
+ *   [total size of the buckets of $this.oldHashTable, if not null]  and
+ * $this.maxLoadFactor > 0  and
+ * 0 < $this.initialHashTableSize <= |$this.hashTable|  and
+ * [$this.size <= $this.maxLoadFactor * |$this.hashTable|, unless
+ *  |$this.hashTable| > MAXIMUM_HASH_TABLE_SIZE / 2, whether or not a
+ *  migration is in progress]
  * </pre>
  * @correspondence <pre>
- * this = union i: integer, pf: PARTIAL_FUNCTION
- *            where (0 <= i  and  i < |$this.hashTable|  and
- *                   <pf> = $this.hashTable[i, i+1))
- *          (pf)
+ * this = (union i: integer, pf: PARTIAL_FUNCTION
+ *             where (0 <= i  and  i < |$this.hashTable|  and
+ *                    <pf> = $this.hashTable[i, i+1))
+ *           (pf))  union
+ *        [union of the buckets of $this.oldHashTable, if not null]
  * </pre>
  *
  * @author Put your name here
@@ -49,6 +83,32 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     private static final int DEFAULT_HASH_TABLE_SIZE = 101;
 
+    /**
+     * Default maximum load factor (entries per bucket) before the hash table
+     * grows.
+     */
+    private static final double DEFAULT_MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Largest hash table size this implementation will grow to.
+     */
+    private static final int MAXIMUM_HASH_TABLE_SIZE = 1 << 30;
+
+    /**
+     * The hash table shrinks once its load factor falls below
+     * {@code maxLoadFactor / SHRINK_RATIO}.
+     */
+    private static final int SHRINK_RATIO = 4;
+
+    /**
+     * Number of old buckets migrated by each kernel operation while an
+     * incremental rehash is in progress. This is not always fast enough: after
+     * a shrink, draining the old table of L buckets takes L / 4 operations,
+     * but the next grow can fall due after about 0.19 L additions. So a resize
+     * that falls due during a migration first finishes it.
+     */
+    private static final int MIGRATION_STEP = 4;
+
     /**
      * Buckets for hashing.
      */
@@ -59,6 +119,414 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     private int size;
 
+    /**
+     * Hash table size chosen at construction; the table never shrinks below
+     * it, and {@code clear} returns to it.
+     */
+    private int initialHashTableSize;
+
+    /**
+     * Maximum load factor (entries per bucket) allowed before rehashing into a
+     * larger table.
+     */
+    private double maxLoadFactor;
+
+    /**
+     * Whether rehashing is spread over subsequent operations rather than done
+     * all at once.
+     */
+    private boolean incremental;
+
+    /**
+     * Hash table being migrated into {@code hashTable} during an incremental
+     * rehash; {@code null} when no rehash is in progress.
+     */
+    private Map<K, V>[] oldHashTable;
+
+    /**
+     * Index of the next bucket of {@code oldHashTable} to migrate.
+     */
+    private int migrationIndex;
+
+    /**
+     * Indices of the non-empty buckets of {@code hashTable}.
+     */
+    private Occupancy occupied;
+
+    /**
+     * Indices of the non-empty buckets of {@code oldHashTable}; {@code null}
+     * when no rehash is in progress.
+     */
+    private Occupancy oldOccupied;
+
+    /**
+     * Function applied to every {@code hashCode} before it is reduced to a
+     * bucket index.
+     */
+    private IntUnaryOperator hashSpreader;
+
+    /**
+     * Factory for the buckets that replace {@code Map2} buckets once they hold
+     * more than {@code largeBucketThreshold} entries; {@code null} if buckets
+     * are never replaced.
+     */
+    private Supplier<Map<K, V>> largeBucketFactory;
+
+    /**
+     * Bucket size above which a bucket is replaced by one from
+     * {@code largeBucketFactory}.
+     */
+    private int largeBucketThreshold;
+
+    /**
+     * Indices of the buckets of {@code hashTable} that have already been
+     * replaced by large buckets.
+     */
+    private BitSet largeBuckets;
+
+    /**
+     * Whether lookups are counted in {@code lookups} and
+     * {@code comparisons}.
+     */
+    private boolean statisticsEnabled;
+
+    /**
+     * Number of lookups counted since statistics were last enabled.
+     */
+    private long lookups;
+
+    /**
+     * Total number of entries in the buckets examined by the lookups counted
+     * in {@code lookups}.
+     */
+    private long comparisons;
+
+    /**
+     * Predefined hash-spreading functions. Spreading does not change which
+     * keys collide on their full {@code hashCode}, but it makes bucket indices
+     * depend on all of the bits of the hash code, not just on its value
+     * modulo the table size.
+     */
+    public enum HashSpreader implements IntUnaryOperator {
+
+        /**
+         * Uses {@code hashCode} as is.
+         */
+        IDENTITY {
+            @Override
+            public int applyAsInt(int h) {
+                return h;
+            }
+        },
+
+        /**
+         * The 32-bit finalizer of MurmurHash3, which makes every output bit
+         * depend on every input bit.
+         */
+        MURMUR {
+            @Override
+            public int applyAsInt(int h) {
+                int x = h;
+                x ^= x >>> 16;
+                x *= 0x85EBCA6B;
+                x ^= x >>> 13;
+                x *= 0xC2B2AE35;
+                x ^= x >>> 16;
+                return x;
+            }
+        },
+
+        /**
+         * Fibonacci (multiplicative) hashing: multiplies by 2^32 divided by
+         * the golden ratio, and folds the well-mixed high half into the low
+         * half.
+         */
+        FIBONACCI {
+            @Override
+            public int applyAsInt(int h) {
+                int x = h * 0x9E3779B9;
+                return x ^ (x >>> 16);
+            }
+        }
+
+    }
+
+    /**
+     * Snapshot of the shape of the hash table of a {@code Map4}, and of the
+     * cost of the lookups made on it, as reported by {@code statistics}.
+     */
+    public static final class Statistics {
+
+        /**
+         * Number of buckets.
+         */
+        private final int bucketCount;
+
+        /**
+         * Number of entries.
+         */
+        private final int size;
+
+        /**
+         * Number of empty buckets.
+         */
+        private final int emptyBuckets;
+
+        /**
+         * Size of the largest bucket.
+         */
+        private final int maxChain;
+
+        /**
+         * Size of the 99th-percentile non-empty bucket.
+         */
+        private final int p99Chain;
+
+        /**
+         * Number of lookups counted.
+         */
+        private final long lookups;
+
+        /**
+         * Number of bucket entries examined by the lookups counted.
+         */
+        private final long comparisons;
+
+        /**
+         * Constructor.
+         *
+         * @param bucketCount
+         *            number of buckets
+         * @param size
+         *            number of entries
+         * @param emptyBuckets
+         *            number of empty buckets
+         * @param maxChain
+         *            size of the largest bucket
+         * @param p99Chain
+         *            size of the 99th-percentile non-empty bucket
+         * @param lookups
+         *            number of lookups counted
+         * @param comparisons
+         *            number of bucket entries examined by those lookups
+         */
+        Statistics(int bucketCount, int size, int emptyBuckets, int maxChain,
+                int p99Chain, long lookups, long comparisons) {
+            this.bucketCount = bucketCount;
+            this.size = size;
+            this.emptyBuckets = emptyBuckets;
+            this.maxChain = maxChain;
+            this.p99Chain = p99Chain;
+            this.lookups = lookups;
+            this.comparisons = comparisons;
+        }
+
+        /**
+         * Reports the number of buckets.
+         *
+         * @return the number of buckets
+         */
+        public int bucketCount() {
+            return this.bucketCount;
+        }
+
+        /**
+         * Reports the number of entries.
+         *
+         * @return the number of entries
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Reports the load factor, i.e., the mean number of entries per
+         * bucket.
+         *
+         * @return the load factor
+         */
+        public double loadFactor() {
+            return (double) this.size / this.bucketCount;
+        }
+
+        /**
+         * Reports the size of the largest bucket.
+         *
+         * @return the longest chain length
+         */
+        public int maxChain() {
+            return this.maxChain;
+        }
+
+        /**
+         * Reports the mean size of the non-empty buckets, or 0 if there are
+         * none.
+         *
+         * @return the mean chain length
+         */
+        public double meanChain() {
+            int nonEmpty = this.bucketCount - this.emptyBuckets;
+            double mean = 0;
+            if (nonEmpty > 0) {
+                mean = (double) this.size / nonEmpty;
+            }
+            return mean;
+        }
+
+        /**
+         * Reports the smallest length not exceeded by 99% of the non-empty
+         * buckets, or 0 if there are none.
+         *
+         * @return the 99th-percentile chain length
+         */
+        public int p99Chain() {
+            return this.p99Chain;
+        }
+
+        /**
+         * Reports the fraction of buckets that are empty.
+         *
+         * @return the empty-bucket ratio
+         */
+        public double emptyBucketRatio() {
+            return (double) this.emptyBuckets / this.bucketCount;
+        }
+
+        /**
+         * Reports the number of lookups counted.
+         *
+         * @return the number of lookups
+         */
+        public long lookups() {
+            return this.lookups;
+        }
+
+        /**
+         * Reports the number of bucket entries examined by the lookups
+         * counted, an upper bound on the number of key comparisons they made.
+         *
+         * @return the number of comparisons
+         */
+        public long comparisons() {
+            return this.comparisons;
+        }
+
+        /**
+         * Reports the mean number of comparisons per lookup counted, or 0 if
+         * none were.
+         *
+         * @return the comparisons per lookup
+         */
+        public double comparisonsPerLookup() {
+            double mean = 0;
+            if (this.lookups > 0) {
+                mean = (double) this.comparisons / this.lookups;
+            }
+            return mean;
+        }
+
+        @Override
+        public String toString() {
+            return "buckets=" + this.bucketCount + ", size=" + this.size
+                    + ", loadFactor=" + this.loadFactor() + ", maxChain="
+                    + this.maxChain + ", meanChain=" + this.meanChain()
+                    + ", p99Chain=" + this.p99Chain + ", emptyBucketRatio="
+                    + this.emptyBucketRatio() + ", comparisonsPerLookup="
+                    + this.comparisonsPerLookup();
+        }
+
+    }
+
+    /**
+     * Set of bucket indices kept as a dense list, so that finding a non-empty
+     * bucket, and visiting all of them, costs time proportional to the number
+     * of non-empty buckets rather than to the length of the hash table.
+     */
+    private static final class Occupancy {
+
+        /**
+         * Indices in the set, in positions [0, count).
+         */
+        private final int[] indices;
+
+        /**
+         * For each possible index, 1 + its position in {@code indices}, or 0
+         * if it is not in the set; zero-initialized so that no fill is
+         * needed.
+         */
+        private final int[] positions;
+
+        /**
+         * Number of indices in the set.
+         */
+        private int count;
+
+        /**
+         * Constructor resulting in an empty set of indices less than
+         * {@code tableLength}.
+         *
+         * @param tableLength
+         *            bound on the indices
+         */
+        Occupancy(int tableLength) {
+            this.indices = new int[tableLength];
+            this.positions = new int[tableLength];
+            this.count = 0;
+        }
+
+        /**
+         * Adds {@code i} to the set.
+         *
+         * @param i
+         *            the index, not already in the set
+         */
+        void mark(int i) {
+            assert this.positions[i] == 0 : "Violation of: i is not marked";
+            this.indices[this.count] = i;
+            this.count++;
+            this.positions[i] = this.count;
+        }
+
+        /**
+         * Removes {@code i} from the set, moving the last index into its
+         * place.
+         *
+         * @param i
+         *            the index, in the set
+         */
+        void unmark(int i) {
+            assert this.positions[i] > 0 : "Violation of: i is marked";
+            int position = this.positions[i] - 1;
+            this.count--;
+            int last = this.indices[this.count];
+            this.indices[position] = last;
+            this.positions[last] = position + 1;
+            this.positions[i] = 0;
+        }
+
+        /**
+         * Reports the number of indices in the set.
+         *
+         * @return the number of indices
+         */
+        int count() {
+            return this.count;
+        }
+
+        /**
+         * Reports the index at position {@code k} of the dense list.
+         *
+         * @param k
+         *            the position
+         * @return the index at position {@code k}
+         */
+        int get(int k) {
+            assert 0 <= k && k < this.count : "Violation of: 0 <= k < count";
+            return this.indices[k];
+        }
+
+    }
+
     /**
      * Computes {@code a} mod {@code b} as % should have been defined to work.
      *
@@ -84,36 +552,343 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     }
 
     /**
-     * Creator of initial representation.
+     * Returns the index of the bucket for {@code key} in a hash table of
+     * length {@code length}.
      *
-     * @param hashTableSize
-     *            the size of the hash table
-     * @requires hashTableSize > 0
+     * @param key
+     *            the key
+     * @param length
+     *            the length of the hash table
+     * @return the bucket index
+     * @requires length > 0
      * @ensures <pre>
-     * |$this.hashTable| = hashTableSize  and
-     * for all i: integer
-     *     where (0 <= i  and  i < |$this.hashTable|)
-     *   ($this.hashTable[i, i+1) = <{}>)  and
-     * $this.size = 0
+     * indexFor = $this.hashSpreader([computed result of key.hashCode()])
+     *              mod length
+     * </pre>
+     */
+    private int indexFor(K key, int length) {
+        return mod(this.hashSpreader.applyAsInt(key.hashCode()), length);
+    }
+
+    /**
+     * Returns the smallest prime number not less than {@code n}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the smallest prime >= n
+     * @requires n > 0
+     * @ensures <pre>
+     * nextPrime >= n  and  [nextPrime is prime]  and
+     * [there is no prime p such that n <= p < nextPrime]
      * </pre>
      */
+    private static int nextPrime(int n) {
+        assert n > 0 : "Violation of: n > 0";
+
+        int candidate = Math.max(n, 2);
+        boolean isPrime = false;
+        while (!isPrime) {
+            isPrime = true;
+            for (int d = 2; (long) d * d <= candidate && isPrime; d++) {
+                if (candidate % d == 0) {
+                    isPrime = false;
+                }
+            }
+            if (!isPrime) {
+                candidate++;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Creates an array of {@code length} null buckets.
+     *
+     * @param length
+     *            the length of the array
+     * @return the new array
+     * @ensures |newBucketArray| = length
+     */
     @SuppressWarnings("unchecked")
-    private void createNewRep(int hashTableSize) {
+    private static <K, V> Map<K, V>[] newBucketArray(int length) {
         /*
          * With "new Map<K, V>[...]" in place of "new Map[...]" it does not
          * compile; as shown, it results in a warning about an unchecked
          * conversion, though it cannot fail.
          */
-        this.hashTable = new Map[hashTableSize];
+        return new Map[length];
+    }
 
-        // Initialize each bucket in the hash table with Map2
-        for (int i = 0; i < hashTableSize; i++) {
+    /**
+     * Adds {@code (key, value)} to its bucket of {@code $this.hashTable},
+     * creating the bucket first if it is still null, and records the bucket as
+     * occupied.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @updates $this.hashTable, $this.occupied
+     * @requires key is not in DOMAIN(this)
+     * @ensures <pre>
+     * [the bucket of $this.hashTable for key] =
+     *   [its previous value] union {(key, value)}
+     * </pre>
+     */
+    private void addEntry(K key, V value) {
+        int i = this.indexFor(key, this.hashTable.length);
+        if (this.hashTable[i] == null) {
             this.hashTable[i] = new Map2<K, V>();
         }
+        Map<K, V> bucket = this.hashTable[i];
+        bucket.add(key, value);
+        if (bucket.size() == 1) {
+            this.occupied.mark(i);
+        }
+        if (this.largeBucketFactory != null
+                && bucket.size() > this.largeBucketThreshold
+                && !this.largeBuckets.get(i)) {
+            Map<K, V> large = this.largeBucketFactory.get();
+            while (bucket.size() > 0) {
+                Pair<K, V> p = bucket.removeAny();
+                large.add(p.key(), p.value());
+            }
+            this.hashTable[i] = large;
+            this.largeBuckets.set(i);
+        }
+    }
+
+    /**
+     * Removes and returns any pair from bucket {@code i} of {@code table},
+     * whose occupancy is {@code occupancy}.
+     *
+     * @param table
+     *            the hash table
+     * @param occupancy
+     *            indices of the non-empty buckets of {@code table}
+     * @param i
+     *            the bucket index
+     * @return the removed pair
+     * @updates table, occupancy
+     * @requires i is in occupancy
+     */
+    private static <K, V> Pair<K, V> removeAnyFromBucket(Map<K, V>[] table,
+            Occupancy occupancy, int i) {
+        Pair<K, V> p = table[i].removeAny();
+        if (table[i].size() == 0) {
+            occupancy.unmark(i);
+        }
+        return p;
+    }
+
+    /**
+     * Starts moving every entry of {@code this} into a new hash table of size
+     * {@code newHashTableSize}. Unless {@code $this.incremental}, the move is
+     * completed before returning.
+     *
+     * @param newHashTableSize
+     *            the size of the new hash table
+     * @updates $this.hashTable, $this.oldHashTable, $this.migrationIndex
+     * @requires newHashTableSize > 0  and  $this.oldHashTable = null
+     * @ensures <pre>
+     * |$this.hashTable| = newHashTableSize  and  this = #this  and
+     * if not $this.incremental then $this.oldHashTable = null
+     * </pre>
+     */
+    private void rehash(int newHashTableSize) {
+        assert newHashTableSize > 0 : "Violation of: newHashTableSize > 0";
+        assert this.oldHashTable == null : ""
+                + "Violation of: $this.oldHashTable = null";
+
+        this.oldHashTable = this.hashTable;
+        this.oldOccupied = this.occupied;
+        this.migrationIndex = 0;
+        this.hashTable = newBucketArray(newHashTableSize);
+        this.occupied = new Occupancy(newHashTableSize);
+        this.largeBuckets = new BitSet();
+        if (!this.incremental) {
+            this.migrate(this.oldHashTable.length);
+        }
+    }
+
+    /**
+     * Moves the entries of up to {@code bucketCount} buckets of
+     * {@code $this.oldHashTable} into {@code $this.hashTable}, ending the
+     * migration once the last old bucket has been moved.
+     *
+     * @param bucketCount
+     *            the maximum number of old buckets to migrate
+     * @updates $this.hashTable, $this.occupied, $this.oldHashTable,
+     *          $this.oldOccupied, $this.migrationIndex
+     * @ensures this = #this
+     */
+    private void migrate(int bucketCount) {
+        int remaining = bucketCount;
+        while (this.oldHashTable != null && remaining > 0) {
+            int j = this.migrationIndex;
+            Map<K, V> oldBucket = this.oldHashTable[j];
+            if (oldBucket != null && oldBucket.size() > 0) {
+                while (oldBucket.size() > 0) {
+                    Pair<K, V> p = oldBucket.removeAny();
+                    this.addEntry(p.key(), p.value());
+                }
+                this.oldOccupied.unmark(j);
+            }
+            this.migrationIndex++;
+            remaining--;
+            if (this.migrationIndex == this.oldHashTable.length) {
+                this.oldHashTable = null;
+                this.oldOccupied = null;
+            }
+        }
+    }
+
+    /**
+     * Adds the size of {@code bucket} to the comparisons counted, if
+     * statistics are enabled.
+     *
+     * @param bucket
+     *            the bucket examined by a lookup
+     * @updates $this.comparisons
+     * @ensures <pre>
+     * if $this.statisticsEnabled
+     *  then $this.comparisons = #$this.comparisons + |bucket|
+     *  else $this.comparisons = #$this.comparisons
+     * </pre>
+     */
+    private void countProbe(Map<K, V> bucket) {
+        if (this.statisticsEnabled) {
+            this.comparisons += bucket.size();
+        }
+    }
+
+    /**
+     * Returns the bucket in which {@code key} is, or {@code null} if
+     * {@code key} is not in {@code this}.
+     *
+     * @param key
+     *            the key
+     * @return the bucket containing {@code key}, or null
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then key is in DOMAIN(bucketContaining)
+     *  else bucketContaining = null
+     * </pre>
+     */
+    private Map<K, V> bucketContaining(K key) {
+        Map<K, V> result = null;
+        if (this.oldHashTable != null) {
+            Map<K, V> oldBucket = this.oldHashTable[this.indexFor(key,
+                    this.oldHashTable.length)];
+            if (oldBucket != null) {
+                this.countProbe(oldBucket);
+                if (oldBucket.hasKey(key)) {
+                    result = oldBucket;
+                }
+            }
+        }
+        if (result == null) {
+            Map<K, V> bucket = this.hashTable[this.indexFor(key,
+                    this.hashTable.length)];
+            if (bucket != null) {
+                this.countProbe(bucket);
+                if (bucket.hasKey(key)) {
+                    result = bucket;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether {@code key} is in {@code this}, for checking
+     * preconditions: unlike {@code hasKey}, it neither migrates buckets nor
+     * counts the lookup, so enabling assertions changes neither the pace of
+     * an incremental rehash nor the statistics.
+     *
+     * @param key
+     *            the key
+     * @return true iff key is in DOMAIN(this)
+     * @ensures isInDomain = (key is in DOMAIN(this))
+     */
+    private boolean isInDomain(K key) {
+        boolean found = false;
+        if (this.oldHashTable != null) {
+            Map<K, V> oldBucket = this.oldHashTable[this.indexFor(key,
+                    this.oldHashTable.length)];
+            found = oldBucket != null && oldBucket.hasKey(key);
+        }
+        if (!found) {
+            Map<K, V> bucket = this.hashTable[this.indexFor(key,
+                    this.hashTable.length)];
+            found = bucket != null && bucket.hasKey(key);
+        }
+        return found;
+    }
+
+    /**
+     * Grows the hash table if an addition has pushed the load factor above
+     * {@code $this.maxLoadFactor}, first finishing any migration still in
+     * progress.
+     *
+     * @updates $this.hashTable
+     * @ensures <pre>
+     * this = #this  and
+     * [$this.size <= $this.maxLoadFactor * |$this.hashTable|, unless
+     *  |$this.hashTable| > MAXIMUM_HASH_TABLE_SIZE / 2]
+     * </pre>
+     */
+    private void growIfNeeded() {
+        int length = this.hashTable.length;
+        if (this.size > this.maxLoadFactor * length
+                && length <= MAXIMUM_HASH_TABLE_SIZE / 2) {
+            this.migrate(Integer.MAX_VALUE);
+            this.rehash(nextPrime(2 * length + 1));
+        }
+    }
+
+    /**
+     * Shrinks the hash table if removals have pushed the load factor below
+     * {@code $this.maxLoadFactor / SHRINK_RATIO}, without going below
+     * {@code $this.initialHashTableSize}, first finishing any migration still
+     * in progress.
+     *
+     * @updates $this.hashTable
+     * @ensures this = #this
+     */
+    private void shrinkIfNeeded() {
+        int length = this.hashTable.length;
+        if (length > this.initialHashTableSize
+                && this.size < this.maxLoadFactor * length / SHRINK_RATIO) {
+            this.migrate(Integer.MAX_VALUE);
+            this.rehash(Math.max(this.initialHashTableSize,
+                    nextPrime(length / 2)));
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @ensures <pre>
+     * |$this.hashTable| = $this.initialHashTableSize  and
+     * for all i: integer
+     *     where (0 <= i  and  i < |$this.hashTable|)
+     *   ($this.hashTable[i, i+1) = <{}>)  and
+     * $this.size = 0  and
+     * $this.oldHashTable = null  and
+     * $this.largeBuckets = {}
+     * </pre>
+     */
+    private void createNewRep() {
+        this.hashTable = newBucketArray(this.initialHashTableSize);
+        this.occupied = new Occupancy(this.initialHashTableSize);
+        this.largeBuckets = new BitSet();
 
         // Initialize the size to 0 to indicate an empty map
         this.size = 0;
 
+        this.oldHashTable = null;
+        this.oldOccupied = null;
+        this.migrationIndex = 0;
     }
 
     /*
@@ -125,7 +900,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     public Map4() {
 
-        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        this(DEFAULT_HASH_TABLE_SIZE);
 
     }
 
@@ -139,7 +914,98 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     public Map4(int hashTableSize) {
 
-        this.createNewRep(hashTableSize);
+        this(hashTableSize, DEFAULT_MAX_LOAD_FACTOR);
+
+    }
+
+    /**
+     * Constructor resulting in a hash table of initial size
+     * {@code hashTableSize} that grows whenever the number of entries per
+     * bucket exceeds {@code loadFactor}.
+     *
+     * @param hashTableSize
+     *            initial size of hash table
+     * @param loadFactor
+     *            maximum load factor before the hash table grows
+     * @requires hashTableSize > 0  and  loadFactor > 0
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, double loadFactor) {
+
+        this(hashTableSize, loadFactor, false);
+
+    }
+
+    /**
+     * Constructor resulting in a hash table of initial size
+     * {@code hashTableSize} that grows whenever the number of entries per
+     * bucket exceeds {@code loadFactor}. If {@code incrementalRehash}, each
+     * resize keeps the old and new hash tables side by side and every kernel
+     * operation migrates a bounded number of old buckets, so that no single
+     * operation pays for the whole rehash.
+     *
+     * @param hashTableSize
+     *            initial size of hash table
+     * @param loadFactor
+     *            maximum load factor before the hash table grows
+     * @param incrementalRehash
+     *            whether rehashing is spread over subsequent operations
+     * @requires hashTableSize > 0  and  loadFactor > 0
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, double loadFactor,
+            boolean incrementalRehash) {
+
+        this(hashTableSize, loadFactor, incrementalRehash,
+                HashSpreader.IDENTITY, null, 0);
+
+    }
+
+    /**
+     * Constructor resulting in a hash table configured as by
+     * {@code Map4(hashTableSize, loadFactor, incrementalRehash)}, in which
+     * bucket indices are computed from {@code hashSpreader} applied to each
+     * key's {@code hashCode}, and any bucket that comes to hold more than
+     * {@code largeBucketThreshold} entries is replaced by a bucket from
+     * {@code largeBucketFactory} (for example, a tree-based {@code Map3}), if
+     * that is not null.
+     *
+     * @param hashTableSize
+     *            initial size of hash table
+     * @param loadFactor
+     *            maximum load factor before the hash table grows
+     * @param incrementalRehash
+     *            whether rehashing is spread over subsequent operations
+     * @param hashSpreader
+     *            function applied to hash codes, e.g., a {@code HashSpreader}
+     * @param largeBucketFactory
+     *            factory for buckets that outgrow {@code largeBucketThreshold},
+     *            or null
+     * @param largeBucketThreshold
+     *            bucket size above which buckets are replaced
+     * @requires <pre>
+     * hashTableSize > 0  and  loadFactor > 0  and  hashSpreader /= null  and
+     * (largeBucketFactory = null  or  largeBucketThreshold > 0)  and
+     * [largeBucketFactory returns a new, empty map each time]
+     * </pre>
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, double loadFactor,
+            boolean incrementalRehash, IntUnaryOperator hashSpreader,
+            Supplier<Map<K, V>> largeBucketFactory, int largeBucketThreshold) {
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+        assert loadFactor > 0 : "Violation of: loadFactor > 0";
+        assert hashSpreader != null : "Violation of: hashSpreader /= null";
+        assert largeBucketFactory == null || largeBucketThreshold > 0 : ""
+                + "Violation of: largeBucketThreshold > 0";
+
+        this.initialHashTableSize = hashTableSize;
+        this.maxLoadFactor = loadFactor;
+        this.incremental = incrementalRehash;
+        this.hashSpreader = hashSpreader;
+        this.largeBucketFactory = largeBucketFactory;
+        this.largeBucketThreshold = largeBucketThreshold;
+        this.createNewRep();
 
     }
 
@@ -160,7 +1026,19 @@ public class Map4<K, V> extends MapSecondary<K, V> {
 
     @Override
     public final void clear() {
-        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        if (this.oldHashTable == null
+                && this.hashTable.length == this.initialHashTableSize) {
+            // drop just the non-empty buckets, rather than the whole table
+            while (this.occupied.count() > 0) {
+                int i = this.occupied.get(0);
+                this.hashTable[i] = null;
+                this.largeBuckets.clear(i);
+                this.occupied.unmark(i);
+            }
+            this.size = 0;
+        } else {
+            this.createNewRep();
+        }
     }
 
     @Override
@@ -177,7 +1055,23 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         Map4<K, V> localSource = (Map4<K, V>) source;
         this.hashTable = localSource.hashTable;
         this.size = localSource.size;
-        localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        this.initialHashTableSize = localSource.initialHashTableSize;
+        this.maxLoadFactor = localSource.maxLoadFactor;
+        this.incremental = localSource.incremental;
+        this.oldHashTable = localSource.oldHashTable;
+        this.migrationIndex = localSource.migrationIndex;
+        this.occupied = localSource.occupied;
+        this.oldOccupied = localSource.oldOccupied;
+        this.hashSpreader = localSource.hashSpreader;
+        this.largeBucketFactory = localSource.largeBucketFactory;
+        this.largeBucketThreshold = localSource.largeBucketThreshold;
+        this.largeBuckets = localSource.largeBuckets;
+        this.statisticsEnabled = localSource.statisticsEnabled;
+        this.lookups = localSource.lookups;
+        this.comparisons = localSource.comparisons;
+        localSource.createNewRep();
+        localSource.lookups = 0;
+        localSource.comparisons = 0;
     }
 
     /*
@@ -188,30 +1082,47 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     public final void add(K key, V value) {
         assert key != null : "Violation of: key is not null";
         assert value != null : "Violation of: value is not null";
-        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+        assert !this.isInDomain(key) : ""
+                + "Violation of: key is not in DOMAIN(this)";
 
-        // find correct bucket using mod
-        int bucket = mod(key.hashCode(), this.hashTable.length);
+        this.migrate(MIGRATION_STEP);
 
         // add value to correct bucket
-        this.hashTable[bucket].add(key, value);
+        this.addEntry(key, value);
         // change size to reflect addition
         this.size++;
+        this.growIfNeeded();
 
     }
 
     @Override
     public final Pair<K, V> remove(K key) {
         assert key != null : "Violation of: key is not null";
-        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+        assert this.isInDomain(key) : "Violation of: key is in DOMAIN(this)";
 
-        // find correct bucket using mod
-        int bucket = mod(key.hashCode(), this.hashTable.length);
+        this.migrate(MIGRATION_STEP);
+
+        // find correct bucket using mod, in the old table if still there
+        Map<K, V>[] table = this.hashTable;
+        Occupancy occupancy = this.occupied;
+        if (this.oldHashTable != null) {
+            Map<K, V> oldBucket = this.oldHashTable[this.indexFor(key,
+                    this.oldHashTable.length)];
+            if (oldBucket != null && oldBucket.hasKey(key)) {
+                table = this.oldHashTable;
+                occupancy = this.oldOccupied;
+            }
+        }
+        int bucket = this.indexFor(key, table.length);
 
         // remove value from correct bucket
-        Pair<K, V> removedPair = this.hashTable[bucket].remove(key);
+        Pair<K, V> removedPair = table[bucket].remove(key);
+        if (table[bucket].size() == 0) {
+            occupancy.unmark(bucket);
+        }
         // change size to reflect removal
         this.size--;
+        this.shrinkIfNeeded();
 
         // return the removed pair
         return removedPair;
@@ -221,19 +1132,23 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     public final Pair<K, V> removeAny() {
         assert this.size() > 0 : "Violation of: this /= empty_set";
 
-        Pair<K, V> removedPair = null;
-        boolean checker = false;
-        // Find the first non-empty bucket
-        for (int i = 0; i < this.hashTable.length && !checker; i++) {
-            if (this.hashTable[i].size() > 0) {
-                //remove random value from bucket
-                removedPair = this.hashTable[i].removeAny();
-                // change size to reflect removal
-                this.size--;
-                checker = true;
+        this.migrate(MIGRATION_STEP);
 
-            }
+        /*
+         * Take from any non-empty bucket, those of an old hash table still
+         * being migrated first
+         */
+        Pair<K, V> removedPair;
+        if (this.oldOccupied != null && this.oldOccupied.count() > 0) {
+            removedPair = removeAnyFromBucket(this.oldHashTable,
+                    this.oldOccupied, this.oldOccupied.get(0));
+        } else {
+            removedPair = removeAnyFromBucket(this.hashTable, this.occupied,
+                    this.occupied.get(0));
         }
+        // change size to reflect removal
+        this.size--;
+        this.shrinkIfNeeded();
 
         // return the removed pair
         return removedPair;
@@ -242,13 +1157,15 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     @Override
     public final V value(K key) {
         assert key != null : "Violation of: key is not null";
-        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+        assert this.isInDomain(key) : "Violation of: key is in DOMAIN(this)";
 
-        // find correct bucket using mod
-        int bucket = mod(key.hashCode(), this.hashTable.length);
+        this.migrate(MIGRATION_STEP);
 
+        if (this.statisticsEnabled) {
+            this.lookups++;
+        }
         // call out value using key from bucket
-        V val = this.hashTable[bucket].value(key);
+        V val = this.bucketContaining(key).value(key);
 
         // return the value
         return val;
@@ -258,11 +1175,13 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     public final boolean hasKey(K key) {
         assert key != null : "Violation of: key is not null";
 
-        // find correct bucket using mod
-        int bucket = mod(key.hashCode(), this.hashTable.length);
+        this.migrate(MIGRATION_STEP);
 
+        if (this.statisticsEnabled) {
+            this.lookups++;
+        }
         // check if the bucket has the key
-        boolean hasK = this.hashTable[bucket].hasKey(key);
+        boolean hasK = this.bucketContaining(key) != null;
 
         // return if bucket has key or not
         return hasK;
@@ -275,13 +1194,182 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         return this.size;
     }
 
+    /**
+     * Reports the current number of buckets in the hash table.
+     *
+     * @return the number of buckets
+     * @ensures hashTableSize = |$this.hashTable|
+     */
+    final int hashTableSize() {
+        return this.hashTable.length;
+    }
+
+    /**
+     * Reports the number of entries in the largest bucket.
+     *
+     * @return the length of the longest chain
+     * @ensures <pre>
+     * longestChain = [max size of the buckets of $this.hashTable and
+     *                 $this.oldHashTable]
+     * </pre>
+     */
+    final int longestChain() {
+        int longest = 0;
+        for (int k = 0; k < this.occupied.count(); k++) {
+            longest = Math.max(longest,
+                    this.hashTable[this.occupied.get(k)].size());
+        }
+        if (this.oldOccupied != null) {
+            for (int k = 0; k < this.oldOccupied.count(); k++) {
+                longest = Math.max(longest,
+                        this.oldHashTable[this.oldOccupied.get(k)].size());
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Turns the counting of lookups and of the bucket entries they examine on
+     * or off; while it is off, the only cost to each lookup is one test of a
+     * flag. Turning it on starts the counts from 0.
+     *
+     * @param enabled
+     *            whether lookups are counted
+     * @ensures <pre>
+     * $this.statisticsEnabled = enabled  and
+     * if enabled then $this.lookups = $this.comparisons = 0
+     * </pre>
+     */
+    public final void setStatisticsEnabled(boolean enabled) {
+        this.statisticsEnabled = enabled;
+        if (enabled) {
+            this.lookups = 0;
+            this.comparisons = 0;
+        }
+    }
+
+    /**
+     * Reports the shape of the hash table and the lookup counts since
+     * statistics were enabled. Takes time linear in the number of non-empty
+     * buckets. While an incremental rehash is in progress, the buckets of
+     * the old hash table are included with those of the new one, since
+     * lookups examine both; the migration is not advanced.
+     *
+     * @return the statistics
+     * @ensures <pre>
+     * statistics = [bucket count, size, chain lengths, and empty-bucket
+     *               ratio of $this.hashTable and $this.oldHashTable, and
+     *               $this.lookups and $this.comparisons]
+     * </pre>
+     */
+    public final Statistics statistics() {
+        int maxChain = this.longestChain();
+        /*
+         * Count the non-empty buckets of each size, then find the
+         * 99th-percentile size from the cumulative counts
+         */
+        int[] bucketsOfSize = new int[maxChain + 1];
+        int bucketCount = this.hashTable.length;
+        int nonEmpty = this.occupied.count();
+        for (int k = 0; k < this.occupied.count(); k++) {
+            bucketsOfSize[this.hashTable[this.occupied.get(k)].size()]++;
+        }
+        if (this.oldHashTable != null) {
+            bucketCount += this.oldHashTable.length;
+            nonEmpty += this.oldOccupied.count();
+            for (int k = 0; k < this.oldOccupied.count(); k++) {
+                bucketsOfSize[this.oldHashTable[this.oldOccupied.get(k)]
+                        .size()]++;
+            }
+        }
+        int p99Chain = 0;
+        long belowOrAt = 0;
+        while (100 * belowOrAt < 99L * nonEmpty) {
+            p99Chain++;
+            belowOrAt += bucketsOfSize[p99Chain];
+        }
+        return new Statistics(bucketCount, this.size, bucketCount - nonEmpty,
+                maxChain, p99Chain, this.lookups, this.comparisons);
+    }
+
+    /**
+     * Outputs the number of entries in each bucket of {@code table}, one
+     * bucket per line, under a header naming the buckets {@code label}.
+     *
+     * @param <K>
+     *            type of {@code Map} domain (key) entries
+     * @param <V>
+     *            type of {@code Map} range (associated value) entries
+     * @param out
+     *            the output stream
+     * @param label
+     *            the name of the bucket column
+     * @param table
+     *            the hash table
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures <pre>
+     * out.content = #out.content * [histogram of the sizes of the buckets of
+     *                               table]
+     * </pre>
+     */
+    private static <K, V> void writeBuckets(SimpleWriter out, String label,
+            Map<K, V>[] table) {
+        out.println(label + "\tHits\tBar");
+        out.println("------\t----\t---");
+        for (int i = 0; i < table.length; i++) {
+            int hits = 0;
+            if (table[i] != null) {
+                hits = table[i].size();
+            }
+            out.print(i + "\t" + hits + "\t");
+            for (int j = 0; j < hits; j++) {
+                out.print("*");
+            }
+            out.println();
+        }
+    }
+
+    /**
+     * Outputs the number of entries in each bucket of the hash table, one
+     * bucket per line, in the same "Bucket", "Hits", "Bar" layout as
+     * {@code HashingExploration}, followed by the total. While an incremental
+     * rehash is in progress, the buckets of the old hash table follow, under
+     * an "Old" header; the migration is not advanced.
+     *
+     * @param out
+     *            the output stream
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures <pre>
+     * out.content = #out.content * [histogram of the sizes of the buckets of
+     *                               $this.hashTable and $this.oldHashTable]
+     * </pre>
+     */
+    public final void writeHistogram(SimpleWriter out) {
+        assert out != null : "Violation of: out is not null";
+        assert out.isOpen() : "Violation of: out.is_open";
+
+        writeBuckets(out, "Bucket", this.hashTable);
+        if (this.oldHashTable != null) {
+            out.println();
+            writeBuckets(out, "Old", this.oldHashTable);
+        }
+        out.println();
+        out.println("Total:\t" + this.size);
+    }
+
     @Override
     public final Iterator<Pair<K, V>> iterator() {
         return new Map4Iterator();
     }
 
     /**
-     * Implementation of {@code Iterator} interface for {@code Map4}.
+     * Implementation of {@code Iterator} interface for {@code Map4}. While an
+     * incremental rehash is in progress, it visits the non-empty buckets of
+     * the old hash table and then those of the new one. No method of
+     * {@code this} may be called while iterating (even a lookup reorders a
+     * {@code Map2} bucket), so nothing is migrated until it is done.
      */
     private final class Map4Iterator implements Iterator<Pair<K, V>> {
 
@@ -291,12 +1379,24 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         private int numberSeen;
 
         /**
-         * Bucket from which current bucket iterator comes.
+         * Hash table whose non-empty buckets are being visited.
+         */
+        private Map<K, V>[] table;
+
+        /**
+         * Indices of the non-empty buckets of {@code table}.
+         */
+        private Occupancy occupancy;
+
+        /**
+         * Position, in {@code occupancy}, of the bucket from which the next
+         * bucket iterator will come.
          */
-        private int currentBucket;
+        private int nextOccupied;
 
         /**
-         * Bucket iterator from which next element will come.
+         * Bucket iterator from which next element will come; {@code null}
+         * before the first bucket has been reached.
          */
         private Iterator<Pair<K, V>> bucketIterator;
 
@@ -305,8 +1405,15 @@ public class Map4<K, V> extends MapSecondary<K, V> {
          */
         Map4Iterator() {
             this.numberSeen = 0;
-            this.currentBucket = 0;
-            this.bucketIterator = Map4.this.hashTable[0].iterator();
+            if (Map4.this.oldHashTable != null) {
+                this.table = Map4.this.oldHashTable;
+                this.occupancy = Map4.this.oldOccupied;
+            } else {
+                this.table = Map4.this.hashTable;
+                this.occupancy = Map4.this.occupied;
+            }
+            this.nextOccupied = 0;
+            this.bucketIterator = null;
         }
 
         @Override
@@ -326,10 +1433,18 @@ public class Map4<K, V> extends MapSecondary<K, V> {
                 throw new NoSuchElementException();
             }
             this.numberSeen++;
-            while (!this.bucketIterator.hasNext()) {
-                this.currentBucket++;
-                this.bucketIterator = Map4.this.hashTable[this.currentBucket]
-                        .iterator();
+            // only non-empty buckets are visited, never the empty ones between
+            while (this.bucketIterator == null
+                    || !this.bucketIterator.hasNext()) {
+                if (this.nextOccupied == this.occupancy.count()) {
+                    // done with the old hash table; go on to the new one
+                    this.table = Map4.this.hashTable;
+                    this.occupancy = Map4.this.occupied;
+                    this.nextOccupied = 0;
+                }
+                int bucket = this.occupancy.get(this.nextOccupied);
+                this.nextOccupied++;
+                this.bucketIterator = this.table[bucket].iterator();
             }
             return this.bucketIterator.next();
         }
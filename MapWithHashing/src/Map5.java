@@ -0,0 +1,522 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as an open-addressing hash table with linear probing
+ * over parallel arrays of keys, values, and cached hash codes, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * Unlike {@code Map4}, there is no bucket object per slot: an entry costs one
+ * key reference, one value reference, and one {@code int}. Removal uses
+ * backward-shift deletion, so no tombstones are ever left in the table.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * |$this.keys| = |$this.values| = |$this.hashes|  and
+ * [|$this.keys| is a power of 2]  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.keys|)
+ *   (($this.keys[i] = null) = ($this.values[i] = null)  and
+ *    if $this.keys[i] /= null then
+ *      $this.hashes[i] = spread([computed result of
+ *                               $this.keys[i].hashCode()])  and
+ *      [every slot from $this.hashes[i] mod |$this.keys| cyclically up to i
+ *       holds a non-null key])  and
+ * [no key appears in more than one slot]  and
+ * $this.size = [number of non-null entries in $this.keys]  and
+ * $this.size <= MAX_LOAD_FACTOR * |$this.keys|  and
+ * 0 <= $this.removeAnyCursor < |$this.keys|
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (K, V)
+ *         where (there exists i: integer
+ *                  (0 <= i  and  i < |$this.keys|  and
+ *                   $this.keys[i] = key  and  $this.values[i] = value))}
+ * </pre>
+ */
+public class Map5<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default capacity of hash table.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Largest capacity this implementation will grow to.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Maximum fraction of slots in use before the table doubles; linear
+     * probing degrades quickly above this.
+     */
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    /**
+     * The table halves once fewer than {@code 1 / SHRINK_RATIO} of its slots
+     * are in use.
+     */
+    private static final int SHRINK_RATIO = 8;
+
+    /**
+     * Keys, or {@code null} in empty slots.
+     */
+    private K[] keys;
+
+    /**
+     * Values, parallel to {@code keys}.
+     */
+    private V[] values;
+
+    /**
+     * Spread hash codes of {@code keys}, cached so that probing and resizing
+     * never call {@code hashCode} or {@code equals} needlessly.
+     */
+    private int[] hashes;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Capacity chosen at construction; the table never shrinks below it, and
+     * {@code clear} returns to it.
+     */
+    private int initialCapacity;
+
+    /**
+     * Slot at which {@code removeAny} resumes its search, so that draining the
+     * map does not rescan the slots it has already emptied.
+     */
+    private int removeAnyCursor;
+
+    /**
+     * Returns the smallest power of 2 not less than {@code n}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the smallest power of 2 >= n
+     * @requires 0 < n <= MAXIMUM_CAPACITY
+     * @ensures <pre>
+     * powerOfTwoAtLeast >= n  and  [powerOfTwoAtLeast is a power of 2]  and
+     * powerOfTwoAtLeast < 2 * n
+     * </pre>
+     */
+    private static int powerOfTwoAtLeast(int n) {
+        assert n > 0 : "Violation of: n > 0";
+        assert n <= MAXIMUM_CAPACITY : "Violation of: n <= MAXIMUM_CAPACITY";
+
+        int result = 1;
+        while (result < n) {
+            result *= 2;
+        }
+        return result;
+    }
+
+    /**
+     * Mixes the high bits of {@code h} into the low bits used for indexing, so
+     * that hash codes differing only in their high bits do not collide.
+     *
+     * @param h
+     *            the hash code
+     * @return the spread hash code
+     * @ensures spread = [h with its high half XORed into its low half]
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or the empty slot at which the
+     * probe for {@code key} ends if {@code key} is not in {@code this}.
+     *
+     * @param key
+     *            the key
+     * @param hash
+     *            spread hash code of {@code key}
+     * @return the slot index
+     * @requires hash = spread([computed result of key.hashCode()])
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then $this.keys[find] = key
+     *  else $this.keys[find] = null
+     * </pre>
+     */
+    private int find(K key, int hash) {
+        int mask = this.keys.length - 1;
+        int i = hash & mask;
+        while (this.keys[i] != null
+                && !(this.hashes[i] == hash && this.keys[i].equals(key))) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Empties slot {@code i} and shifts back any later entries of the same
+     * probe cluster that would otherwise become unreachable.
+     *
+     * @param i
+     *            the slot to empty
+     * @updates $this.keys, $this.values, $this.hashes
+     * @requires $this.keys[i] /= null
+     * @ensures this = #this \ {(#$this.keys[i], #$this.values[i])}
+     */
+    private void deleteSlot(int i) {
+        int mask = this.keys.length - 1;
+        int hole = i;
+        int j = (hole + 1) & mask;
+        while (this.keys[j] != null) {
+            int home = this.hashes[j] & mask;
+            /*
+             * The entry at j may move into the hole only if its home slot is
+             * not cyclically in (hole, j]
+             */
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                this.keys[hole] = this.keys[j];
+                this.values[hole] = this.values[j];
+                this.hashes[hole] = this.hashes[j];
+                hole = j;
+            }
+            j = (j + 1) & mask;
+        }
+        this.keys[hole] = null;
+        this.values[hole] = null;
+        this.hashes[hole] = 0;
+    }
+
+    /**
+     * Moves every entry of {@code this} into new arrays of length
+     * {@code newCapacity}.
+     *
+     * @param newCapacity
+     *            the new capacity
+     * @updates $this.keys, $this.values, $this.hashes
+     * @requires <pre>
+     * [newCapacity is a power of 2]  and
+     * $this.size <= MAX_LOAD_FACTOR * newCapacity
+     * </pre>
+     * @ensures |$this.keys| = newCapacity  and  this = #this
+     */
+    private void resize(int newCapacity) {
+        K[] oldKeys = this.keys;
+        V[] oldValues = this.values;
+        int[] oldHashes = this.hashes;
+        this.allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = oldHashes[j] & mask;
+                while (this.keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = oldKeys[j];
+                this.values[i] = oldValues[j];
+                this.hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    /**
+     * Replaces the arrays with empty ones of length {@code capacity}.
+     *
+     * @param capacity
+     *            the capacity
+     * @replaces $this.keys, $this.values, $this.hashes,
+     *           $this.removeAnyCursor
+     * @requires [capacity is a power of 2]
+     * @ensures <pre>
+     * |$this.keys| = |$this.values| = |$this.hashes| = capacity  and
+     * [every entry of $this.keys and $this.values is null]  and
+     * $this.removeAnyCursor = 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        /*
+         * With "new K[...]" in place of "(K[]) new Object[...]" it does not
+         * compile; as shown, it results in a warning about an unchecked
+         * conversion, though it cannot fail since the arrays never escape.
+         */
+        this.keys = (K[]) new Object[capacity];
+        this.values = (V[]) new Object[capacity];
+        this.hashes = new int[capacity];
+        this.removeAnyCursor = 0;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the initial capacity
+     * @requires [capacity is a power of 2]
+     * @ensures <pre>
+     * |$this.keys| = capacity  and  $this.size = 0  and
+     * $this.initialCapacity = capacity
+     * </pre>
+     */
+    private void createNewRep(int capacity) {
+        this.allocate(capacity);
+        this.size = 0;
+        this.initialCapacity = capacity;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map5() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor resulting in a hash table that can hold
+     * {@code expectedSize} entries without resizing.
+     *
+     * @param expectedSize
+     *            number of entries expected
+     * @requires 0 < expectedSize <= MAX_LOAD_FACTOR * MAXIMUM_CAPACITY
+     * @ensures this = {}
+     */
+    public Map5(int expectedSize) {
+        assert expectedSize > 0 : "Violation of: expectedSize > 0";
+
+        this.createNewRep(powerOfTwoAtLeast(
+                (int) Math.ceil(expectedSize / MAX_LOAD_FACTOR)));
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.initialCapacity);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map5<?, ?> : ""
+                + "Violation of: source is of dynamic type Map5<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map5<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map5<K, V> localSource = (Map5<K, V>) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.hashes = localSource.hashes;
+        this.size = localSource.size;
+        this.initialCapacity = localSource.initialCapacity;
+        this.removeAnyCursor = localSource.removeAnyCursor;
+        localSource.createNewRep(localSource.initialCapacity);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        if (this.size + 1 > MAX_LOAD_FACTOR * this.keys.length
+                && this.keys.length < MAXIMUM_CAPACITY) {
+            this.resize(2 * this.keys.length);
+        }
+        int hash = spread(key.hashCode());
+        int i = this.find(key, hash);
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.hashes[i] = hash;
+        this.size++;
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int i = this.find(key, spread(key.hashCode()));
+        Pair<K, V> removed = new SimplePair<K, V>(this.keys[i],
+                this.values[i]);
+        this.deleteSlot(i);
+        this.size--;
+        this.shrinkIfNeeded();
+        return removed;
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int mask = this.keys.length - 1;
+        int i = this.removeAnyCursor;
+        while (this.keys[i] == null) {
+            i = (i + 1) & mask;
+        }
+        Pair<K, V> removed = new SimplePair<K, V>(this.keys[i],
+                this.values[i]);
+        this.deleteSlot(i);
+        this.removeAnyCursor = i;
+        this.size--;
+        this.shrinkIfNeeded();
+        return removed;
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.values[this.find(key, spread(key.hashCode()))];
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.keys[this.find(key, spread(key.hashCode()))] != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    /**
+     * Replaces the value associated with {@code key} in a single probe,
+     * rather than the {@code remove}/{@code add} pair used by
+     * {@code MapSecondary}.
+     */
+    @Override
+    public final V replaceValue(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int i = this.find(key, spread(key.hashCode()));
+        V old = this.values[i];
+        this.values[i] = value;
+        return old;
+    }
+
+    /**
+     * Halves the table if removals have left fewer than
+     * {@code 1 / SHRINK_RATIO} of its slots in use, without going below
+     * {@code $this.initialCapacity}.
+     *
+     * @updates $this.keys, $this.values, $this.hashes
+     * @ensures this = #this
+     */
+    private void shrinkIfNeeded() {
+        if (this.keys.length > this.initialCapacity
+                && this.size < this.keys.length / SHRINK_RATIO) {
+            this.resize(this.keys.length / 2);
+        }
+    }
+
+    /**
+     * Reports the current number of slots in the hash table.
+     *
+     * @return the number of slots
+     * @ensures capacity = |$this.keys|
+     */
+    final int capacity() {
+        return this.keys.length;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map5}.
+     */
+    private final class Map5Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Slot from which the next element will come, once advanced past
+         * empty slots.
+         */
+        private int currentSlot;
+
+        /**
+         * No-argument constructor.
+         */
+        Map5Iterator() {
+            this.numberSeen = 0;
+            this.currentSlot = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Map5.this.size;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.numberSeen++;
+            while (Map5.this.keys[this.currentSlot] == null) {
+                this.currentSlot++;
+            }
+            int slot = this.currentSlot;
+            this.currentSlot++;
+            return new SimplePair<K, V>(Map5.this.keys[slot],
+                    Map5.this.values[slot]);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,182 @@
+import java.util.Iterator;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as the current version of a {@code PersistentMap},
+ * with implementations of primary methods.
+ *
+ * <p>
+ * Every kernel update replaces the current version by a new one that shares
+ * structure with it, so {@code snapshot} can hand readers the current version
+ * in O(1) time: a reader holding a snapshot needs no lock and no copy, and
+ * never sees later updates. Iteration is over the version current when the
+ * iterator was made. Updates are not synchronized; threads that update the
+ * same {@code Map6} must coordinate among themselves, while any number of
+ * threads read snapshots.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention $this.current is not null
+ * @correspondence this = $this.current
+ */
+public class Map6<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * The current version; volatile so that a snapshot taken by one thread
+     * is the latest version published by another.
+     */
+    private volatile PersistentMap<K, V> current;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.current = PersistentMap.empty();
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map6() {
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor resulting in a map whose current version is
+     * {@code snapshot}.
+     *
+     * @param snapshot
+     *            the initial version
+     * @requires snapshot is not null
+     * @ensures this = snapshot
+     */
+    public Map6(PersistentMap<K, V> snapshot) {
+        assert snapshot != null : "Violation of: snapshot is not null";
+
+        this.current = snapshot;
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map6<?, ?> : ""
+                + "Violation of: source is of dynamic type Map6<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map6<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map6<K, V> localSource = (Map6<K, V>) source;
+        this.current = localSource.current;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        this.current = this.current.with(key, value);
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        PersistentMap<K, V> version = this.current;
+        Pair<K, V> removed = new SimplePair<K, V>(key, version.value(key));
+        this.current = version.without(key);
+        return removed;
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        PersistentMap<K, V> version = this.current;
+        Pair<K, V> p = version.iterator().next();
+        Pair<K, V> removed = new SimplePair<K, V>(p.key(), p.value());
+        this.current = version.without(p.key());
+        return removed;
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.current.value(key);
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.current.hasKey(key);
+    }
+
+    @Override
+    public final int size() {
+        return this.current.size();
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return this.current.iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Returns the current version of {@code this}, which later updates of
+     * {@code this} leave unchanged.
+     *
+     * @return the current version
+     * @ensures snapshot = this
+     */
+    public final PersistentMap<K, V> snapshot() {
+        return this.current;
+    }
+
+}
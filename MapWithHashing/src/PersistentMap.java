@@ -0,0 +1,768 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+
+/**
+ * Immutable map represented as a hash array mapped trie, in which every update
+ * returns a new version that shares all but one root-to-leaf path with the
+ * version it was made from.
+ *
+ * <p>
+ * Each level of the trie consumes 5 bits of a key's hash code, so a node has
+ * up to 32 children; a node stores only the children present, packed in an
+ * array and located through a 32-bit occupancy bitmap, so lookups and updates
+ * touch at most 7 nodes. Keys whose hash codes are equal in all 32 bits share
+ * a collision node. An update copies the nodes on the path to the key, O(log
+ * n) small arrays, and leaves both versions valid.
+ *
+ * <p>
+ * Since a version never changes, any number of threads may read it without
+ * locking or copying, while a writer builds new versions from it. The
+ * {@code Map} adapter {@code Map6} keeps one current version and hands it out
+ * through {@code snapshot}.
+ *
+ * @param <K>
+ *            type of keys
+ * @param <V>
+ *            type of values
+ * @mathmodel type PersistentMap is modeled by finite set of (key: K, value: V)
+ * @constraint this is a partial function
+ * @initially <pre>
+ * empty():
+ *  ensures empty = {}
+ * </pre>
+ * @convention <pre>
+ * [$this.root is a Node]  and
+ * [every Node reached from $this.root at depth d (the root has depth 0) holds,
+ *  for each bit set in its bitmap, one child in the same order as the bits,
+ *  which is an Entry, a Collision, or, when d < 6, a Node]  and
+ * [every Entry or Collision reached from the root through the children at
+ *  positions b0, b1, ..., bd has a hash whose 5-bit groups, from the lowest,
+ *  are b0, b1, ..., bd]  and
+ * [every Node other than the root has at least two children, or one child
+ *  that is a Node]  and
+ * [every Collision holds at least two Entries with the same hash]  and
+ * [every Entry's hash = [computed result of key.hashCode()], and no key
+ *  appears in more than one Entry]  and
+ * $this.size = [number of Entries reached from $this.root]
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (K, V)
+ *         where ([an Entry reached from $this.root holds key and value])}
+ * </pre>
+ */
+public final class PersistentMap<K, V> implements Iterable<Map.Pair<K, V>> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of hash bits consumed by each level of the trie.
+     */
+    private static final int BITS_PER_LEVEL = 5;
+
+    /**
+     * Mask selecting the hash bits of one level.
+     */
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+    /**
+     * Greatest number of nodes, collision nodes included, on a path from the
+     * root.
+     */
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * One key/value pair with the hash code of its key.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     */
+    private static final class Entry<K, V> implements Map.Pair<K, V> {
+
+        /**
+         * Hash code of {@code key}.
+         */
+        private final int hash;
+
+        /**
+         * The key.
+         */
+        private final K key;
+
+        /**
+         * The value.
+         */
+        private final V value;
+
+        /**
+         * Constructor.
+         *
+         * @param hash
+         *            hash code of {@code key}
+         * @param key
+         *            the key
+         * @param value
+         *            the value
+         */
+        Entry(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K key() {
+            return this.key;
+        }
+
+        @Override
+        public V value() {
+            return this.value;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + this.key + "," + this.value + ")";
+        }
+
+    }
+
+    /**
+     * Interior node: children for the 5-bit hash groups set in
+     * {@code bitmap}, each an {@code Entry}, a {@code Collision}, or a
+     * {@code Node}.
+     */
+    private static final class Node {
+
+        /**
+         * Bit b is set iff there is a child for hash group b.
+         */
+        private final int bitmap;
+
+        /**
+         * The children, in increasing order of hash group.
+         */
+        private final Object[] children;
+
+        /**
+         * Constructor.
+         *
+         * @param bitmap
+         *            the hash groups present
+         * @param children
+         *            the children, one for each bit of {@code bitmap}
+         */
+        Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+    }
+
+    /**
+     * Leaf holding the entries whose keys have the same full hash code.
+     */
+    private static final class Collision {
+
+        /**
+         * Hash code shared by the keys.
+         */
+        private final int hash;
+
+        /**
+         * The entries, at least two.
+         */
+        private final Object[] children;
+
+        /**
+         * Constructor.
+         *
+         * @param hash
+         *            the shared hash code
+         * @param children
+         *            the entries
+         */
+        Collision(int hash, Object[] children) {
+            this.hash = hash;
+            this.children = children;
+        }
+
+    }
+
+    /**
+     * The empty trie, shared by all empty maps.
+     */
+    private static final Node EMPTY_NODE = new Node(0, new Object[0]);
+
+    /**
+     * The empty map.
+     */
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(
+            EMPTY_NODE, 0);
+
+    /**
+     * Root of the trie.
+     */
+    private final Node root;
+
+    /**
+     * Number of entries.
+     */
+    private final int size;
+
+    /**
+     * Returns the position, in the children of a node with bitmap
+     * {@code bitmap}, of the child for the hash group with bit {@code bit}.
+     *
+     * @param bitmap
+     *            the bitmap of the node
+     * @param bit
+     *            the bit of the hash group
+     * @return the number of bits of {@code bitmap} below {@code bit}
+     */
+    private static int position(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /**
+     * Returns the bit for the hash group of {@code hash} at level
+     * {@code shift}.
+     *
+     * @param hash
+     *            the hash code
+     * @param shift
+     *            number of hash bits consumed by the levels above
+     * @return the bit for the hash group
+     */
+    private static int bitFor(int hash, int shift) {
+        return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    /**
+     * Returns the hash code shared by the keys of leaf {@code leaf}.
+     *
+     * @param leaf
+     *            an {@code Entry} or a {@code Collision}
+     * @return the hash code
+     */
+    private static int hashOf(Object leaf) {
+        int hash;
+        if (leaf instanceof Entry<?, ?>) {
+            hash = ((Entry<?, ?>) leaf).hash;
+        } else {
+            hash = ((Collision) leaf).hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns a copy of {@code a} with {@code x} in position {@code i}.
+     *
+     * @param a
+     *            the array
+     * @param i
+     *            the position
+     * @param x
+     *            the new entry
+     * @return the copy
+     * @requires 0 <= i < |a|
+     */
+    private static Object[] replaced(Object[] a, int i, Object x) {
+        Object[] b = a.clone();
+        b[i] = x;
+        return b;
+    }
+
+    /**
+     * Returns a copy of {@code a} with {@code x} inserted in position
+     * {@code i}.
+     *
+     * @param a
+     *            the array
+     * @param i
+     *            the position
+     * @param x
+     *            the new entry
+     * @return the copy, one longer than {@code a}
+     * @requires 0 <= i <= |a|
+     */
+    private static Object[] inserted(Object[] a, int i, Object x) {
+        Object[] b = new Object[a.length + 1];
+        System.arraycopy(a, 0, b, 0, i);
+        b[i] = x;
+        System.arraycopy(a, i, b, i + 1, a.length - i);
+        return b;
+    }
+
+    /**
+     * Returns a copy of {@code a} without position {@code i}.
+     *
+     * @param a
+     *            the array
+     * @param i
+     *            the position
+     * @return the copy, one shorter than {@code a}
+     * @requires 0 <= i < |a|
+     */
+    private static Object[] removed(Object[] a, int i) {
+        Object[] b = new Object[a.length - 1];
+        System.arraycopy(a, 0, b, 0, i);
+        System.arraycopy(a, i + 1, b, i, a.length - i - 1);
+        return b;
+    }
+
+    /**
+     * Returns the position of the entry for {@code key} among the entries of
+     * {@code c}, or -1 if there is none.
+     *
+     * @param c
+     *            the collision node
+     * @param key
+     *            the key
+     * @return the position, or -1
+     */
+    private static int indexOf(Collision c, Object key) {
+        int k = c.children.length - 1;
+        while (k >= 0 && !((Entry<?, ?>) c.children[k]).key.equals(key)) {
+            k--;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the entry for {@code key} in the trie rooted at {@code root},
+     * or {@code null} if there is none.
+     *
+     * @param root
+     *            the root of the trie
+     * @param hash
+     *            hash code of {@code key}
+     * @param key
+     *            the key
+     * @return the entry, or null
+     */
+    private static Entry<?, ?> find(Node root, int hash, Object key) {
+        Object t = root;
+        int shift = 0;
+        while (t instanceof Node) {
+            Node n = (Node) t;
+            int bit = bitFor(hash, shift);
+            t = null;
+            if ((n.bitmap & bit) != 0) {
+                t = n.children[position(n.bitmap, bit)];
+            }
+            shift += BITS_PER_LEVEL;
+        }
+        Entry<?, ?> result = null;
+        if (t instanceof Entry<?, ?>) {
+            Entry<?, ?> e = (Entry<?, ?>) t;
+            if (e.hash == hash && e.key.equals(key)) {
+                result = e;
+            }
+        } else if (t instanceof Collision && ((Collision) t).hash == hash) {
+            int k = indexOf((Collision) t, key);
+            if (k >= 0) {
+                result = (Entry<?, ?>) ((Collision) t).children[k];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a subtrie, for the level consuming hash bits from {@code shift}
+     * up, holding the entries of leaf {@code leaf} and entry {@code e}.
+     *
+     * @param leaf
+     *            an {@code Entry} or a {@code Collision}
+     * @param e
+     *            the new entry
+     * @param shift
+     *            number of hash bits consumed by the levels above
+     * @return the subtrie
+     * @requires [e.key is not a key of leaf]
+     */
+    private static Object merge(Object leaf, Entry<?, ?> e, int shift) {
+        int leafHash = hashOf(leaf);
+        Object result;
+        if (leafHash == e.hash) {
+            Object[] entries;
+            if (leaf instanceof Collision) {
+                Object[] old = ((Collision) leaf).children;
+                entries = inserted(old, old.length, e);
+            } else {
+                entries = new Object[] { leaf, e };
+            }
+            result = new Collision(leafHash, entries);
+        } else {
+            int leafBit = bitFor(leafHash, shift);
+            int bit = bitFor(e.hash, shift);
+            if (leafBit == bit) {
+                result = new Node(bit, new Object[] {
+                        merge(leaf, e, shift + BITS_PER_LEVEL) });
+            } else if (Integer.compareUnsigned(leafBit, bit) < 0) {
+                result = new Node(leafBit | bit, new Object[] { leaf, e });
+            } else {
+                result = new Node(leafBit | bit, new Object[] { e, leaf });
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the trie rooted at {@code n} in which {@code e}
+     * replaces the entry with the same key, or is added if there is none.
+     *
+     * @param n
+     *            the root of the trie
+     * @param e
+     *            the entry
+     * @param shift
+     *            number of hash bits consumed by the levels above
+     * @return the root of the new trie
+     */
+    private static Node put(Node n, Entry<?, ?> e, int shift) {
+        int bit = bitFor(e.hash, shift);
+        int i = position(n.bitmap, bit);
+        Node result;
+        if ((n.bitmap & bit) == 0) {
+            result = new Node(n.bitmap | bit, inserted(n.children, i, e));
+        } else {
+            Object child = n.children[i];
+            Object newChild;
+            if (child instanceof Node) {
+                newChild = put((Node) child, e, shift + BITS_PER_LEVEL);
+            } else if (child instanceof Entry<?, ?>
+                    && ((Entry<?, ?>) child).hash == e.hash
+                    && ((Entry<?, ?>) child).key.equals(e.key)) {
+                newChild = e;
+            } else if (child instanceof Collision
+                    && ((Collision) child).hash == e.hash
+                    && indexOf((Collision) child, e.key) >= 0) {
+                Collision c = (Collision) child;
+                newChild = new Collision(e.hash,
+                        replaced(c.children, indexOf(c, e.key), e));
+            } else {
+                newChild = merge(child, e, shift + BITS_PER_LEVEL);
+            }
+            result = new Node(n.bitmap, replaced(n.children, i, newChild));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the trie rooted at {@code n} without the entry for
+     * {@code key}. If that leaves a single leaf and no subtrie, the leaf is
+     * returned instead of a node, so the caller can hold it directly; an empty
+     * trie is returned as {@code null}.
+     *
+     * @param n
+     *            the root of the trie
+     * @param hash
+     *            hash code of {@code key}
+     * @param key
+     *            the key
+     * @param shift
+     *            number of hash bits consumed by the levels above
+     * @return the new root, a single leaf, or null
+     * @requires [key is a key in the trie rooted at n]
+     */
+    private static Object delete(Node n, int hash, Object key, int shift) {
+        int bit = bitFor(hash, shift);
+        int i = position(n.bitmap, bit);
+        Object child = n.children[i];
+        Object newChild = null;
+        if (child instanceof Node) {
+            newChild = delete((Node) child, hash, key,
+                    shift + BITS_PER_LEVEL);
+        } else if (child instanceof Collision) {
+            Object[] entries = ((Collision) child).children;
+            int k = indexOf((Collision) child, key);
+            if (entries.length == 2) {
+                newChild = entries[1 - k];
+            } else {
+                newChild = new Collision(hash, removed(entries, k));
+            }
+        }
+        Object result;
+        if (newChild == null) {
+            if (n.children.length == 1) {
+                result = null;
+            } else if (n.children.length == 2
+                    && !(n.children[1 - i] instanceof Node)) {
+                result = n.children[1 - i];
+            } else {
+                result = new Node(n.bitmap & ~bit, removed(n.children, i));
+            }
+        } else if (n.children.length == 1 && !(newChild instanceof Node)) {
+            result = newChild;
+        } else {
+            result = new Node(n.bitmap, replaced(n.children, i, newChild));
+        }
+        return result;
+    }
+
+    /**
+     * Constructor from a trie.
+     *
+     * @param root
+     *            the root of the trie
+     * @param size
+     *            the number of entries in the trie
+     */
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Returns the empty map.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @return the empty map
+     * @ensures empty = {}
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns the map that is {@code this} with {@code key} mapped to
+     * {@code value}, replacing any value {@code key} had. {@code this} is
+     * unchanged.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @return the new map
+     * @aliases references {@code key, value}
+     * @requires key is not null  and  value is not null
+     * @ensures <pre>
+     * with = (this \ {(key, v): V where (v is any value) (key, v)})
+     *        union {(key, value)}
+     * </pre>
+     */
+    public PersistentMap<K, V> with(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+
+        int hash = key.hashCode();
+        int newSize = this.size;
+        if (find(this.root, hash, key) == null) {
+            newSize++;
+        }
+        return new PersistentMap<K, V>(
+                put(this.root, new Entry<K, V>(hash, key, value), 0),
+                newSize);
+    }
+
+    /**
+     * Returns the map that is {@code this} without {@code key}, which is
+     * {@code this} itself if {@code key} is not in DOMAIN(this). {@code this}
+     * is unchanged.
+     *
+     * @param key
+     *            the key
+     * @return the new map
+     * @requires key is not null
+     * @ensures <pre>
+     * without = this \ {(key, v): V where (v is any value) (key, v)}
+     * </pre>
+     */
+    public PersistentMap<K, V> without(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int hash = key.hashCode();
+        PersistentMap<K, V> result = this;
+        if (find(this.root, hash, key) != null) {
+            Object t = delete(this.root, hash, key, 0);
+            Node newRoot;
+            if (t == null) {
+                newRoot = EMPTY_NODE;
+            } else if (t instanceof Node) {
+                newRoot = (Node) t;
+            } else {
+                newRoot = new Node(bitFor(hashOf(t), 0), new Object[] { t });
+            }
+            result = new PersistentMap<K, V>(newRoot, this.size - 1);
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether there is a pair in {@code this} whose first component
+     * is {@code key}.
+     *
+     * @param key
+     *            the key to be checked
+     * @return true iff there is a pair in {@code this} whose first component
+     *         is {@code key}
+     * @requires key is not null
+     * @ensures hasKey = (key is in DOMAIN(this))
+     */
+    public boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return find(this.root, key.hashCode(), key) != null;
+    }
+
+    /**
+     * Reports the value associated with {@code key} in {@code this}.
+     *
+     * @param key
+     *            the key whose associated value is to be reported
+     * @return the value associated with key
+     * @aliases reference returned by {@code value}
+     * @requires key is in DOMAIN(this)
+     * @ensures (key, value) is in this
+     */
+    @SuppressWarnings("unchecked")
+    public V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return (V) find(this.root, key.hashCode(), key).value;
+    }
+
+    /**
+     * Reports size of {@code this}.
+     *
+     * @return the number of pairs in {@code this}
+     * @ensures size = |this|
+     */
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Iterator<Map.Pair<K, V>> iterator() {
+        return new PersistentMapIterator();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Pair<K, V> p : this) {
+            if (!first) {
+                result.append(",");
+            }
+            result.append(p);
+            first = false;
+        }
+        return result.append("}").toString();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code PersistentMap},
+     * which walks the trie depth first with an explicit stack.
+     */
+    private final class PersistentMapIterator
+            implements Iterator<Map.Pair<K, V>> {
+
+        /**
+         * Children arrays of the nodes on the path to the next entry.
+         */
+        private final Object[][] arrays;
+
+        /**
+         * For each array on the path, the position of the next child to visit.
+         */
+        private final int[] positions;
+
+        /**
+         * Number of arrays on the path.
+         */
+        private int depth;
+
+        /**
+         * Next entry to return, or {@code null} if there is none.
+         */
+        private Entry<?, ?> next;
+
+        /**
+         * No-argument constructor.
+         */
+        PersistentMapIterator() {
+            this.arrays = new Object[MAX_DEPTH][];
+            this.positions = new int[MAX_DEPTH];
+            this.arrays[0] = PersistentMap.this.root.children;
+            this.positions[0] = 0;
+            this.depth = 1;
+            this.advance();
+        }
+
+        /**
+         * Moves {@code next} to the next entry in depth-first order, or to
+         * {@code null} if there is none.
+         */
+        private void advance() {
+            this.next = null;
+            while (this.next == null && this.depth > 0) {
+                int d = this.depth - 1;
+                if (this.positions[d] == this.arrays[d].length) {
+                    this.depth--;
+                } else {
+                    Object t = this.arrays[d][this.positions[d]];
+                    this.positions[d]++;
+                    if (t instanceof Entry<?, ?>) {
+                        this.next = (Entry<?, ?>) t;
+                    } else {
+                        Object[] children;
+                        if (t instanceof Node) {
+                            children = ((Node) t).children;
+                        } else {
+                            children = ((Collision) t).children;
+                        }
+                        this.arrays[this.depth] = children;
+                        this.positions[this.depth] = 0;
+                        this.depth++;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Map.Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Map.Pair<K, V> result = (Map.Pair<K, V>) this.next;
+            this.advance();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that reports the word-counting throughput of
+ * {@code ConcurrentMap4.merge} at 1, 2, 4, 8, and 16 threads. Scaling with
+ * the number of threads shows only on a machine with several cores.
+ */
+public final class ConcurrentMap4Benchmark {
+
+    /**
+     * Number of distinct words counted.
+     */
+    private static final int DISTINCT_WORDS = 5000;
+
+    /**
+     * Number of words each thread counts.
+     */
+    private static final int WORDS_PER_THREAD = 400000;
+
+    /**
+     * Thread counts timed.
+     */
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16 };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ConcurrentMap4Benchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Counts {@code wordsPerThread} words from {@code words} into
+     * {@code counts} on each of {@code threadCount} threads, and returns the
+     * elapsed time in nanoseconds.
+     *
+     * @param counts
+     *            the map counting words
+     * @param words
+     *            the words to count, cyclically
+     * @param threadCount
+     *            number of threads
+     * @param wordsPerThread
+     *            number of words each thread counts
+     * @return elapsed time
+     * @updates counts
+     */
+    static long countWords(final ConcurrentMap4<String, Integer> counts,
+            final String[] words, int threadCount, final int wordsPerThread) {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            final int offset = t * 7919;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < wordsPerThread; i++) {
+                        counts.merge(words[(offset + i) % words.length], 1,
+                                Integer::sum);
+                    }
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        for (Thread th : threads) {
+            th.start();
+        }
+        for (Thread th : threads) {
+            try {
+                th.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Returns {@code n} distinct words.
+     *
+     * @param n
+     *            number of words
+     * @return the words
+     */
+    static String[] words(int n) {
+        String[] words = new String[n];
+        for (int i = 0; i < n; i++) {
+            words[i] = "w" + i;
+        }
+        return words;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        out.println(Runtime.getRuntime().availableProcessors()
+                + " processors");
+        String[] words = words(DISTINCT_WORDS);
+        // warm up
+        countWords(new ConcurrentMap4<String, Integer>(), words, 4,
+                WORDS_PER_THREAD);
+        for (int threadCount : THREAD_COUNTS) {
+            ConcurrentMap4<String, Integer> counts = new ConcurrentMap4<>();
+            long nanos = countWords(counts, words, threadCount,
+                    WORDS_PER_THREAD);
+            double opsPerMicro = (double) threadCount * WORDS_PER_THREAD
+                    / (nanos / 1000.0);
+            out.println(String.format(
+                    "ConcurrentMap4 merge, %2d threads: %.1f ops/us",
+                    threadCount, opsPerMicro));
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,130 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code ConcurrentMap4}, with
+ * multi-threaded tests of {@code merge}, {@code add}, and {@code remove}.
+ * Throughput is reported by {@code ConcurrentMap4Benchmark}.
+ */
+public class ConcurrentMap4Test extends MapTest {
+
+    /**
+     * Number of distinct words in the word-counting tests.
+     */
+    private static final int DISTINCT_WORDS = 5000;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new ConcurrentMap4<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Test that concurrent counting with {@code merge} loses no updates.
+     */
+    @Test
+    public void concurrentMergeCountsEveryWord() {
+        final int threadCount = 8;
+        final int perThread = 3 * DISTINCT_WORDS;
+        String[] words = ConcurrentMap4Benchmark.words(DISTINCT_WORDS);
+        ConcurrentMap4<String, Integer> counts = new ConcurrentMap4<>();
+        ConcurrentMap4Benchmark.countWords(counts, words, threadCount,
+                perThread);
+        assertEquals(DISTINCT_WORDS, counts.size());
+        int total = 0;
+        for (Map.Pair<String, Integer> p : counts) {
+            total += p.value();
+        }
+        assertEquals(threadCount * perThread, total);
+        for (String w : words) {
+            assertEquals(threadCount * perThread / DISTINCT_WORDS,
+                    (int) counts.value(w));
+        }
+    }
+
+    /**
+     * Test that concurrent adds and removes of disjoint keys keep the size
+     * and contents consistent.
+     */
+    @Test
+    public void concurrentAddRemoveDisjointKeys() {
+        final int threadCount = 8;
+        final int perThread = 5000;
+        final ConcurrentMap4<String, String> m = new ConcurrentMap4<>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            final String prefix = t + ":";
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        m.add(prefix + i, prefix);
+                    }
+                    for (int i = 0; i < perThread; i += 2) {
+                        m.remove(prefix + i);
+                    }
+                }
+            }));
+        }
+        for (Thread th : threads) {
+            th.start();
+        }
+        for (Thread th : threads) {
+            try {
+                th.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+        assertEquals(threadCount * perThread / 2, m.size());
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 1; i < perThread; i += 2) {
+                assertEquals(t + ":", m.value(t + ":" + i));
+            }
+        }
+    }
+
+    /**
+     * Drains a map with {@code removeAny}, adding a key back now and then so
+     * that buckets already passed over are filled again, and checks every
+     * pair comes out exactly once.
+     */
+    @Test
+    public void removeAnyDrainsAfterReadding() {
+        final int n = 5000;
+        ConcurrentMap4<String, String> m = new ConcurrentMap4<>();
+        Map<String, String> ref = new Map1L<String, String>();
+        for (int i = 0; i < n; i++) {
+            m.add("k" + i, "v" + i);
+        }
+        int readded = 0;
+        int removed = 0;
+        while (m.size() > 0) {
+            Map.Pair<String, String> p = m.removeAny();
+            removed++;
+            if (removed % 10 == 0 && readded < n / 10) {
+                m.add(p.key(), p.value());
+                readded++;
+            } else {
+                ref.add(p.key(), p.value());
+            }
+        }
+        assertEquals(n + readded, removed);
+        assertEquals(n, ref.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals("v" + i, ref.value("k" + i));
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code CountMap}.
+ */
+public class CountMapTest {
+
+    /**
+     * Test that a new map is empty and reports count 0.
+     */
+    @Test
+    public void constructorTest() {
+        CountMap<String> m = new CountMap<String>();
+        assertEquals(0, m.size());
+        assertFalse(m.hasKey("a"));
+        assertEquals(0, m.count("a"));
+        assertFalse(m.cursor().advance());
+    }
+
+    /**
+     * Test that increment reports the new count and adds missing keys.
+     */
+    @Test
+    public void incrementTest() {
+        CountMap<String> m = new CountMap<String>();
+        assertEquals(1, m.increment("a"));
+        assertEquals(2, m.increment("a"));
+        assertEquals(1, m.increment("b"));
+        assertEquals(2, m.size());
+        assertEquals(2, m.count("a"));
+        assertEquals(1, m.count("b"));
+        assertTrue(m.hasKey("b"));
+    }
+
+    /**
+     * Test addTo with positive and negative deltas.
+     */
+    @Test
+    public void addToTest() {
+        CountMap<String> m = new CountMap<String>();
+        assertEquals(5, m.addTo("a", 5));
+        assertEquals(2, m.addTo("a", -3));
+        assertEquals(-4, m.addTo("b", -4));
+        assertEquals(2, m.size());
+    }
+
+    /**
+     * Test counting many keys, across several resizes, against a reference
+     * {@code Map}, and that the cursor visits every entry once.
+     */
+    @Test
+    public void manyKeysTest() {
+        final int n = 20000;
+        CountMap<String> m = new CountMap<String>();
+        Map<String, Integer> ref = new Map1L<String, Integer>();
+        for (int i = 0; i < 3 * n; i++) {
+            String key = Integer.toString(i % n);
+            int expected = 1;
+            if (ref.hasKey(key)) {
+                expected = ref.value(key) + 1;
+                ref.replaceValue(key, expected);
+            } else {
+                ref.add(key, expected);
+            }
+            assertEquals(expected, m.increment(key));
+        }
+        assertEquals(ref.size(), m.size());
+        int seen = 0;
+        CountMap<String>.Cursor c = m.cursor();
+        while (c.advance()) {
+            assertEquals((int) ref.value(c.key()), c.count());
+            seen++;
+        }
+        assertEquals(n, seen);
+    }
+
+    /**
+     * Test clear and transferFrom.
+     */
+    @Test
+    public void clearAndTransferTest() {
+        CountMap<String> m = new CountMap<String>();
+        m.increment("a");
+        CountMap<String> n = m.newInstance();
+        n.transferFrom(m);
+        assertEquals(0, m.size());
+        assertEquals(1, n.count("a"));
+        n.clear();
+        assertEquals(0, n.size());
+        assertFalse(n.hasKey("a"));
+    }
+
+}
@@ -0,0 +1,198 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map4} with incremental rehashing,
+ * starting from a one-bucket hash table so that most kernel tests run while a
+ * migration is in progress. The latency of single operations across resizes
+ * is reported by {@code Map4LatencyBenchmark}.
+ */
+public class Map4IncrementalTest extends MapTest {
+
+    /**
+     * Initial size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 1;
+
+    /**
+     * Maximum load factor to be used in tests.
+     */
+    private static final double TEST_LOAD_FACTOR = 1.0;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4<String, String>(TEST_HASH_TABLE_SIZE,
+                TEST_LOAD_FACTOR, true);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Test that lookups, removals, size and iteration interleaved with an
+     * in-progress migration agree with the reference implementation.
+     */
+    @Test
+    public void interleavedOperationsDuringMigration() {
+        final int n = 5000;
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> ref = this.constructorRef();
+        for (int i = 0; i < n; i++) {
+            String s = Integer.toString(i);
+            m.add(s, s);
+            ref.add(s, s);
+            if (i % 3 == 0) {
+                String t = Integer.toString(i / 2);
+                assertEquals(ref.hasKey(t), m.hasKey(t));
+            }
+            if (i % 7 == 0) {
+                String t = Integer.toString(i / 2);
+                if (ref.hasKey(t)) {
+                    assertEquals(ref.remove(t), m.remove(t));
+                }
+            }
+            assertEquals(ref.size(), m.size());
+        }
+        int count = 0;
+        Iterator<Pair<String, String>> it = m.iterator();
+        while (it.hasNext()) {
+            Pair<String, String> p = it.next();
+            assertTrue(ref.hasKey(p.key()));
+            count++;
+        }
+        assertEquals(ref.size(), count);
+        assertEquals(ref, m);
+        while (m.size() > 0) {
+            Pair<String, String> p = m.removeAny();
+            assertEquals(ref.remove(p.key()), p);
+        }
+        assertEquals(0, ref.size());
+    }
+
+    /**
+     * Adds keys to a new incremental {@code Map4} until a grow has started
+     * and left a migration in progress, and returns it.
+     *
+     * @return the map, mid-migration
+     */
+    private static Map4<String, String> midMigration() {
+        Map4<String, String> m = new Map4<String, String>(TEST_HASH_TABLE_SIZE,
+                TEST_LOAD_FACTOR, true);
+        int i = 0;
+        while (m.size() < 1000
+                || m.statistics().bucketCount() == m.hashTableSize()) {
+            String s = Integer.toString(i);
+            m.add(s, s);
+            i++;
+        }
+        return m;
+    }
+
+    /**
+     * Test that iterating while a migration is in progress visits every entry
+     * exactly once, from both hash tables, and leaves the migration where it
+     * was.
+     */
+    @Test
+    public void iterationDuringMigration() {
+        Map4<String, String> m = midMigration();
+        int buckets = m.statistics().bucketCount();
+        Set<String> seen = new HashSet<String>();
+        for (Pair<String, String> p : m) {
+            assertTrue(seen.add(p.key()));
+            assertEquals(p.key(), p.value());
+        }
+        assertEquals(buckets, m.statistics().bucketCount());
+        assertEquals(m.size(), seen.size());
+        for (int i = 0; i < m.size(); i++) {
+            assertTrue(seen.contains(Integer.toString(i)));
+        }
+    }
+
+    /**
+     * Test that {@code statistics} and {@code writeHistogram} report both
+     * hash tables while a migration is in progress, without finishing it.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void statisticsDuringMigration() throws IOException {
+        Map4<String, String> m = midMigration();
+        Map4.Statistics stats = m.statistics();
+        assertTrue(stats.bucketCount() > m.hashTableSize());
+        assertEquals(m.size(), stats.size());
+        assertEquals(stats.bucketCount(), m.statistics().bucketCount());
+
+        File file = File.createTempFile("histogram", ".txt");
+        file.deleteOnExit();
+        SimpleWriter out = new SimpleWriter1L(file.getPath());
+        m.writeHistogram(out);
+        out.close();
+        SimpleReader in = new SimpleReader1L(file.getPath());
+        int rows = 0;
+        int total = 0;
+        String line = in.nextLine();
+        while (!line.startsWith("Total:")) {
+            String[] fields = line.split("\t", -1);
+            if (line.length() > 0 && Character.isDigit(line.charAt(0))) {
+                rows++;
+                total += Integer.parseInt(fields[1]);
+            }
+            line = in.nextLine();
+        }
+        in.close();
+        assertEquals(stats.bucketCount(), rows);
+        assertEquals(m.size(), total);
+        assertEquals(stats.bucketCount(), m.statistics().bucketCount());
+    }
+
+    /**
+     * Test that the load factor bound holds after every operation when a
+     * resize falls due while the previous migration is still in progress:
+     * draining through several shrinks and then growing straight away.
+     */
+    @Test
+    public void loadFactorBoundedWhenResizeFallsDueMidMigration() {
+        final int n = 20000;
+        final double loadFactor = 0.75;
+        Map4<String, String> m = new Map4<String, String>(TEST_HASH_TABLE_SIZE,
+                loadFactor, true);
+        for (int i = 0; i < n; i++) {
+            String s = Integer.toString(i);
+            m.add(s, s);
+        }
+        // remove until a shrink starts, then add straight away
+        int grown = m.hashTableSize();
+        int removed = 0;
+        while (m.hashTableSize() == grown) {
+            m.remove(Integer.toString(removed));
+            removed++;
+        }
+        for (int i = 0; i < removed; i++) {
+            String s = Integer.toString(i);
+            m.add(s, s);
+            assertTrue(m.size() <= loadFactor * m.hashTableSize());
+        }
+        assertEquals(n, m.size());
+    }
+
+}
@@ -0,0 +1,154 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that reports the distribution of single-{@code add} times for
+ * {@code Map4} across many resizes, with and without incremental rehashing.
+ * Run it with assertions disabled, since {@code Map4} otherwise looks every
+ * key up again to check its preconditions.
+ */
+public final class Map4LatencyBenchmark {
+
+    /**
+     * Number of entries added to each map.
+     */
+    private static final int SIZE = 1000000;
+
+    /**
+     * Maximum load factor of the maps timed.
+     */
+    private static final double LOAD_FACTOR = 1.0;
+
+    /**
+     * Percentiles reported, besides the maximum.
+     */
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Map4LatencyBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns the total number of garbage collections so far.
+     *
+     * @return the collection count
+     */
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory
+                .getGarbageCollectorMXBeans()) {
+            count += gc.getCollectionCount();
+        }
+        return count;
+    }
+
+    /**
+     * Adds {@code n} distinct keys to {@code m} and returns the time taken by
+     * each {@code add}, in nanoseconds, sorted. Operations during which the
+     * garbage collector ran are left out, since their time says nothing
+     * about {@code m}.
+     *
+     * @param m
+     *            the map
+     * @param n
+     *            the number of keys to add
+     * @return the single-operation times, in increasing order
+     * @updates m
+     */
+    private static long[] addNanos(Map<String, String> m, int n) {
+        long[] times = new long[n];
+        int timed = 0;
+        for (int i = 0; i < n; i++) {
+            String s = Integer.toString(i);
+            long collections = collectionCount();
+            long start = System.nanoTime();
+            m.add(s, s);
+            long elapsed = System.nanoTime() - start;
+            if (collectionCount() == collections) {
+                times[timed] = elapsed;
+                timed++;
+            }
+        }
+        long[] result = Arrays.copyOf(times, timed);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the {@code p}th percentile of {@code sorted}, in microseconds.
+     *
+     * @param sorted
+     *            the times, in increasing order
+     * @param p
+     *            the percentile
+     * @return the percentile
+     * @requires |sorted| > 0  and  0 <= p <= 100
+     */
+    private static double percentile(long[] sorted, double p) {
+        int k = (int) Math.ceil(p / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, k)] / NANOS_PER_MICRO;
+    }
+
+    /**
+     * Outputs the percentiles and maximum of {@code sorted}, labeled
+     * {@code label}.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            the label
+     * @param sorted
+     *            the times, in increasing order
+     * @updates out.content
+     * @requires out.is_open  and  |sorted| > 0
+     */
+    private static void report(SimpleWriter out, String label,
+            long[] sorted) {
+        out.print(label + ", " + sorted.length + " adds timed:");
+        for (double p : PERCENTILES) {
+            out.print(String.format(" p%s %.1f us,", p % 1 == 0
+                    ? Integer.toString((int) p) : Double.toString(p),
+                    percentile(sorted, p)));
+        }
+        out.println(String.format(" max %.1f us",
+                sorted[sorted.length - 1] / NANOS_PER_MICRO));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        if (Map4.class.desiredAssertionStatus()) {
+            out.println("Warning: assertions are enabled; timings include"
+                    + " Map4's precondition checks");
+        }
+        // warm up both code paths first
+        addNanos(new Map4<String, String>(1, LOAD_FACTOR, false), SIZE);
+        addNanos(new Map4<String, String>(1, LOAD_FACTOR, true), SIZE);
+        report(out, "stop-the-world",
+                addNanos(new Map4<String, String>(1, LOAD_FACTOR, false),
+                        SIZE));
+        report(out, "incremental",
+                addNanos(new Map4<String, String>(1, LOAD_FACTOR, true),
+                        SIZE));
+        out.close();
+    }
+
+}
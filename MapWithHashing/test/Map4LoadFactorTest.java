@@ -0,0 +1,124 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map4} using a one-bucket initial
+ * hash table, so that every kernel test also exercises growing and shrinking.
+ */
+public class Map4LoadFactorTest extends MapTest {
+
+    /**
+     * Initial size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 1;
+
+    /**
+     * Maximum load factor to be used in tests.
+     */
+    private static final double TEST_LOAD_FACTOR = 1.0;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4<String, String>(TEST_HASH_TABLE_SIZE,
+                TEST_LOAD_FACTOR);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Adds {@code n} distinct keys to {@code m}.
+     *
+     * @param m
+     *            the map
+     * @param n
+     *            the number of keys to add
+     * @updates m
+     * @ensures m = #m union {("0","0"), ..., ("n-1","n-1")}
+     */
+    private static void addKeys(Map4<String, String> m, int n) {
+        for (int i = 0; i < n; i++) {
+            String s = Integer.toString(i);
+            m.add(s, s);
+        }
+    }
+
+    /**
+     * Test that the load factor stays bounded and that lookup cost, counted
+     * as the bucket entries each lookup examines, stays flat from 10^3 to
+     * 10^5 entries. With chaining, a successful lookup is expected to examine
+     * about 1 + loadFactor entries and an unsuccessful one about loadFactor;
+     * the bounds allow twice the load factor.
+     */
+    @Test
+    public void loadFactorBoundedAsSizeGrows() {
+        final int[] sizes = { 1000, 10000, 100000 };
+        final double loadFactor = 0.75;
+        for (int n : sizes) {
+            Map4<String, String> m = new Map4<String, String>();
+            addKeys(m, n);
+            assertEquals(n, m.size());
+            assertTrue((double) m.size() / m.hashTableSize() <= loadFactor);
+
+            m.setStatisticsEnabled(true);
+            for (int i = 0; i < n; i++) {
+                String s = Integer.toString(i);
+                assertEquals(s, m.value(s));
+            }
+            Map4.Statistics hits = m.statistics();
+            assertEquals(n, hits.lookups());
+            assertTrue(hits.comparisonsPerLookup() <= 1 + 2 * loadFactor);
+
+            m.setStatisticsEnabled(true);
+            for (int i = 0; i < n; i++) {
+                assertFalse(m.hasKey("x" + i));
+            }
+            Map4.Statistics misses = m.statistics();
+            assertEquals(n, misses.lookups());
+            assertTrue(misses.comparisonsPerLookup() <= 2 * loadFactor);
+        }
+    }
+
+    /**
+     * Test that the hash table shrinks back after heavy removal, but never
+     * below its initial size.
+     */
+    @Test
+    public void shrinksAfterRemovals() {
+        final int n = 10000;
+        final int initial = 101;
+        Map4<String, String> m = new Map4<String, String>(initial, 0.75);
+        addKeys(m, n);
+        int grownSize = m.hashTableSize();
+        assertTrue(grownSize > initial);
+        for (int i = 0; i < n / 2; i++) {
+            m.remove(Integer.toString(i));
+        }
+        while (m.size() > 0) {
+            m.removeAny();
+        }
+        assertEquals(initial, m.hashTableSize());
+    }
+
+    /**
+     * Test that {@code clear} restores the initial hash table size.
+     */
+    @Test
+    public void clearRestoresInitialSize() {
+        Map4<String, String> m = new Map4<String, String>(TEST_HASH_TABLE_SIZE,
+                TEST_LOAD_FACTOR);
+        addKeys(m, 100);
+        m.clear();
+        assertEquals(0, m.size());
+        assertEquals(TEST_HASH_TABLE_SIZE, m.hashTableSize());
+    }
+
+}
@@ -0,0 +1,172 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.map.Map3;
+
+/**
+ * Customized JUnit test fixture for {@code Map4} using the Murmur hash
+ * spreader and tree-based buckets for chains longer than two entries, so that
+ * every kernel test also exercises bucket replacement.
+ */
+public class Map4PolicyTest extends MapTest {
+
+    /**
+     * Initial size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 5;
+
+    /**
+     * Maximum load factor to be used in tests.
+     */
+    private static final double TEST_LOAD_FACTOR = 1.0;
+
+    /**
+     * Bucket size above which buckets are replaced in tests.
+     */
+    private static final int TEST_LARGE_BUCKET_THRESHOLD = 2;
+
+    /**
+     * Load factor large enough that the hash table never grows.
+     */
+    private static final double NO_GROWTH = 1e9;
+
+    /**
+     * Factory for tree-based buckets.
+     *
+     * @param <K>
+     *            type of key
+     * @param <V>
+     *            type of value
+     */
+    private static final class TreeBuckets<K extends Comparable<K>, V>
+            implements Supplier<Map<K, V>> {
+
+        @Override
+        public Map<K, V> get() {
+            return new Map3<K, V>();
+        }
+
+    }
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4<String, String>(TEST_HASH_TABLE_SIZE,
+                TEST_LOAD_FACTOR, false, Map4.HashSpreader.MURMUR,
+                new TreeBuckets<String, String>(),
+                TEST_LARGE_BUCKET_THRESHOLD);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Adds the {@code n} keys {@code 0, stride, 2*stride, ...} to a map with a
+     * fixed 101-bucket hash table and the given spreader, and reports the
+     * length of its longest chain.
+     *
+     * @param spreader
+     *            the hash spreader
+     * @param stride
+     *            distance between consecutive keys
+     * @param n
+     *            the number of keys
+     * @return the length of the longest chain
+     */
+    private static int longestChainForStride(IntUnaryOperator spreader,
+            int stride, int n) {
+        Map4<Integer, Integer> m = new Map4<Integer, Integer>(101, NO_GROWTH,
+                false, spreader, null, 0);
+        for (int i = 0; i < n; i++) {
+            m.add(i * stride, i);
+        }
+        assertEquals(n, m.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(Integer.valueOf(i), m.value(i * stride));
+        }
+        return m.longestChain();
+    }
+
+    /**
+     * Test that keys that are all multiples of the hash table size, which
+     * pile into a single bucket under the identity, are spread out by the
+     * Murmur and Fibonacci spreaders.
+     */
+    @Test
+    public void spreadersBreakUpStridedKeys() {
+        final int n = 2000;
+        int identity = longestChainForStride(Map4.HashSpreader.IDENTITY, 101,
+                n);
+        int murmur = longestChainForStride(Map4.HashSpreader.MURMUR, 101, n);
+        int fibonacci = longestChainForStride(Map4.HashSpreader.FIBONACCI,
+                101, n);
+        assertEquals(n, identity);
+        assertTrue(murmur < n / 10);
+        assertTrue(fibonacci < n / 10);
+    }
+
+    /**
+     * Returns the string of {@code length} characters drawn from "Aa" and
+     * "BB" according to the bits of {@code bits}; all such strings of a given
+     * length have the same hash code.
+     *
+     * @param bits
+     *            selects the blocks
+     * @param length
+     *            the number of two-character blocks
+     * @return the string
+     */
+    private static String collidingKey(int bits, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if ((bits & (1 << i)) == 0) {
+                sb.append("Aa");
+            } else {
+                sb.append("BB");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test that a map whose keys all share one hash code, which no spreader
+     * can separate, stays correct once its single bucket has been replaced by
+     * a tree-based bucket.
+     */
+    @Test
+    public void largeBucketHoldsFullCollisions() {
+        final int blocks = 10;
+        final int n = 1 << blocks;
+        Map4<String, Integer> m = new Map4<String, Integer>(101, NO_GROWTH,
+                false, Map4.HashSpreader.MURMUR,
+                new TreeBuckets<String, Integer>(), 8);
+        for (int i = 0; i < n; i++) {
+            m.add(collidingKey(i, blocks), i);
+        }
+        assertEquals(n, m.size());
+        assertEquals(n, m.longestChain());
+        for (int i = 0; i < n; i++) {
+            assertEquals(Integer.valueOf(i), m.value(collidingKey(i, blocks)));
+        }
+        for (int i = 0; i < n; i += 2) {
+            m.remove(collidingKey(i, blocks));
+        }
+        assertEquals(n / 2, m.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i % 2 == 1, m.hasKey(collidingKey(i, blocks)));
+        }
+        m.clear();
+        assertEquals(0, m.size());
+        m.add(collidingKey(0, blocks), 0);
+        assertEquals(Integer.valueOf(0), m.value(collidingKey(0, blocks)));
+    }
+
+}
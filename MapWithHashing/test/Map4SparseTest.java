@@ -0,0 +1,62 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map4} using a large, and therefore
+ * sparsely occupied, hash table.
+ */
+public class Map4SparseTest extends MapTest {
+
+    /**
+     * Size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 100003;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4<String, String>(TEST_HASH_TABLE_SIZE);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Test that iterating and draining a sparse table, as
+     * {@code TagCloudGenerator} does, visits every entry exactly once; with a
+     * scan from bucket 0 per {@code removeAny} this would take on the order
+     * of 10^8 bucket checks.
+     */
+    @Test
+    public void iterateAndDrainSparseTable() {
+        final int n = 2000;
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> ref = this.constructorRef();
+        for (int i = 0; i < n; i++) {
+            String s = "key" + i;
+            m.add(s, s);
+            ref.add(s, s);
+        }
+        int seen = 0;
+        for (Pair<String, String> p : m) {
+            assertTrue(ref.hasKey(p.key()));
+            seen++;
+        }
+        assertEquals(n, seen);
+        while (m.size() > 0) {
+            Pair<String, String> p = m.removeAny();
+            assertEquals(ref.remove(p.key()), p);
+        }
+        assertEquals(0, ref.size());
+        m.clear();
+        assertEquals(0, m.size());
+    }
+
+}
@@ -0,0 +1,151 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * JUnit test fixture for the statistics reported by {@code Map4}.
+ */
+public class Map4StatisticsTest {
+
+    /**
+     * Load factor large enough that the hash table never grows.
+     */
+    private static final double NO_GROWTH = 1e9;
+
+    /**
+     * Returns a map with a fixed 10-bucket hash table in which bucket 0 holds
+     * 10 keys, buckets 1 to 4 hold 5 keys each, and the rest are empty.
+     *
+     * @return the map
+     */
+    private static Map4<Integer, Integer> skewedMap() {
+        Map4<Integer, Integer> m = new Map4<Integer, Integer>(10, NO_GROWTH);
+        for (int j = 0; j < 10; j++) {
+            m.add(10 * j, j);
+        }
+        for (int i = 1; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                m.add(10 * j + i, j);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Test the shape reported for a table with known bucket sizes.
+     */
+    @Test
+    public void shapeOfSkewedTable() {
+        Map4.Statistics stats = skewedMap().statistics();
+        assertEquals(10, stats.bucketCount());
+        assertEquals(30, stats.size());
+        assertEquals(3.0, stats.loadFactor(), 1e-9);
+        assertEquals(10, stats.maxChain());
+        assertEquals(10, stats.p99Chain());
+        assertEquals(6.0, stats.meanChain(), 1e-9);
+        assertEquals(0.5, stats.emptyBucketRatio(), 1e-9);
+    }
+
+    /**
+     * Test that {@code value}, {@code add}, and {@code remove} count only
+     * their own lookups, so the statistics are the same whether or not
+     * assertions check their preconditions.
+     */
+    @Test
+    public void preconditionChecksNotCounted() {
+        Map4<Integer, Integer> m = skewedMap();
+        m.setStatisticsEnabled(true);
+        assertEquals(Integer.valueOf(0), m.value(0));
+        Map4.Statistics stats = m.statistics();
+        assertEquals(1, stats.lookups());
+        assertEquals(10, stats.comparisons());
+
+        m.setStatisticsEnabled(true);
+        m.add(100, 10);
+        m.remove(100);
+        stats = m.statistics();
+        assertEquals(0, stats.lookups());
+        assertEquals(0, stats.comparisons());
+    }
+
+    /**
+     * Test that lookups are not counted until statistics are enabled, and
+     * that each lookup then counts the size of the bucket it examines.
+     */
+    @Test
+    public void comparisonsCountedOnlyWhenEnabled() {
+        Map4<Integer, Integer> m = skewedMap();
+        m.hasKey(0);
+        assertEquals(0, m.statistics().lookups());
+        assertEquals(0, m.statistics().comparisons());
+
+        m.setStatisticsEnabled(true);
+        m.hasKey(0);
+        m.hasKey(1);
+        m.hasKey(9);
+        Map4.Statistics stats = m.statistics();
+        assertEquals(3, stats.lookups());
+        assertEquals(10 + 5, stats.comparisons());
+        assertEquals(5.0, stats.comparisonsPerLookup(), 1e-9);
+
+        m.setStatisticsEnabled(false);
+        m.hasKey(0);
+        assertEquals(3, m.statistics().lookups());
+    }
+
+    /**
+     * Test that the statistics of an empty map are all 0.
+     */
+    @Test
+    public void emptyMap() {
+        Map4.Statistics stats = new Map4<String, String>().statistics();
+        assertEquals(0, stats.size());
+        assertEquals(0, stats.maxChain());
+        assertEquals(0, stats.p99Chain());
+        assertEquals(0.0, stats.meanChain(), 0);
+        assertEquals(1.0, stats.emptyBucketRatio(), 0);
+        assertEquals(0.0, stats.comparisonsPerLookup(), 0);
+    }
+
+    /**
+     * Test that the histogram has one line per bucket, in the layout of
+     * {@code HashingExploration}.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void histogramLayout() throws IOException {
+        File file = File.createTempFile("histogram", ".txt");
+        file.deleteOnExit();
+        SimpleWriter out = new SimpleWriter1L(file.getPath());
+        skewedMap().writeHistogram(out);
+        out.close();
+
+        SimpleReader in = new SimpleReader1L(file.getPath());
+        assertEquals("Bucket\tHits\tBar", in.nextLine());
+        assertEquals("------\t----\t---", in.nextLine());
+        assertEquals("0\t10\t**********", in.nextLine());
+        assertEquals("1\t5\t*****", in.nextLine());
+        for (int i = 2; i < 5; i++) {
+            in.nextLine();
+        }
+        for (int i = 5; i < 10; i++) {
+            assertEquals(i + "\t0\t", in.nextLine());
+        }
+        assertEquals("", in.nextLine());
+        assertEquals("Total:\t30", in.nextLine());
+        assertTrue(in.atEOS());
+        in.close();
+    }
+
+}
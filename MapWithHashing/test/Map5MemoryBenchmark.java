@@ -0,0 +1,89 @@
+import components.map.Map;
+import components.map.Map1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that estimates the heap bytes per entry of {@code Map5},
+ * {@code Map4}, and {@code Map1L}, from the heap in use before and after
+ * adding the same keys. {@code System.gc} is only a hint, so the figures are
+ * estimates, and they can be meaningless on a JVM that ignores it.
+ */
+public final class Map5MemoryBenchmark {
+
+    /**
+     * Number of entries added to each map.
+     */
+    private static final int SIZE = 100000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Map5MemoryBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns the number of heap bytes currently in use, after asking for a
+     * garbage collection.
+     *
+     * @return bytes in use
+     */
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * Returns the heap bytes per entry taken by {@code m} once the given keys
+     * are added, not counting the keys themselves.
+     *
+     * @param m
+     *            the map, initially empty
+     * @param keys
+     *            the keys to add, each also used as its own value
+     * @return bytes per entry
+     * @updates m
+     */
+    private static double bytesPerEntry(Map<String, String> m,
+            String[] keys) {
+        long before = usedMemory();
+        for (String k : keys) {
+            m.add(k, k);
+        }
+        long after = usedMemory();
+        return (double) (after - before) / keys.length;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        String[] keys = new String[SIZE];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = Integer.toString(i);
+        }
+        Map<String, String> map5 = new Map5<String, String>();
+        double map5Bytes = bytesPerEntry(map5, keys);
+        Map<String, String> map4 = new Map4<String, String>();
+        double map4Bytes = bytesPerEntry(map4, keys);
+        Map<String, String> map1L = new Map1L<String, String>();
+        double map1LBytes = bytesPerEntry(map1L, keys);
+        out.println(String.format(
+                "bytes per entry over %d entries: Map5 %.1f, Map4 %.1f,"
+                        + " Map1L %.1f",
+                SIZE, map5Bytes, map4Bytes, map1LBytes));
+        // keep all three maps reachable until measured
+        out.println("sizes: " + map5.size() + ", " + map4.size() + ", "
+                + map1L.size());
+        out.close();
+    }
+
+}
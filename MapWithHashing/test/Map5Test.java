@@ -0,0 +1,21 @@
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map5}. Its memory per entry is
+ * compared with {@code Map4} and {@code Map1L} by
+ * {@code Map5MemoryBenchmark}.
+ */
+public class Map5Test extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map5<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+}
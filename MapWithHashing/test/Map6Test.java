@@ -0,0 +1,96 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map6}, including that snapshots
+ * are unaffected by later updates.
+ */
+public class Map6Test extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map6<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Test that a snapshot keeps its contents while the map it came from is
+     * updated.
+     */
+    @Test
+    public void snapshotUnchangedByLaterUpdates() {
+        Map6<String, String> m = new Map6<String, String>();
+        m.add("a", "1");
+        m.add("b", "2");
+        PersistentMap<String, String> before = m.snapshot();
+        m.remove("a");
+        m.add("c", "3");
+        m.replaceValue("b", "20");
+        assertEquals(2, before.size());
+        assertEquals("1", before.value("a"));
+        assertEquals("2", before.value("b"));
+        assertFalse(before.hasKey("c"));
+        assertEquals("20", m.value("b"));
+        assertFalse(m.hasKey("a"));
+    }
+
+    /**
+     * Test that readers on other threads always see a complete version while
+     * one thread keeps updating the map.
+     */
+    @Test
+    public void readersSeeCompleteVersions() {
+        final int versions = 2000;
+        final int keys = 64;
+        final Map6<Integer, Integer> m = new Map6<Integer, Integer>();
+        for (int k = 0; k < keys; k++) {
+            m.add(k, 0);
+        }
+        final int[] inconsistent = new int[1];
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int r = 0; r < versions; r++) {
+                    /*
+                     * Every version maps all keys to the same value; a torn
+                     * read would show two different values
+                     */
+                    PersistentMap<Integer, Integer> s = m.snapshot();
+                    int v = s.value(0);
+                    for (Map.Pair<Integer, Integer> p : s) {
+                        if (p.value() != v) {
+                            inconsistent[0]++;
+                        }
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int v = 1; v <= versions; v++) {
+            PersistentMap<Integer, Integer> next = m.snapshot();
+            for (int k = 0; k < keys; k++) {
+                next = next.with(k, v);
+            }
+            Map6<Integer, Integer> published = new Map6<>(next);
+            m.transferFrom(published);
+        }
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        assertEquals(0, inconsistent[0]);
+        assertTrue(m.size() == keys);
+    }
+
+}
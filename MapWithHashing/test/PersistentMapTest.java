@@ -0,0 +1,185 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.map.Map;
+
+/**
+ * JUnit test fixture for {@code PersistentMap}, checked against
+ * {@code java.util.HashMap}, with keys chosen so that hash codes collide in
+ * some or all of their bits.
+ */
+public class PersistentMapTest {
+
+    /**
+     * Seed for the random operations, so failures can be reproduced.
+     */
+    private static final long SEED = 20;
+
+    /**
+     * Key whose hash code is given explicitly.
+     */
+    private static final class Key {
+
+        /**
+         * Identity of the key.
+         */
+        private final int id;
+
+        /**
+         * Hash code of the key.
+         */
+        private final int hash;
+
+        /**
+         * Constructor.
+         *
+         * @param id
+         *            identity of the key
+         * @param hash
+         *            hash code of the key
+         */
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == this.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public String toString() {
+            return "k" + this.id;
+        }
+
+    }
+
+    /**
+     * Checks that {@code m} has exactly the entries of {@code ref}, both by
+     * lookup and by iteration.
+     *
+     * @param ref
+     *            the expected entries
+     * @param m
+     *            the map to check
+     */
+    private static void assertSameEntries(HashMap<Key, Integer> ref,
+            PersistentMap<Key, Integer> m) {
+        assertEquals(ref.size(), m.size());
+        for (java.util.Map.Entry<Key, Integer> e : ref.entrySet()) {
+            assertTrue(m.hasKey(e.getKey()));
+            assertEquals(e.getValue(), m.value(e.getKey()));
+        }
+        HashMap<Key, Integer> seen = new HashMap<Key, Integer>();
+        for (Map.Pair<Key, Integer> p : m) {
+            assertEquals(null, seen.put(p.key(), p.value()));
+        }
+        assertEquals(ref, seen);
+    }
+
+    /**
+     * Runs random {@code with} and {@code without} operations on keys whose
+     * hash codes are {@code hashes[id]}, checking every version against a
+     * {@code HashMap} and that earlier versions are unchanged.
+     *
+     * @param hashes
+     *            hash code of each key
+     */
+    private static void randomOperations(int[] hashes) {
+        Random random = new Random(SEED);
+        PersistentMap<Key, Integer> m = PersistentMap.empty();
+        HashMap<Key, Integer> ref = new HashMap<Key, Integer>();
+        List<PersistentMap<Key, Integer>> versions = new ArrayList<>();
+        List<HashMap<Key, Integer>> refs = new ArrayList<>();
+        for (int op = 0; op < 20 * hashes.length; op++) {
+            int id = random.nextInt(hashes.length);
+            Key k = new Key(id, hashes[id]);
+            if (random.nextInt(3) == 0) {
+                m = m.without(k);
+                ref.remove(k);
+            } else {
+                m = m.with(k, op);
+                ref.put(k, op);
+            }
+            assertSameEntries(ref, m);
+            if (op % 50 == 0) {
+                versions.add(m);
+                refs.add(new HashMap<Key, Integer>(ref));
+            }
+        }
+        for (int v = 0; v < versions.size(); v++) {
+            assertSameEntries(refs.get(v), versions.get(v));
+        }
+    }
+
+    /**
+     * Test with keys whose hash codes are all different.
+     */
+    @Test
+    public void randomDistinctHashes() {
+        int[] hashes = new int[500];
+        Random random = new Random(SEED);
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextInt();
+        }
+        randomOperations(hashes);
+    }
+
+    /**
+     * Test with keys whose hash codes agree in their low bits, so the trie is
+     * deep, and often in all bits, so collision nodes are made and removed.
+     */
+    @Test
+    public void randomCollidingHashes() {
+        int[] hashes = new int[300];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = ((i % 7) << 25) | 0x1234;
+        }
+        randomOperations(hashes);
+    }
+
+    /**
+     * Test with negative hash codes, which use the high bit of the top level.
+     */
+    @Test
+    public void randomNegativeHashes() {
+        int[] hashes = new int[300];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = Integer.MIN_VALUE | (i * 0x9E3779B9 >>> 1);
+        }
+        randomOperations(hashes);
+    }
+
+    /**
+     * Test that {@code without} of a missing key returns the same map, and
+     * that emptying a map gives back an empty map.
+     */
+    @Test
+    public void withoutMissingAndToEmpty() {
+        PersistentMap<String, String> m = PersistentMap.empty();
+        assertSame(m, m.without("a"));
+        PersistentMap<String, String> one = m.with("a", "1");
+        assertSame(one, one.without("b"));
+        PersistentMap<String, String> none = one.without("a");
+        assertEquals(0, none.size());
+        assertFalse(none.iterator().hasNext());
+        assertEquals(1, one.size());
+        assertEquals("{(a,1)}", one.toString());
+    }
+
+}
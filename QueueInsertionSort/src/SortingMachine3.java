@@ -1,16 +1,25 @@
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-import components.queue.Queue;
-import components.queue.Queue1L;
 import components.sortingmachine.SortingMachine;
 import components.sortingmachine.SortingMachineSecondary;
 
 /**
- * {@code SortingMachine} represented as a {@code Queue} (using an embedding of
+ * {@code SortingMachine} represented as an array (using an embedding of
  * insertion sort), with implementations of primary methods.
  *
+ * <p>
+ * Each {@code add} finds the slot for the new entry by binary search and
+ * shifts the entries after it with {@code System.arraycopy}, so the entries
+ * stay sorted using O(log n) comparisons per {@code add}. Shifting is still
+ * linear, so once more than {@code BINARY_INSERTION_LIMIT} entries have been
+ * added the machine stops keeping them sorted and just appends; it then sorts
+ * them all at once in {@code changeToExtractionMode}, which is O(n log n) and
+ * takes advantage of the sorted prefix.
+ *
  * @param <T>
  *            type of {@code SortingMachine} entries
  * @mathdefinitions <pre>
@@ -29,11 +38,17 @@ import components.sortingmachine.SortingMachineSecondary;
  * </pre>
  * @convention <pre>
  * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])  and
- * IS_SORTED($this.entries, [relation computed by $this.machineOrder.compare method])
+ * 0 <= $this.front <= $this.front + $this.length <= |$this.entries|  and
+ * [entries of $this.entries[$this.front, $this.front + $this.length)
+ *   are not null]  and
+ * if $this.insertionMode then $this.front = 0  and
+ * if not $this.insertionMode  or  $this.length <= BINARY_INSERTION_LIMIT then
+ *  IS_SORTED($this.entries[$this.front, $this.front + $this.length),
+ *    [relation computed by $this.machineOrder.compare method])
  * </pre>
  * @correspondence <pre>
- * this =
- *   ($this.insertionMode, $this.machineOrder, multiset_entries($this.entries))
+ * this = ($this.insertionMode, $this.machineOrder,
+ *   multiset_entries($this.entries[$this.front, $this.front + $this.length)))
  * </pre>
  */
 public class SortingMachine3<T> extends SortingMachineSecondary<T> {
@@ -42,6 +57,17 @@ public class SortingMachine3<T> extends SortingMachineSecondary<T> {
      * Private members --------------------------------------------------------
      */
 
+    /**
+     * Largest number of entries kept sorted by binary insertion; past this,
+     * entries are appended and sorted in {@code changeToExtractionMode}.
+     */
+    private static final int BINARY_INSERTION_LIMIT = 1024;
+
+    /**
+     * Initial length of the entries array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
     /**
      * Insertion mode.
      */
@@ -55,7 +81,17 @@ public class SortingMachine3<T> extends SortingMachineSecondary<T> {
     /**
      * Entries.
      */
-    private Queue<T> entries;
+    private T[] entries;
+
+    /**
+     * Index of the first entry.
+     */
+    private int front;
+
+    /**
+     * Number of entries.
+     */
+    private int length;
 
     /**
      * Creator of initial representation.
@@ -63,43 +99,61 @@ public class SortingMachine3<T> extends SortingMachineSecondary<T> {
      * @param order
      *            total preorder for sorting
      */
+    @SuppressWarnings("unchecked")
     private void createNewRep(Comparator<T> order) {
         this.insertionMode = true;
         this.machineOrder = order;
-        this.entries = new Queue1L<T>();
+        this.entries = (T[]) (new Object[INITIAL_CAPACITY]);
+        this.front = 0;
+        this.length = 0;
     }
 
     /**
-     * Inserts the given {@code T} in the {@code Queue<T>} sorted according to
-     * the given {@code Comparator<T>} and maintains the {@code Queue<T>}
-     * sorted.
+     * Inserts the given {@code T} in {@code array[0, length)}, sorted according
+     * to the given {@code Comparator<T>}, and maintains it sorted. The slot is
+     * found by binary search, after any entries equivalent to {@code x}.
      *
      * @param <T>
-     *            type of {@code Queue} entries
-     * @param q
-     *            the {@code Queue} to insert into
+     *            type of array entries
+     * @param array
+     *            the array to insert into
+     * @param length
+     *            the number of entries in {@code array}
      * @param x
      *            the {@code T} to insert
      * @param order
      *            the {@code Comparator} defining the order for {@code T}
-     * @updates q
+     * @updates array
      * @requires <pre>
+     * length < |array|  and
      * IS_TOTAL_PREORDER([relation computed by order.compare method])  and
-     * IS_SORTED(q, [relation computed by order.compare method])
+     * IS_SORTED(array[0, length), [relation computed by order.compare method])
      * </pre>
      * @ensures <pre>
-     * perms(q, #q * <x>)  and
-     * IS_SORTED(q, [relation computed by order.compare method])
+     * perms(array[0, length + 1), #array[0, length) * <x>)  and
+     * IS_SORTED(array[0, length + 1),
+     *   [relation computed by order.compare method])
      * </pre>
      */
-    private static <T> void insertInOrder(Queue<T> q, T x,
+    private static <T> void insertInOrder(T[] array, int length, T x,
             Comparator<T> order) {
-        assert q != null : "Violation of: q is not null";
+        assert array != null : "Violation of: array is not null";
         assert x != null : "Violation of: x is not null";
         assert order != null : "Violation of: order is not null";
-
-        // TODO #1 - fill in body
-
+        assert length < array.length : "Violation of: length < |array|";
+
+        int lo = 0;
+        int hi = length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (order.compare(x, array[mid]) < 0) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        System.arraycopy(array, lo, array, lo + 1, length - lo);
+        array[lo] = x;
     }
 
     /*
@@ -153,6 +207,8 @@ public class SortingMachine3<T> extends SortingMachineSecondary<T> {
         this.insertionMode = localSource.insertionMode;
         this.machineOrder = localSource.machineOrder;
         this.entries = localSource.entries;
+        this.front = localSource.front;
+        this.length = localSource.length;
         localSource.createNewRep(localSource.machineOrder);
     }
 
@@ -165,16 +221,25 @@ public class SortingMachine3<T> extends SortingMachineSecondary<T> {
         assert x != null : "Violation of: x is not null";
         assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
 
-        // TODO #2 - insert x into machine contents (keep it sorted)
-
+        if (this.length == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries, 2 * this.length);
+        }
+        if (this.length < BINARY_INSERTION_LIMIT) {
+            insertInOrder(this.entries, this.length, x, this.machineOrder);
+        } else {
+            this.entries[this.length] = x;
+        }
+        this.length++;
     }
 
     @Override
     public final void changeToExtractionMode() {
         assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
 
-        // TODO #3 - switch machine from insertion to extraction mode
-
+        if (this.length > BINARY_INSERTION_LIMIT) {
+            Arrays.sort(this.entries, 0, this.length, this.machineOrder);
+        }
+        this.insertionMode = false;
     }
 
     @Override
@@ -183,42 +248,79 @@ public class SortingMachine3<T> extends SortingMachineSecondary<T> {
                 .isInInsertionMode() : "Violation of: not this.insertion_mode";
         assert this.size() > 0 : "Violation of: this.contents /= {}";
 
-        // TODO #4 - remove and return first entry in machine contents
-
-        // This line added just to make the component compilable.
-        return null;
+        T first = this.entries[this.front];
+        this.entries[this.front] = null;
+        this.front++;
+        this.length--;
+        return first;
     }
 
     @Override
     public final boolean isInInsertionMode() {
-
-        // TODO #5 - report whether machine is in insertion mode
-
-        // This line added just to make the component compilable.
-        return false;
+        return this.insertionMode;
     }
 
     @Override
     public final Comparator<T> order() {
-
-        // TODO #6 - report order used by machine
-
-        // This line added just to make the component compilable.
-        return null;
+        return this.machineOrder;
     }
 
     @Override
     public final int size() {
-
-        // TODO #7 - report size of machine contents
-
-        // This line added just to make the component compilable.
-        return 0;
+        return this.length;
     }
 
     @Override
     public final Iterator<T> iterator() {
-        return this.entries.iterator();
+        return new SortingMachine3Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine3}.
+     */
+    private final class SortingMachine3Iterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry.
+         */
+        private int currentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine3Iterator() {
+            this.currentIndex = SortingMachine3.this.front;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.currentIndex < SortingMachine3.this.front
+                    + SortingMachine3.this.length;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachine3.this.entries[this.currentIndex];
+            this.currentIndex++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
     }
 
 }
@@ -0,0 +1,139 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program that reports the time to add n entries to {@code SortingMachine3},
+ * change to extraction mode, and remove them all, compared with the library's
+ * queue-based {@code SortingMachine3}.
+ */
+public final class SortingMachine3Benchmark {
+
+    /**
+     * Seed for the random entries, so runs can be reproduced.
+     */
+    private static final long SEED = 25;
+
+    /**
+     * Sizes timed.
+     */
+    private static final int[] SIZES = { 100, 1000, 10000, 100000, 1000000 };
+
+    /**
+     * Largest size timed for the library's {@code SortingMachine3}, whose
+     * {@code add} is linear.
+     */
+    private static final int LIBRARY_LIMIT = 20000;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachine3Benchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Natural order on {@code Integer}.
+     */
+    static final class IntegerLT implements Comparator<Integer> {
+
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+
+    }
+
+    /**
+     * Returns {@code n} random entries from [0, n / 2), so that about half
+     * are duplicates.
+     *
+     * @param n
+     *            the number of entries
+     * @return the entries
+     */
+    static Integer[] randomEntries(int n) {
+        Random random = new Random(SEED);
+        Integer[] a = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = random.nextInt(Math.max(1, n / 2));
+        }
+        return a;
+    }
+
+    /**
+     * Adds {@code entries} to {@code m}, changes it to extraction mode, and
+     * removes them all into {@code out}, returning the elapsed time in
+     * nanoseconds.
+     *
+     * @param m
+     *            the machine, empty and in insertion mode
+     * @param entries
+     *            the entries
+     * @param out
+     *            the entries in the order removed
+     * @return elapsed time
+     * @updates m, out
+     */
+    static long sort(SortingMachine<Integer> m, Integer[] entries,
+            Integer[] out) {
+        long start = System.nanoTime();
+        for (Integer x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        for (int i = 0; i < out.length; i++) {
+            out[i] = m.removeFirst();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Returns a new, empty library {@code SortingMachine3} on {@code Integer},
+     * whose simple name this project's {@code SortingMachine3} hides.
+     *
+     * @return the new machine
+     */
+    private static SortingMachine<Integer> librarySortingMachine3() {
+        return new components.sortingmachine.SortingMachine3<Integer>(
+                new IntegerLT());
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        // warm up
+        Integer[] warm = randomEntries(100000);
+        sort(new SortingMachine3<Integer>(new IntegerLT()), warm,
+                new Integer[warm.length]);
+        for (int n : SIZES) {
+            Integer[] entries = randomEntries(n);
+            Integer[] sorted = new Integer[n];
+            long array = sort(new SortingMachine3<Integer>(new IntegerLT()),
+                    entries, sorted);
+            String library = "skipped";
+            if (n <= LIBRARY_LIMIT) {
+                library = (sort(librarySortingMachine3(), entries, sorted)
+                        / NANOS_PER_MILLI) + " ms";
+            }
+            out.println("sort " + n + ": SortingMachine3 "
+                    + (array / NANOS_PER_MILLI)
+                    + " ms, library SortingMachine3 " + library);
+        }
+        out.close();
+    }
+
+}
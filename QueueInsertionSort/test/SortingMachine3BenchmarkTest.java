@@ -0,0 +1,32 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture that checks {@code SortingMachine3} against
+ * {@code Arrays.sort} on both sides of its switch from binary insertion to
+ * sorting in bulk. Timings are reported by {@code SortingMachine3Benchmark}.
+ */
+public class SortingMachine3BenchmarkTest {
+
+    /**
+     * Test that entries come out in the order {@code Arrays.sort} gives, for
+     * sizes on both sides of the switch to sorting in bulk.
+     */
+    @Test
+    public void sortsLikeArraysSort() {
+        final int[] sizes = { 0, 1, 2, 15, 16, 17, 1023, 1024, 1025, 5000 };
+        for (int n : sizes) {
+            Integer[] entries = SortingMachine3Benchmark.randomEntries(n);
+            Integer[] expected = entries.clone();
+            Arrays.sort(expected);
+            Integer[] out = new Integer[n];
+            SortingMachine3Benchmark.sort(new SortingMachine3<Integer>(
+                    new SortingMachine3Benchmark.IntegerLT()), entries, out);
+            assertEquals(Arrays.asList(expected), Arrays.asList(out));
+        }
+    }
+
+}
@@ -1,6 +1,8 @@
 import java.lang.reflect.Constructor;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import components.queue.Queue;
 import components.queue.Queue1L;
@@ -11,6 +13,15 @@ import components.sortingmachine.SortingMachineSecondary;
  * {@code SortingMachine} represented as a {@code Queue} (using an embedding of
  * quicksort), with implementations of primary methods.
  *
+ * <p>
+ * {@code changeToExtractionMode} copies the entries into an array and sorts
+ * them there with a three-way quicksort: median-of-three or ninther pivots, so
+ * already-sorted input is not quadratic; Dutch-flag partitioning, so runs of
+ * equal entries are set aside after one pass; and insertion sort for small
+ * ranges. Unless constructed otherwise, large ranges are partitioned in
+ * parallel as fork-join tasks on the common pool, so the comparator must then
+ * be safe to call from several threads at once.
+ *
  * @param <T>
  *            type of {@code SortingMachine} entries
  * @mathdefinitions <pre>
@@ -59,62 +70,340 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
     private Queue<T> entries;
 
     /**
-     * Partitions {@code q} into two parts: entries no larger than
-     * {@code partitioner} are put in {@code front}, and the rest are put in
-     * {@code back}.
+     * Whether to sort on several threads.
+     */
+    private boolean parallel;
+
+    /**
+     * Sizes of ranges sorted by insertion sort rather than partitioned.
+     */
+    private static final int INSERTION_SORT_CUTOFF = 16;
+
+    /**
+     * Smallest range whose pivot is the ninther (median of three medians of
+     * three) rather than the median of three entries.
+     */
+    private static final int NINTHER_CUTOFF = 128;
+
+    /**
+     * Smallest range partitioned as a separate fork-join task.
+     */
+    private static final int PARALLEL_CUTOFF = 1 << 13;
+
+    /**
+     * Returns the index of the median of {@code array[i]}, {@code array[j]},
+     * and {@code array[k]}.
      *
      * @param <T>
-     *            type of {@code Queue} entries
-     * @param q
-     *            the {@code Queue} to be partitioned
-     * @param partitioner
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param i
+     *            an index
+     * @param j
+     *            an index
+     * @param k
+     *            an index
+     * @param order
+     *            ordering by which to compare entries
+     * @return the index of the median
+     * @requires <pre>
+     * 0 <= i, j, k < |array|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures median3 is one of i, j, k and array[median3] is a median of
+     *          array[i], array[j], array[k]
+     */
+    private static <T> int median3(T[] array, int i, int j, int k,
+            Comparator<T> order) {
+        int median;
+        if (order.compare(array[i], array[j]) < 0) {
+            if (order.compare(array[j], array[k]) < 0) {
+                median = j;
+            } else if (order.compare(array[i], array[k]) < 0) {
+                median = k;
+            } else {
+                median = i;
+            }
+        } else {
+            if (order.compare(array[k], array[j]) < 0) {
+                median = j;
+            } else if (order.compare(array[k], array[i]) < 0) {
+                median = k;
+            } else {
+                median = i;
+            }
+        }
+        return median;
+    }
+
+    /**
+     * Returns a pivot for {@code array[lo, hi)}: the median of its first,
+     * middle, and last entries, or for larger ranges the ninther, which keeps
+     * sorted, reversed, and organ-pipe input from making quicksort quadratic.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param lo
+     *            the first index of the range
+     * @param hi
+     *            one past the last index of the range
+     * @param order
+     *            ordering by which to compare entries
+     * @return the pivot
+     * @requires <pre>
+     * 0 <= lo < hi <= |array|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * pivot is an entry of array[lo, hi)
+     * </pre>
+     */
+    private static <T> T pivot(T[] array, int lo, int hi,
+            Comparator<T> order) {
+        int last = hi - 1;
+        int mid = lo + (last - lo) / 2;
+        int median;
+        if (hi - lo < NINTHER_CUTOFF) {
+            median = median3(array, lo, mid, last, order);
+        } else {
+            int eighth = (hi - lo) / 8;
+            median = median3(array,
+                    median3(array, lo, lo + eighth, lo + 2 * eighth, order),
+                    median3(array, mid - eighth, mid, mid + eighth, order),
+                    median3(array, last - 2 * eighth, last - eighth, last,
+                            order),
+                    order);
+        }
+        return array[median];
+    }
+
+    /**
+     * Partitions {@code array[lo, hi)} three ways around {@code pivot}
+     * (Dijkstra's Dutch national flag): entries before it, then entries equal
+     * to it, then entries after it. Returns the bounds of the middle part as
+     * {@code {lt, gt}}, so that the middle part is {@code array[lt, gt)}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param lo
+     *            the first index of the range
+     * @param hi
+     *            one past the last index of the range
+     * @param pivot
      *            the partitioning value
-     * @param front
-     *            upon return, the entries no larger than {@code partitioner}
-     * @param back
-     *            upon return, the entries larger than {@code partitioner}
      * @param order
      *            ordering by which to separate entries
-     * @clears q
-     * @replaces front, back
-     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * @return the bounds of the entries equal to {@code pivot}
+     * @updates array
+     * @requires <pre>
+     * 0 <= lo <= hi <= |array|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
      * @ensures <pre>
-     * perms(#q, front * back)  and
-     * for all x: T where (<x> is substring of front)
-     *  ([relation computed by order.compare method](x, partitioner))  and
-     * for all x: T where (<x> is substring of back)
-     *  (not [relation computed by order.compare method](x, partitioner))
+     * perms(array[lo, hi), #array[lo, hi))  and
+     * lo <= partition[0] <= partition[1] <= hi  and
+     * [entries of array[lo, partition[0]) come strictly before pivot]  and
+     * [entries of array[partition[0], partition[1]) are equivalent to pivot]
+     *   and
+     * [entries of array[partition[1], hi) come strictly after pivot]  and
+     * [the other entries in array are the same as in #array]
      * </pre>
      */
-    private static <T> void partition(Queue<T> q, T partitioner, Queue<T> front,
-            Queue<T> back, Comparator<T> order) {
-        assert q != null : "Violation of: q is not null";
-        assert partitioner != null : "Violation of: partitioner is not null";
-        assert front != null : "Violation of: front is not null";
-        assert back != null : "Violation of: back is not null";
-        assert order != null : "Violation of: order is not null";
+    private static <T> int[] partition(T[] array, int lo, int hi, T pivot,
+            Comparator<T> order) {
+        int lt = lo;
+        int i = lo;
+        int gt = hi;
+        while (i < gt) {
+            int comparison = order.compare(array[i], pivot);
+            if (comparison < 0) {
+                T tmp = array[lt];
+                array[lt] = array[i];
+                array[i] = tmp;
+                lt++;
+                i++;
+            } else if (comparison > 0) {
+                gt--;
+                T tmp = array[gt];
+                array[gt] = array[i];
+                array[i] = tmp;
+            } else {
+                i++;
+            }
+        }
+        return new int[] { lt, gt };
+    }
 
-        //Iterate through the elements in the input queue
-        while (q.length() > 0) {
-            T x = q.dequeue(); // Dequeue an element from q
-            int comparisonResult = order.compare(x, partitioner);
+    /**
+     * Sorts {@code array[lo, hi)} by insertion sort.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param lo
+     *            the first index of the range
+     * @param hi
+     *            one past the last index of the range
+     * @param order
+     *            ordering by which to sort
+     * @updates array
+     * @requires <pre>
+     * 0 <= lo <= hi <= |array|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(array[lo, hi), [relation computed by order.compare method])
+     *   and
+     * perms(array[lo, hi), #array[lo, hi))  and
+     * [the other entries in array are the same as in #array]
+     * </pre>
+     */
+    private static <T> void insertionSort(T[] array, int lo, int hi,
+            Comparator<T> order) {
+        for (int i = lo + 1; i < hi; i++) {
+            T x = array[i];
+            int j = i;
+            while (j > lo && order.compare(x, array[j - 1]) < 0) {
+                array[j] = array[j - 1];
+                j--;
+            }
+            array[j] = x;
+        }
+    }
 
-            // Check the comparison result and enqueue x accordingly
-            if (comparisonResult <= 0) {
-                front.enqueue(x); // x is less than or equal to partitioner
+    /**
+     * Sorts {@code array[lo, hi)} according to the ordering provided by the
+     * {@code compare} method from {@code order}, on the calling thread. Only
+     * the smaller side of each partition is sorted recursively, so the
+     * recursion is at most about log(hi - lo) deep.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param lo
+     *            the first index of the range
+     * @param hi
+     *            one past the last index of the range
+     * @param order
+     *            ordering by which to sort
+     * @updates array
+     * @requires <pre>
+     * 0 <= lo <= hi <= |array|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(array[lo, hi), [relation computed by order.compare method])
+     *   and
+     * perms(array[lo, hi), #array[lo, hi))  and
+     * [the other entries in array are the same as in #array]
+     * </pre>
+     */
+    private static <T> void sort(T[] array, int lo, int hi,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+
+        int low = lo;
+        int high = hi;
+        while (high - low > INSERTION_SORT_CUTOFF) {
+            int[] middle = partition(array, low, high,
+                    pivot(array, low, high, order), order);
+            if (middle[0] - low < high - middle[1]) {
+                sort(array, low, middle[0], order);
+                low = middle[1];
             } else {
-                back.enqueue(x); // x is greater than partitioner
+                sort(array, middle[1], high, order);
+                high = middle[0];
             }
         }
+        insertionSort(array, low, high, order);
+    }
+
+    /**
+     * Fork-join task that sorts {@code array[lo, hi)}, partitioning it and
+     * sorting the two sides as parallel subtasks until a side is smaller than
+     * {@code PARALLEL_CUTOFF}.
+     *
+     * @param <T>
+     *            type of array entries
+     */
+    private static final class SortTask<T> extends RecursiveAction {
+
+        /**
+         * Serialization version, required since {@code RecursiveAction} is
+         * serializable.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The array.
+         */
+        private final T[] array;
+
+        /**
+         * The first index of the range.
+         */
+        private final int lo;
+
+        /**
+         * One past the last index of the range.
+         */
+        private final int hi;
+
+        /**
+         * Ordering by which to sort.
+         */
+        private final Comparator<T> order;
+
+        /**
+         * Constructor.
+         *
+         * @param array
+         *            the array
+         * @param lo
+         *            the first index of the range
+         * @param hi
+         *            one past the last index of the range
+         * @param order
+         *            ordering by which to sort
+         */
+        SortTask(T[] array, int lo, int hi, Comparator<T> order) {
+            this.array = array;
+            this.lo = lo;
+            this.hi = hi;
+            this.order = order;
+        }
 
-        // Clear the original queue
-        q.clear();
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo < PARALLEL_CUTOFF) {
+                sort(this.array, this.lo, this.hi, this.order);
+            } else {
+                int[] middle = partition(this.array, this.lo, this.hi,
+                        pivot(this.array, this.lo, this.hi, this.order),
+                        this.order);
+                invokeAll(
+                        new SortTask<T>(this.array, this.lo, middle[0],
+                                this.order),
+                        new SortTask<T>(this.array, middle[1], this.hi,
+                                this.order));
+            }
+        }
 
     }
 
     /**
      * Sorts {@code q} according to the ordering provided by the {@code compare}
-     * method from {@code order}.
+     * method from {@code order}: the entries are moved into an array, sorted
+     * there (in parallel on the common fork-join pool if {@code parallel} and
+     * the pool has more than one worker), and moved back.
      *
      * @param <T>
      *            type of {@code Queue} entries
@@ -122,39 +411,33 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
      *            the {@code Queue} to be sorted
      * @param order
      *            ordering by which to sort
+     * @param parallel
+     *            whether to sort large inputs on several threads
      * @updates q
      * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
-     * @ensures IS_SORTED(q, [relation computed by order.compare method])
+     * @ensures IS_SORTED(q, [relation computed by order.compare method])  and
+     *          perms(q, #q)
      */
-    private static <T> void sort(Queue<T> q, Comparator<T> order) {
+    @SuppressWarnings("unchecked")
+    private static <T> void sort(Queue<T> q, Comparator<T> order,
+            boolean parallel) {
+        assert q != null : "Violation of: q is not null";
         assert order != null : "Violation of: order is not null";
 
-        if (!(q.length() <= 1)) {
-            // Choose a pivot element (in this case, the first element)
-            T pivot = q.dequeue();
-
-            // Initialize two new queues for partitioning
-            Queue<T> smallerEntries = new Queue1L<T>();
-            Queue<T> largerEntries = new Queue1L<T>();
-
-            // Use the partition function to split the queue into smaller and larger partitions
-            partition(q, pivot, smallerEntries, largerEntries, order);
-
-            // Recursively sort the two partitions
-            sort(smallerEntries, order);
-            sort(largerEntries, order);
-
-            // Reconstruct the original queue by merging the sorted partitions
-            q.clear();
-            while (smallerEntries.length() > 0) {
-                q.enqueue(smallerEntries.dequeue());
-            }
-            q.enqueue(pivot); // The pivot is already in its sorted position
-            while (largerEntries.length() > 0) {
-                q.enqueue(largerEntries.dequeue());
-            }
+        T[] array = (T[]) (new Object[q.length()]);
+        for (int i = 0; i < array.length; i++) {
+            array[i] = q.dequeue();
+        }
+        if (parallel && array.length >= PARALLEL_CUTOFF
+                && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool()
+                    .invoke(new SortTask<T>(array, 0, array.length, order));
+        } else {
+            sort(array, 0, array.length, order);
+        }
+        for (T x : array) {
+            q.enqueue(x);
         }
-
     }
 
     /**
@@ -174,12 +457,26 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
      */
 
     /**
-     * Constructor from order.
+     * Constructor from order; large sorts run in parallel.
      *
      * @param order
      *            total preorder for sorting
      */
     public SortingMachine4(Comparator<T> order) {
+        this(order, true);
+    }
+
+    /**
+     * Constructor from order and whether to sort in parallel.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param parallel
+     *            whether to sort large inputs on several threads, for which
+     *            {@code order} must be thread-safe
+     */
+    public SortingMachine4(Comparator<T> order, boolean parallel) {
+        this.parallel = parallel;
         this.createNewRep(order);
     }
 
@@ -191,8 +488,10 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
     @Override
     public final SortingMachine<T> newInstance() {
         try {
-            Constructor<?> c = this.getClass().getConstructor(Comparator.class);
-            return (SortingMachine<T>) c.newInstance(this.machineOrder);
+            Constructor<?> c = this.getClass().getConstructor(Comparator.class,
+                    boolean.class);
+            return (SortingMachine<T>) c.newInstance(this.machineOrder,
+                    this.parallel);
         } catch (ReflectiveOperationException e) {
             throw new AssertionError(
                     "Cannot construct object of type " + this.getClass());
@@ -220,6 +519,7 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
         this.insertionMode = localSource.insertionMode;
         this.machineOrder = localSource.machineOrder;
         this.entries = localSource.entries;
+        this.parallel = localSource.parallel;
         localSource.createNewRep(localSource.machineOrder);
     }
 
@@ -242,6 +542,7 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
         assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
 
         this.insertionMode = false;
+        sort(this.entries, this.machineOrder, this.parallel);
     }
 
     @Override
@@ -250,7 +551,6 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
                 .isInInsertionMode() : "Violation of: not this.insertion_mode";
         assert this.size() > 0 : "Violation of: this.contents /= {}";
 
-        sort(this.entries, this.machineOrder);
         return this.entries.dequeue();
     }
 
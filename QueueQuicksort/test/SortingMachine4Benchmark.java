@@ -0,0 +1,152 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program that reports the time to add n entries to {@code SortingMachine4},
+ * change to extraction mode, and remove them all, in parallel and
+ * sequentially, compared with the library's queue-based
+ * {@code SortingMachine4}. Scaling with the number of cores shows only on a
+ * machine that has several.
+ */
+public final class SortingMachine4Benchmark {
+
+    /**
+     * Seed for the random entries, so runs can be reproduced.
+     */
+    private static final long SEED = 24;
+
+    /**
+     * Sizes timed.
+     */
+    private static final int[] SIZES = { 1000, 10000, 100000, 1000000,
+        10000000 };
+
+    /**
+     * Largest size timed for the library's {@code SortingMachine4}, which
+     * allocates two queues per partition.
+     */
+    private static final int LIBRARY_LIMIT = 1000000;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachine4Benchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Natural order on {@code Integer}.
+     */
+    static final class IntegerLT implements Comparator<Integer> {
+
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+
+    }
+
+    /**
+     * Returns {@code n} random entries from [0, {@code range}).
+     *
+     * @param n
+     *            the number of entries
+     * @param range
+     *            one more than the largest entry
+     * @return the entries
+     */
+    static Integer[] randomEntries(int n, int range) {
+        Random random = new Random(SEED);
+        Integer[] a = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = random.nextInt(range);
+        }
+        return a;
+    }
+
+    /**
+     * Adds {@code entries} to {@code m}, changes it to extraction mode, and
+     * removes them all into {@code out}, returning the elapsed time in
+     * nanoseconds.
+     *
+     * @param m
+     *            the machine, empty and in insertion mode
+     * @param entries
+     *            the entries
+     * @param out
+     *            the entries in the order removed
+     * @return elapsed time
+     * @updates m, out
+     */
+    static long sort(SortingMachine<Integer> m, Integer[] entries,
+            Integer[] out) {
+        long start = System.nanoTime();
+        for (Integer x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        for (int i = 0; i < out.length; i++) {
+            out[i] = m.removeFirst();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Returns a new, empty library {@code SortingMachine4} on {@code Integer},
+     * whose simple name this project's {@code SortingMachine4} hides.
+     *
+     * @return the new machine
+     */
+    private static SortingMachine<Integer> librarySortingMachine4() {
+        return new components.sortingmachine.SortingMachine4<Integer>(
+                new IntegerLT());
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        out.println(Runtime.getRuntime().availableProcessors()
+                + " processors");
+        // warm up
+        Integer[] warm = randomEntries(100000, 50000);
+        sort(new SortingMachine4<Integer>(new IntegerLT(), true), warm,
+                new Integer[warm.length]);
+        sort(new SortingMachine4<Integer>(new IntegerLT(), false), warm,
+                new Integer[warm.length]);
+        for (int n : SIZES) {
+            Integer[] entries = randomEntries(n, Math.max(1, n / 2));
+            Integer[] sorted = new Integer[n];
+            long parallel = sort(
+                    new SortingMachine4<Integer>(new IntegerLT(), true),
+                    entries, sorted);
+            long sequential = sort(
+                    new SortingMachine4<Integer>(new IntegerLT(), false),
+                    entries, sorted);
+            String library = "skipped";
+            if (n <= LIBRARY_LIMIT) {
+                library = (sort(librarySortingMachine4(), entries, sorted)
+                        / NANOS_PER_MILLI) + " ms";
+            }
+            out.println("sort " + n + ": parallel "
+                    + (parallel / NANOS_PER_MILLI) + " ms, sequential "
+                    + (sequential / NANOS_PER_MILLI)
+                    + " ms, library SortingMachine4 " + library);
+        }
+        out.close();
+    }
+
+}
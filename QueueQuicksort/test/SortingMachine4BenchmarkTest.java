@@ -0,0 +1,59 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture that checks {@code SortingMachine4}, sequential and
+ * parallel, against {@code Arrays.sort} on inputs that are hard for a naive
+ * quicksort. Timings are reported by {@code SortingMachine4Benchmark}.
+ */
+public class SortingMachine4BenchmarkTest {
+
+    /**
+     * Checks that {@code SortingMachine4}, sequential and parallel, hands
+     * back {@code entries} in the order {@code Arrays.sort} gives.
+     *
+     * @param entries
+     *            the entries
+     */
+    private static void checkSorts(Integer[] entries) {
+        Integer[] expected = entries.clone();
+        Arrays.sort(expected);
+        Integer[] out = new Integer[entries.length];
+        SortingMachine4Benchmark.sort(new SortingMachine4<Integer>(
+                new SortingMachine4Benchmark.IntegerLT(), false), entries,
+                out);
+        assertEquals(Arrays.asList(expected), Arrays.asList(out));
+        SortingMachine4Benchmark.sort(new SortingMachine4<Integer>(
+                new SortingMachine4Benchmark.IntegerLT(), true), entries,
+                out);
+        assertEquals(Arrays.asList(expected), Arrays.asList(out));
+    }
+
+    /**
+     * Test random, sorted, reversed, all-equal, and two-valued inputs, at
+     * sizes around the insertion sort cutoff and large enough to fork.
+     */
+    @Test
+    public void sortsLikeArraysSort() {
+        final int[] sizes = { 0, 1, 2, 3, 16, 17, 127, 128, 1000, 20000 };
+        for (int n : sizes) {
+            Integer[] random = SortingMachine4Benchmark.randomEntries(n,
+                    Math.max(1, n));
+            checkSorts(random);
+            Integer[] sorted = random.clone();
+            Arrays.sort(sorted);
+            checkSorts(sorted);
+            Integer[] reversed = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                reversed[i] = sorted[n - 1 - i];
+            }
+            checkSorts(reversed);
+            checkSorts(SortingMachine4Benchmark.randomEntries(n, 1));
+            checkSorts(SortingMachine4Benchmark.randomEntries(n, 2));
+        }
+    }
+
+}
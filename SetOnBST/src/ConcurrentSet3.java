@@ -0,0 +1,613 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * Thread-safe {@code Set} represented as an immutable AVL tree behind an
+ * atomic root reference, with implementations of primary methods.
+ *
+ * <p>
+ * Nodes are never changed once built. An update copies the path from the root
+ * down to the node it affects, rebalancing on the way back up, and publishes
+ * the new root with a single compare-and-set; if another thread published a
+ * root first, the update is retried on the new tree. Readers never lock and
+ * never retry: {@code contains}, {@code size}, and iteration work on whichever
+ * tree was published when they started, so an iterator sees a consistent
+ * snapshot regardless of later updates.
+ *
+ * <p>
+ * The kernel methods, {@code addIfAbsent}, {@code removeIfPresent}, and
+ * {@code pollFirst} may be called concurrently. As for every {@code Set}, a
+ * caller of {@code add}, {@code remove}, or {@code removeAny} must know that
+ * its precondition holds; threads that may race on the same element should use
+ * {@code addIfAbsent}, {@code removeIfPresent}, or {@code pollFirst} instead.
+ * {@code transferFrom} is not atomic with respect to concurrent updates of
+ * {@code source}.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * IS_AVL(
+ *   n: Node
+ *  ): boolean satisfies
+ *  [the tree rooted at n satisfies the binary search tree properties with
+ *   the ordering reported by compareTo for T, including that it has no
+ *   duplicate labels]  and
+ *  [for every node m in the tree rooted at n, m.height is the number of
+ *   nodes on the longest path from m down to a leaf, m.count is the number
+ *   of nodes in the tree rooted at m, and the heights of the subtrees of m
+ *   differ by at most 1]
+ * </pre>
+ * @convention IS_AVL($this.root.value)
+ * @correspondence this = [labels of the nodes in the tree rooted at
+ *                 $this.root.value]
+ */
+public class ConcurrentSet3<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Immutable node of an AVL tree.
+     *
+     * @param <T>
+     *            type of label
+     */
+    private static final class Node<T> {
+
+        /**
+         * Data in node.
+         */
+        private final T label;
+
+        /**
+         * Left subtree, or {@code null} if empty.
+         */
+        private final Node<T> left;
+
+        /**
+         * Right subtree, or {@code null} if empty.
+         */
+        private final Node<T> right;
+
+        /**
+         * Number of nodes on the longest path from this node down to a leaf.
+         */
+        private final int height;
+
+        /**
+         * Number of nodes in the tree rooted at this node.
+         */
+        private final int count;
+
+        /**
+         * Constructor.
+         *
+         * @param label
+         *            the data in the node
+         * @param left
+         *            the left subtree, or null
+         * @param right
+         *            the right subtree, or null
+         */
+        Node(T label, Node<T> left, Node<T> right) {
+            this.label = label;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.count = 1 + count(left) + count(right);
+        }
+
+    }
+
+    /**
+     * Root of the current tree, or {@code null} if {@code this} is empty.
+     */
+    private AtomicReference<Node<T>> root;
+
+    /**
+     * Returns the height of the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root, or null
+     * @return the height, 0 for an empty tree
+     */
+    private static <T> int height(Node<T> n) {
+        int h = 0;
+        if (n != null) {
+            h = n.height;
+        }
+        return h;
+    }
+
+    /**
+     * Returns the number of nodes in the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root, or null
+     * @return the number of nodes, 0 for an empty tree
+     */
+    private static <T> int count(Node<T> n) {
+        int c = 0;
+        if (n != null) {
+            c = n.count;
+        }
+        return c;
+    }
+
+    /**
+     * Returns a new tree with root label {@code label} and subtrees
+     * {@code left} and {@code right}, rotating as needed to restore balance.
+     *
+     * @param <T>
+     *            type of label
+     * @param label
+     *            the label of the root
+     * @param left
+     *            the left subtree, or null
+     * @param right
+     *            the right subtree, or null
+     * @return the new root
+     * @requires <pre>
+     * IS_AVL(left)  and  IS_AVL(right)  and
+     * |height(left) - height(right)| <= 2  and
+     * [labels of left < label < labels of right]
+     * </pre>
+     * @ensures <pre>
+     * IS_AVL(balance)  and
+     * labels(balance) = labels(left) union {label} union labels(right)
+     * </pre>
+     */
+    private static <T> Node<T> balance(T label, Node<T> left,
+            Node<T> right) {
+        Node<T> result;
+        int diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) >= height(left.right)) {
+                result = new Node<T>(left.label, left.left,
+                        new Node<T>(label, left.right, right));
+            } else {
+                Node<T> lr = left.right;
+                result = new Node<T>(lr.label,
+                        new Node<T>(left.label, left.left, lr.left),
+                        new Node<T>(label, lr.right, right));
+            }
+        } else if (diff < -1) {
+            if (height(right.right) >= height(right.left)) {
+                result = new Node<T>(right.label,
+                        new Node<T>(label, left, right.left), right.right);
+            } else {
+                Node<T> rl = right.left;
+                result = new Node<T>(rl.label,
+                        new Node<T>(label, left, rl.left),
+                        new Node<T>(right.label, rl.right, right.right));
+            }
+        } else {
+            result = new Node<T>(label, left, right);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the label of the tree rooted at {@code n} equal to {@code x},
+     * or {@code null} if there is none.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root, or null
+     * @param x
+     *            the label to be found
+     * @return the label equal to {@code x}, or null
+     */
+    private static <T extends Comparable<T>> T find(Node<T> n, T x) {
+        Node<T> m = n;
+        int cmp = 1;
+        while (m != null && cmp != 0) {
+            cmp = x.compareTo(m.label);
+            if (cmp < 0) {
+                m = m.left;
+            } else if (cmp > 0) {
+                m = m.right;
+            }
+        }
+        T result = null;
+        if (m != null) {
+            result = m.label;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest label of the tree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root
+     * @return the smallest label
+     * @requires n /= null
+     */
+    private static <T> T smallest(Node<T> n) {
+        Node<T> m = n;
+        while (m.left != null) {
+            m = m.left;
+        }
+        return m.label;
+    }
+
+    /**
+     * Returns a new tree with the labels of the tree rooted at {@code n} and
+     * {@code x}, sharing the subtrees off the search path for {@code x}.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root, or null
+     * @param x
+     *            the label to be inserted
+     * @return the new root
+     * @requires IS_AVL(n)  and  x is not in labels(n)
+     * @ensures IS_AVL(insert)  and  labels(insert) = labels(n) union {x}
+     */
+    private static <T extends Comparable<T>> Node<T> insert(Node<T> n,
+            T x) {
+        Node<T> result;
+        if (n == null) {
+            result = new Node<T>(x, null, null);
+        } else if (x.compareTo(n.label) < 0) {
+            result = balance(n.label, insert(n.left, x), n.right);
+        } else {
+            result = balance(n.label, n.left, insert(n.right, x));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new tree with the labels of the tree rooted at {@code n}
+     * except the smallest one.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root
+     * @return the new root
+     * @requires IS_AVL(n)  and  n /= null
+     * @ensures <pre>
+     * IS_AVL(removeSmallest)  and
+     * labels(removeSmallest) = labels(n) \ {smallest(n)}
+     * </pre>
+     */
+    private static <T> Node<T> removeSmallest(Node<T> n) {
+        Node<T> result;
+        if (n.left == null) {
+            result = n.right;
+        } else {
+            result = balance(n.label, removeSmallest(n.left), n.right);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new tree with the labels of the tree rooted at {@code n}
+     * except {@code x}.
+     *
+     * @param <T>
+     *            type of label
+     * @param n
+     *            the root
+     * @param x
+     *            the label to be removed
+     * @return the new root
+     * @requires IS_AVL(n)  and  x is in labels(n)
+     * @ensures IS_AVL(delete)  and  labels(delete) = labels(n) \ {x}
+     */
+    private static <T extends Comparable<T>> Node<T> delete(Node<T> n,
+            T x) {
+        Node<T> result;
+        int cmp = x.compareTo(n.label);
+        if (cmp < 0) {
+            result = balance(n.label, delete(n.left, x), n.right);
+        } else if (cmp > 0) {
+            result = balance(n.label, n.left, delete(n.right, x));
+        } else if (n.right == null) {
+            result = n.left;
+        } else if (n.left == null) {
+            result = n.right;
+        } else {
+            /*
+             * Replace the root by its successor, taken from the right subtree
+             */
+            result = balance(smallest(n.right), n.left,
+                    removeSmallest(n.right));
+        }
+        return result;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = new AtomicReference<Node<T>>(null);
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public ConcurrentSet3() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.root.set(null);
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof ConcurrentSet3<?> : ""
+                + "Violation of: source is of dynamic type ConcurrentSet3<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * ConcurrentSet3<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        ConcurrentSet3<T> localSource = (ConcurrentSet3<T>) source;
+        this.root.set(localSource.root.getAndSet(null));
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        boolean added = this.addIfAbsent(x);
+        assert added : "Violation of: x is not in this";
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        Node<T> r;
+        T removed;
+        do {
+            r = this.root.get();
+            removed = find(r, x);
+            assert removed != null : "Violation of: x is in this";
+        } while (!this.root.compareAndSet(r, delete(r, x)));
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        T removed = this.pollFirst();
+        assert removed != null : "Violation of: this /= empty_set";
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return find(this.root.get(), x) != null;
+    }
+
+    @Override
+    public final int size() {
+        return count(this.root.get());
+    }
+
+    /**
+     * Reports the height of the tree.
+     *
+     * @return the height
+     * @ensures height = height($this.root.value)
+     */
+    final int height() {
+        return height(this.root.get());
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new ConcurrentSet3Iterator(this.root.get());
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to {@code this} if it is not already there, and reports
+     * whether it was added; safe to call while other threads add or remove
+     * {@code x}.
+     *
+     * @param x
+     *            the element to be added
+     * @return true iff {@code x} was not in {@code this}
+     * @aliases reference {@code x}
+     * @updates this
+     * @requires x is not null
+     * @ensures <pre>
+     * addIfAbsent = (x is not in #this)  and  this = #this union {x}
+     * </pre>
+     */
+    public final boolean addIfAbsent(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node<T> r;
+        boolean absent;
+        do {
+            r = this.root.get();
+            absent = find(r, x) == null;
+        } while (absent && !this.root.compareAndSet(r, insert(r, x)));
+        return absent;
+    }
+
+    /**
+     * Removes {@code x} from {@code this} if it is there, and reports whether
+     * it was removed; safe to call while other threads add or remove
+     * {@code x}.
+     *
+     * @param x
+     *            the element to be removed
+     * @return true iff {@code x} was in {@code this}
+     * @updates this
+     * @requires x is not null
+     * @ensures removeIfPresent = (x is in #this)  and  this = #this \ {x}
+     */
+    public final boolean removeIfPresent(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node<T> r;
+        boolean present;
+        do {
+            r = this.root.get();
+            present = find(r, x) != null;
+        } while (present && !this.root.compareAndSet(r, delete(r, x)));
+        return present;
+    }
+
+    /**
+     * Removes and returns the smallest element of {@code this}, or returns
+     * {@code null} if {@code this} is empty; safe to call while other threads
+     * update {@code this}.
+     *
+     * @return the smallest element, or null
+     * @updates this
+     * @ensures <pre>
+     * if #this = {} then pollFirst = null  and  this = #this
+     *  else pollFirst = [the smallest element of #this]  and
+     *       this = #this \ {pollFirst}
+     * </pre>
+     */
+    public final T pollFirst() {
+        Node<T> r;
+        T removed;
+        do {
+            r = this.root.get();
+            removed = null;
+            if (r != null) {
+                removed = smallest(r);
+            }
+        } while (r != null
+                && !this.root.compareAndSet(r, removeSmallest(r)));
+        return removed;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code ConcurrentSet3}, which visits the elements of one published tree
+     * in increasing order.
+     */
+    private final class ConcurrentSet3Iterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels and right subtrees are still to be visited, the
+         * next one on top; the path from the root to the next node has at
+         * most height(root) nodes.
+         */
+        private final Object[] stack;
+
+        /**
+         * Number of nodes in {@code stack}.
+         */
+        private int top;
+
+        /**
+         * Constructor.
+         *
+         * @param root
+         *            the root of the tree to be visited, or null
+         */
+        ConcurrentSet3Iterator(Node<T> root) {
+            this.stack = new Object[height(root)];
+            this.top = 0;
+            this.pushLeftPath(root);
+        }
+
+        /**
+         * Pushes {@code n} and the left-most path below it onto the stack.
+         *
+         * @param n
+         *            the node, or null
+         */
+        private void pushLeftPath(Node<T> n) {
+            Node<T> m = n;
+            while (m != null) {
+                this.stack[this.top] = m;
+                this.top++;
+                m = m.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.top > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.top--;
+            Node<T> n = (Node<T>) this.stack[this.top];
+            this.stack[this.top] = null;
+            this.pushLeftPath(n.right);
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,240 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of elements stored as a complete binary search tree laid out
+ * in breadth-first (Eytzinger) order in an array, for sets that are built
+ * once and then queried many times.
+ *
+ * <p>
+ * The children of the node at position k are at positions 2k and 2k+1, so
+ * there are no child links to follow: a search reads one array entry per
+ * level, and the first levels, which every search visits, sit together at the
+ * front of the array and stay in cache. The search loop computes the next
+ * position from the comparison arithmetically instead of branching on it, and
+ * always runs for the full height, so its trip count is the same for every
+ * key.
+ *
+ * <p>
+ * It provides the read-only part of the {@code Set} contract:
+ * {@code contains}, {@code size}, and iteration, in increasing order.
+ *
+ * @param <T>
+ *            type of set elements
+ * @mathmodel type Set3Eytzinger is modeled by finite set of T
+ * @initially <pre>
+ * (Iterable<T> sorted):
+ *  requires [the elements of sorted are not null and are in strictly
+ *            increasing order]
+ *  ensures this = [elements of sorted]
+ * </pre>
+ * @convention <pre>
+ * $this.tree[0] = null  and
+ * [for all k where 1 <= k < |$this.tree|, the labels at positions 2k and
+ *  2k+1 that are less than |$this.tree| are the roots of the left and right
+ *  subtrees of the node at position k]  and
+ * [the tree of positions 1 to |$this.tree| - 1 is a binary search tree with
+ *  the ordering reported by compareTo for T]
+ * </pre>
+ * @correspondence this = entries($this.tree[1, |$this.tree|))
+ */
+public final class Set3Eytzinger<T extends Comparable<T>>
+        implements Iterable<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * The elements, in breadth-first order of the tree, from position 1;
+     * position 0 is unused.
+     */
+    private final T[] tree;
+
+    /**
+     * Fills the positions of the subtree rooted at {@code k} of {@code tree}
+     * with the next elements of {@code in}, in order.
+     *
+     * @param <T>
+     *            type of elements
+     * @param tree
+     *            the array being filled
+     * @param k
+     *            the root of the subtree
+     * @param in
+     *            the source of the elements, in increasing order
+     * @updates tree, in
+     * @requires 1 <= k
+     */
+    private static <T> void fill(T[] tree, int k, Iterator<T> in) {
+        if (k < tree.length) {
+            fill(tree, 2 * k, in);
+            tree[k] = in.next();
+            fill(tree, 2 * k + 1, in);
+        }
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from the elements of {@code sorted}, e.g., a {@code Set3a}.
+     *
+     * @param sorted
+     *            the elements, in strictly increasing order
+     * @requires <pre>
+     * [the elements of sorted are not null and are in strictly increasing
+     *  order]
+     * </pre>
+     * @ensures this = [elements of sorted]
+     */
+    @SuppressWarnings("unchecked")
+    public Set3Eytzinger(Iterable<T> sorted) {
+        assert sorted != null : "Violation of: sorted is not null";
+
+        int n = 0;
+        T previous = null;
+        for (T x : sorted) {
+            assert x != null : "Violation of: elements of sorted are not null";
+            assert previous == null || previous.compareTo(x) < 0 : ""
+                    + "Violation of: elements of sorted are strictly "
+                    + "increasing";
+            previous = x;
+            n++;
+        }
+        /*
+         * With "new T[...]" in place of "(T[]) new Comparable<?>[...]" it does
+         * not compile; as shown, it results in a warning about an unchecked
+         * conversion, though it cannot fail since the array never escapes.
+         */
+        this.tree = (T[]) new Comparable<?>[n + 1];
+        fill(this.tree, 1, sorted.iterator());
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Reports whether {@code x} is in {@code this}.
+     *
+     * @param x
+     *            the element to be checked
+     * @return true iff element is in {@code this}
+     * @requires x is not null
+     * @ensures contains = (x is in this)
+     */
+    public boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        /*
+         * Descend to a missing child, going right exactly when the label is
+         * less than x; the last node at which the search went left is then
+         * the smallest label not less than x. Its position is k with the
+         * trailing 1 bits (the final run of right moves) and one more bit
+         * shifted off.
+         */
+        int k = 1;
+        while (k < this.tree.length) {
+            int right = this.tree[k].compareTo(x) >>> 31;
+            k = 2 * k + right;
+        }
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k != 0 && this.tree[k].compareTo(x) == 0;
+    }
+
+    /**
+     * Reports size (cardinality) of {@code this}.
+     *
+     * @return the number of elements in {@code this}
+     * @ensures size = |this|
+     */
+    public int size() {
+        return this.tree.length - 1;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Set3EytzingerIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3Eytzinger},
+     * which walks the implicit tree in order without a stack.
+     */
+    private final class Set3EytzingerIterator implements Iterator<T> {
+
+        /**
+         * Position of the next element, or 0 if there is none.
+         */
+        private int next;
+
+        /**
+         * No-argument constructor.
+         */
+        Set3EytzingerIterator() {
+            this.next = this.leftmost(1);
+        }
+
+        /**
+         * Returns the position of the smallest element in the subtree rooted
+         * at {@code k}, or 0 if that subtree is empty.
+         *
+         * @param k
+         *            the root of the subtree
+         * @return the position of its leftmost node
+         */
+        private int leftmost(int k) {
+            int result = 0;
+            if (k < Set3Eytzinger.this.tree.length) {
+                result = k;
+                while (2 * result < Set3Eytzinger.this.tree.length) {
+                    result = 2 * result;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != 0;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            int k = this.next;
+            if (2 * k + 1 < Set3Eytzinger.this.tree.length) {
+                this.next = this.leftmost(2 * k + 1);
+            } else {
+                /*
+                 * Climb past the ancestors of which k is in the right subtree;
+                 * the parent of the last of them is the successor, or 0
+                 */
+                int up = k;
+                while ((up & 1) == 1) {
+                    up >>>= 1;
+                }
+                this.next = up >>> 1;
+            }
+            return Set3Eytzinger.this.tree[k];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
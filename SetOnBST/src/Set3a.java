@@ -1,26 +1,57 @@
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
-import components.binarytree.BinaryTree;
-import components.binarytree.BinaryTree1;
+import components.queue.Queue;
+import components.queue.Queue1L;
 import components.set.Set;
 import components.set.SetSecondary;
+import components.sortingmachine.SortingMachine;
+import components.stack.Stack;
+import components.stack.Stack1L;
 
 /**
- * {@code Set} represented as a {@code BinaryTree} (maintained as a binary
- * search tree) of elements with implementations of primary methods.
+ * {@code Set} represented as a binary search tree of elements, built from
+ * private nodes, with implementations of primary methods.
+ *
+ * <p>
+ * Every method walks the tree iteratively through the child links of its
+ * nodes: {@code contains} only reads the nodes on the search path, without
+ * taking the tree apart, allocating, or recursing, so it is safe for any
+ * number of concurrent readers while no thread changes {@code this}.
+ *
+ * <p>
+ * Each node also records the size of its subtree, so that besides the
+ * {@code Set} methods, {@code this} answers ordered queries ({@code floor},
+ * {@code ceiling}, {@code lower}, {@code higher}, {@code rank}, and
+ * {@code select}) in time proportional to the height of the tree, and
+ * {@code subSetIterator} visits the k elements of a range in time
+ * proportional to the height plus k. The iterator visits the elements in
+ * increasing order.
+ *
+ * <p>
+ * The constructors from sorted input build a tree of minimum height in linear
+ * time, and {@code add(Set)} and {@code remove(Set)}, when given another
+ * {@code Set3a}, merge the in-order sequences of the two trees and rebuild
+ * both in time linear in their total size.
  *
  * @param <T>
  *            type of {@code Set} elements
  * @mathdefinitions <pre>
  * IS_BST(
- *   tree: binary tree of T
+ *   n: Node
  *  ): boolean satisfies
- *  [tree satisfies the binary search tree properties as described in the
- *   slides with the ordering reported by compareTo for T, including that
- *   it has no duplicate labels]
+ *  [the tree rooted at n satisfies the binary search tree properties as
+ *   described in the slides with the ordering reported by compareTo for T,
+ *   including that it has no duplicate labels]
+ * </pre>
+ * @convention <pre>
+ * IS_BST($this.root)  and
+ * [for every node n in the tree rooted at $this.root, n.count is the number
+ *  of nodes in the tree rooted at n]
  * </pre>
- * @convention IS_BST($this.tree)
- * @correspondence this = labels($this.tree)
+ * @correspondence this = [labels of the nodes in the tree rooted at $this.root]
  *
  * @author Jonathan Rhymond & Suya Dulal
  *
@@ -32,174 +63,285 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
      */
 
     /**
-     * Elements included in {@code this}.
+     * Node class for binary search tree.
+     *
+     * @param <T>
+     *            type of node labels
      */
-    private BinaryTree<T> tree;
+    private static final class Node<T> {
+
+        /**
+         * Data in node.
+         */
+        private T label;
+
+        /**
+         * Left subtree, or {@code null} if empty.
+         */
+        private Node<T> left;
+
+        /**
+         * Right subtree, or {@code null} if empty.
+         */
+        private Node<T> right;
+
+        /**
+         * Number of nodes in the subtree rooted at this node.
+         */
+        private int count;
+
+        /**
+         * Constructor of a leaf.
+         *
+         * @param label
+         *            the data in the node
+         */
+        Node(T label) {
+            this.label = label;
+            this.left = null;
+            this.right = null;
+            this.count = 1;
+        }
+
+    }
+
+    /**
+     * Root of the tree, or {@code null} if {@code this} is empty.
+     */
+    private Node<T> root;
 
     /**
-     * Returns whether {@code x} is in {@code t}.
+     * Returns the number of nodes in the tree rooted at {@code t}.
      *
      * @param <T>
-     *            type of {@code BinaryTree} labels
+     *            type of node labels
      * @param t
-     *            the {@code BinaryTree} to be searched
+     *            the root of the tree, or null
+     * @return the number of nodes
+     * @ensures count = |labels(t)|
+     */
+    private static <T> int count(Node<T> t) {
+        int c = 0;
+        if (t != null) {
+            c = t.count;
+        }
+        return c;
+    }
+
+    /**
+     * Returns whether {@code x} is in the tree rooted at {@code t}.
+     *
+     * @param <T>
+     *            type of node labels
+     * @param t
+     *            the root of the tree to be searched, or null
      * @param x
      *            the label to be searched for
      * @return true if t contains x, false otherwise
      * @requires IS_BST(t)
      * @ensures isInTree = (x is in labels(t))
      */
-    private static <T extends Comparable<T>> boolean isInTree(BinaryTree<T> t,
+    private static <T extends Comparable<T>> boolean isInTree(Node<T> t,
             T x) {
-        assert t != null : "Violation of: t is not null";
         assert x != null : "Violation of: x is not null";
 
-        boolean checker = false;
-
-        if (t.size() > 0) {
-            BinaryTree<T> left = t.newInstance();
-            BinaryTree<T> right = t.newInstance();
-            T root = t.disassemble(left, right);
-
-            if (x.compareTo(root) == 0) {
-                checker = true;
-            } else if (x.compareTo(root) < 0) {
-                checker = isInTree(left, x);
-            } else {
-                checker = isInTree(right, x);
+        Node<T> n = t;
+        int cmp = 1;
+        while (n != null && cmp != 0) {
+            cmp = x.compareTo(n.label);
+            if (cmp < 0) {
+                n = n.left;
+            } else if (cmp > 0) {
+                n = n.right;
             }
-
-            t.assemble(root, left, right);
         }
-
-        return checker;
+        return n != null;
     }
 
     /**
-     * Inserts {@code x} in {@code t}.
+     * Inserts {@code x} in the tree rooted at {@code t}, and returns its
+     * root.
      *
      * @param <T>
-     *            type of {@code BinaryTree} labels
+     *            type of node labels
      * @param t
-     *            the {@code BinaryTree} to be searched
+     *            the root of the tree, or null
      * @param x
      *            the label to be inserted
+     * @return the root of the tree
      * @aliases reference {@code x}
      * @updates t
      * @requires IS_BST(t) and x is not in labels(t)
-     * @ensures IS_BST(t) and labels(t) = labels(#t) union {x}
+     * @ensures <pre>
+     * IS_BST(insertInTree)  and
+     * labels(insertInTree) = labels(#t) union {x}
+     * </pre>
      */
-    private static <T extends Comparable<T>> void insertInTree(BinaryTree<T> t,
+    private static <T extends Comparable<T>> Node<T> insertInTree(Node<T> t,
             T x) {
-        assert t != null : "Violation of: t is not null";
         assert x != null : "Violation of: x is not null";
 
-        if (t.size() == 0) {
-            BinaryTree<T> left = t.newInstance();
-            BinaryTree<T> right = t.newInstance();
-            t.assemble(x, left, right);
-        } else {
-            BinaryTree<T> left = t.newInstance();
-            BinaryTree<T> right = t.newInstance();
-            T root = t.disassemble(left, right);
-
-            if (x.compareTo(root) < 0) {
-                insertInTree(left, x);
-            } else {
-                insertInTree(right, x);
+        Node<T> leaf = new Node<T>(x);
+        Node<T> result = leaf;
+        if (t != null) {
+            result = t;
+            Node<T> n = t;
+            boolean placed = false;
+            while (!placed) {
+                n.count++;
+                if (x.compareTo(n.label) < 0) {
+                    if (n.left == null) {
+                        n.left = leaf;
+                        placed = true;
+                    } else {
+                        n = n.left;
+                    }
+                } else {
+                    if (n.right == null) {
+                        n.right = leaf;
+                        placed = true;
+                    } else {
+                        n = n.right;
+                    }
+                }
             }
-
-            t.assemble(root, left, right);
         }
+        return result;
     }
 
     /**
-     * Removes and returns the smallest (left-most) label in {@code t}.
+     * Removes the node {@code n}, whose parent is {@code parent}, from the
+     * tree rooted at {@code t}, and returns the root of the tree. The counts
+     * of the proper ancestors of {@code n} must already have been reduced
+     * by 1.
      *
      * @param <T>
-     *            type of {@code BinaryTree} labels
+     *            type of node labels
      * @param t
-     *            the {@code BinaryTree} from which to remove the label
-     * @return the smallest label in the given {@code BinaryTree}
+     *            the root of the tree
+     * @param parent
+     *            the parent of {@code n}, or null if {@code n} is {@code t}
+     * @param n
+     *            the node to be removed
+     * @return the root of the tree
      * @updates t
-     * @requires IS_BST(t) and |t| > 0
+     * @requires <pre>
+     * IS_BST(t)  and  [n is a node of t with parent parent]  and
+     * [the counts of the proper ancestors of n are 1 less than the sizes of
+     *  their subtrees]
+     * </pre>
      * @ensures <pre>
-     * IS_BST(t)  and  removeSmallest = [the smallest label in #t]  and
-     *  labels(t) = labels(#t) \ {removeSmallest}
+     * IS_BST(unlink)  and  labels(unlink) = labels(#t) \ {n.label}
      * </pre>
      */
-    private static <T> T removeSmallest(BinaryTree<T> t) {
-        assert t != null : "Violation of: t is not null";
-        assert t.size() > 0 : "Violation of: |t| > 0";
-
-        BinaryTree<T> left = t.newInstance();
-        BinaryTree<T> right = t.newInstance();
-        T root = t.disassemble(left, right);
-
-        T smallest;
-
-        if (left.size() == 0) {
-            t.transferFrom(right);
-            smallest = root;
+    private static <T> Node<T> unlink(Node<T> t, Node<T> parent, Node<T> n) {
+        Node<T> replacement;
+        if (n.left == null) {
+            replacement = n.right;
+        } else if (n.right == null) {
+            replacement = n.left;
         } else {
-            smallest = removeSmallest(left);
-            t.assemble(root, left, right);
+            /*
+             * Two children: move the smallest label of the right subtree into
+             * n, and unlink the node it came from, which has no left child
+             */
+            Node<T> successorParent = n;
+            Node<T> successor = n.right;
+            while (successor.left != null) {
+                successor.count--;
+                successorParent = successor;
+                successor = successor.left;
+            }
+            if (successorParent == n) {
+                successorParent.right = successor.right;
+            } else {
+                successorParent.left = successor.right;
+            }
+            successor.left = n.left;
+            successor.right = n.right;
+            successor.count = n.count - 1;
+            replacement = successor;
         }
-
-        return smallest;
+        Node<T> result = t;
+        if (parent == null) {
+            result = replacement;
+        } else if (parent.left == n) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+        return result;
     }
 
     /**
-     * Finds label {@code x} in {@code t}, removes it from {@code t}, and
-     * returns it.
+     * Builds a tree of minimum height from the elements of {@code sorted} at
+     * positions {@code lo} to {@code hi - 1}, and returns its root, by making
+     * the median the root and building its subtrees the same way.
      *
      * @param <T>
-     *            type of {@code BinaryTree} labels
-     * @param t
-     *            the {@code BinaryTree} from which to remove label {@code x}
-     * @param x
-     *            the label to be removed
-     * @return the removed label
-     * @updates t
-     * @requires IS_BST(t) and x is in labels(t)
+     *            type of node labels
+     * @param sorted
+     *            the labels, in strictly increasing order
+     * @param lo
+     *            the first position
+     * @param hi
+     *            one past the last position
+     * @return the root of the tree, or null if lo = hi
+     * @requires 0 <= lo <= hi <= |sorted|
      * @ensures <pre>
-     * IS_BST(t)  and  removeFromTree = x  and
-     *  labels(t) = labels(#t) \ {x}
+     * IS_BST(build)  and  labels(build) = entries(sorted[lo, hi))  and
+     * [the tree rooted at build has minimum height]
      * </pre>
      */
-    private static <T extends Comparable<T>> T removeFromTree(BinaryTree<T> t,
-            T x) {
-        assert t != null : "Violation of: t is not null";
-        assert x != null : "Violation of: x is not null";
-        assert t.size() > 0 : "Violation of: x is in labels(t)";
-
-        BinaryTree<T> left = t.newInstance();
-        BinaryTree<T> right = t.newInstance();
-        T root = t.disassemble(left, right);
+    private static <T> Node<T> build(List<T> sorted, int lo, int hi) {
+        Node<T> result = null;
+        if (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            result = new Node<T>(sorted.get(mid));
+            result.left = build(sorted, lo, mid);
+            result.right = build(sorted, mid + 1, hi);
+            result.count = hi - lo;
+        }
+        return result;
+    }
 
-        if (x.compareTo(root) == 0) {
-            if (right.size() == 0) {
-                t.transferFrom(left);
-            } else {
-                T newRoot = removeSmallest(right);
-                t.assemble(newRoot, left, right);
-            }
-        } else if (x.compareTo(root) < 0) {
-            removeFromTree(left, x);
-            t.assemble(root, left, right);
-        } else {
-            removeFromTree(right, x);
-            t.assemble(root, left, right);
+    /**
+     * Returns the elements of {@code this} in increasing order.
+     *
+     * @return the elements
+     * @ensures entries(toSortedList) = this  and  [toSortedList is increasing]
+     */
+    private List<T> toSortedList() {
+        List<T> sorted = new ArrayList<T>(this.size());
+        for (T x : this) {
+            sorted.add(x);
         }
+        return sorted;
+    }
 
-        return x;
+    /**
+     * Reports whether {@code sorted} is in strictly increasing order.
+     *
+     * @param <T>
+     *            type of list entries
+     * @param sorted
+     *            the list
+     * @return true iff sorted is strictly increasing
+     */
+    private static <T extends Comparable<T>> boolean isIncreasing(
+            List<T> sorted) {
+        boolean increasing = true;
+        for (int i = 1; i < sorted.size() && increasing; i++) {
+            increasing = sorted.get(i - 1).compareTo(sorted.get(i)) < 0;
+        }
+        return increasing;
     }
 
     /**
      * Creator of initial representation.
      */
     private void createNewRep() {
-        this.tree = new BinaryTree1<T>();
+        this.root = null;
     }
 
     /*
@@ -213,6 +355,57 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
         this.createNewRep();
     }
 
+    /**
+     * Constructor from the elements of {@code sorted}, which builds a tree of
+     * minimum height in linear time.
+     *
+     * @param sorted
+     *            the elements, in strictly increasing order
+     * @requires <pre>
+     * [the elements of sorted are not null and are in strictly increasing
+     *  order]
+     * </pre>
+     * @ensures this = [elements of sorted]
+     */
+    public Set3a(Iterable<T> sorted) {
+        assert sorted != null : "Violation of: sorted is not null";
+
+        List<T> elements = new ArrayList<T>();
+        for (T x : sorted) {
+            elements.add(x);
+        }
+        assert isIncreasing(elements) : ""
+                + "Violation of: elements of sorted are strictly increasing";
+        this.root = build(elements, 0, elements.size());
+    }
+
+    /**
+     * Constructor from the entries of {@code m}, which removes them in order
+     * and builds a tree of minimum height in linear time.
+     *
+     * @param m
+     *            the sorting machine, in extraction mode
+     * @clears m
+     * @requires <pre>
+     * not m.insertion_mode  and
+     * [m.ordering is consistent with compareTo for T]  and
+     * [the entries of m are distinct]
+     * </pre>
+     * @ensures this = [entries of #m]
+     */
+    public Set3a(SortingMachine<T> m) {
+        assert m != null : "Violation of: m is not null";
+        assert !m.isInInsertionMode() : "Violation of: not m.insertion_mode";
+
+        List<T> elements = new ArrayList<T>(m.size());
+        while (m.size() > 0) {
+            elements.add(m.removeFirst());
+        }
+        assert isIncreasing(elements) : ""
+                + "Violation of: entries of m are distinct and in order";
+        this.root = build(elements, 0, elements.size());
+    }
+
     /*
      * Standard methods -------------------------------------------------------
      */
@@ -245,7 +438,7 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
          * the ? must be T or the call would not have compiled.
          */
         Set3a<T> localSource = (Set3a<T>) source;
-        this.tree = localSource.tree;
+        this.root = localSource.root;
         localSource.createNewRep();
     }
 
@@ -258,8 +451,7 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
         assert x != null : "Violation of: x is not null";
         assert !this.contains(x) : "Violation of: x is not in this";
 
-        insertInTree(this.tree, x);
-
+        this.root = insertInTree(this.root, x);
     }
 
     @Override
@@ -267,41 +459,487 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
         assert x != null : "Violation of: x is not null";
         assert this.contains(x) : "Violation of: x is in this";
 
-        T returnVal = removeFromTree(this.tree, x);
-
-        // This line added just to make the component compilable.
-        return returnVal;
+        Node<T> parent = null;
+        Node<T> n = this.root;
+        int cmp = x.compareTo(n.label);
+        while (cmp != 0) {
+            n.count--;
+            parent = n;
+            if (cmp < 0) {
+                n = n.left;
+            } else {
+                n = n.right;
+            }
+            cmp = x.compareTo(n.label);
+        }
+        this.root = unlink(this.root, parent, n);
+        return n.label;
     }
 
     @Override
     public final T removeAny() {
         assert this.size() > 0 : "Violation of: this /= empty_set";
 
-        T returnVal = removeSmallest(this.tree);
-
-        // This line added just to make the component compilable.
-        return returnVal;
+        Node<T> parent = null;
+        Node<T> n = this.root;
+        while (n.left != null) {
+            n.count--;
+            parent = n;
+            n = n.left;
+        }
+        this.root = unlink(this.root, parent, n);
+        return n.label;
     }
 
     @Override
     public final boolean contains(T x) {
         assert x != null : "Violation of: x is not null";
 
-        boolean isInTree = isInTree(this.tree, x);
-
-        // This line added just to make the component compilable.
-        return isInTree;
+        return isInTree(this.root, x);
     }
 
     @Override
     public final int size() {
+        return count(this.root);
+    }
+
+    /**
+     * Reports the height of the tree.
+     *
+     * @return the height
+     * @ensures height = [height of the tree rooted at $this.root]
+     */
+    final int height() {
+        int levels = 0;
+        Queue<Node<T>> level = new Queue1L<Node<T>>();
+        if (this.root != null) {
+            level.enqueue(this.root);
+        }
+        while (level.length() > 0) {
+            levels++;
+            int width = level.length();
+            for (int k = 0; k < width; k++) {
+                Node<T> n = level.dequeue();
+                if (n.left != null) {
+                    level.enqueue(n.left);
+                }
+                if (n.right != null) {
+                    level.enqueue(n.right);
+                }
+            }
+        }
+        return levels;
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    @Override
+    public final void add(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        if (s instanceof Set3a<?>) {
+            /*
+             * This cast cannot fail since s is of dynamic type Set3a<?>, and
+             * the ? must be T or the call would not have compiled.
+             */
+            Set3a<T> other = (Set3a<T>) s;
+            List<T> a = this.toSortedList();
+            List<T> b = other.toSortedList();
+            List<T> union = new ArrayList<T>(a.size() + b.size());
+            List<T> intersection = new ArrayList<T>();
+            int i = 0;
+            int j = 0;
+            while (i < a.size() || j < b.size()) {
+                int cmp;
+                if (i == a.size()) {
+                    cmp = 1;
+                } else if (j == b.size()) {
+                    cmp = -1;
+                } else {
+                    cmp = a.get(i).compareTo(b.get(j));
+                }
+                if (cmp < 0) {
+                    union.add(a.get(i));
+                    i++;
+                } else if (cmp > 0) {
+                    union.add(b.get(j));
+                    j++;
+                } else {
+                    union.add(a.get(i));
+                    intersection.add(b.get(j));
+                    i++;
+                    j++;
+                }
+            }
+            this.root = build(union, 0, union.size());
+            other.root = build(intersection, 0, intersection.size());
+        } else {
+            super.add(s);
+        }
+    }
 
-        return this.tree.size();
+    @Override
+    public final Set<T> remove(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        Set<T> result;
+        if (s instanceof Set3a<?>) {
+            /*
+             * This cast cannot fail since s is of dynamic type Set3a<?>, and
+             * the ? must be T or the call would not have compiled.
+             */
+            Set3a<T> other = (Set3a<T>) s;
+            List<T> a = this.toSortedList();
+            List<T> b = other.toSortedList();
+            List<T> difference = new ArrayList<T>(a.size());
+            List<T> intersection = new ArrayList<T>();
+            int j = 0;
+            for (T x : a) {
+                while (j < b.size() && b.get(j).compareTo(x) < 0) {
+                    j++;
+                }
+                if (j < b.size() && b.get(j).compareTo(x) == 0) {
+                    intersection.add(x);
+                } else {
+                    difference.add(x);
+                }
+            }
+            this.root = build(difference, 0, difference.size());
+            Set3a<T> removed = new Set3a<T>(intersection);
+            result = removed;
+        } else {
+            result = super.remove(s);
+        }
+        return result;
+    }
+
+    /*
+     * Ordered queries --------------------------------------------------------
+     */
+
+    /**
+     * Reports the largest element of {@code this} that is at most {@code x}.
+     *
+     * @param x
+     *            the bound
+     * @return the largest element not greater than x, or null if none
+     * @requires x is not null
+     * @ensures <pre>
+     * if there exists y: T (y is in this  and  y <= x)
+     *  then (floor is in this  and  floor <= x  and
+     *        for all y: T where (y is in this  and  y <= x) (y <= floor))
+     *  else floor = null
+     * </pre>
+     */
+    public final T floor(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        T result = null;
+        Node<T> n = this.root;
+        while (n != null) {
+            int cmp = x.compareTo(n.label);
+            if (cmp < 0) {
+                n = n.left;
+            } else {
+                result = n.label;
+                if (cmp == 0) {
+                    n = null;
+                } else {
+                    n = n.right;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports the smallest element of {@code this} that is at least
+     * {@code x}.
+     *
+     * @param x
+     *            the bound
+     * @return the smallest element not less than x, or null if none
+     * @requires x is not null
+     * @ensures <pre>
+     * if there exists y: T (y is in this  and  y >= x)
+     *  then (ceiling is in this  and  ceiling >= x  and
+     *        for all y: T where (y is in this  and  y >= x) (y >= ceiling))
+     *  else ceiling = null
+     * </pre>
+     */
+    public final T ceiling(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        T result = null;
+        Node<T> n = this.root;
+        while (n != null) {
+            int cmp = x.compareTo(n.label);
+            if (cmp > 0) {
+                n = n.right;
+            } else {
+                result = n.label;
+                if (cmp == 0) {
+                    n = null;
+                } else {
+                    n = n.left;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports the largest element of {@code this} that is less than
+     * {@code x}.
+     *
+     * @param x
+     *            the bound
+     * @return the largest element less than x, or null if none
+     * @requires x is not null
+     * @ensures <pre>
+     * if there exists y: T (y is in this  and  y < x)
+     *  then (lower is in this  and  lower < x  and
+     *        for all y: T where (y is in this  and  y < x) (y <= lower))
+     *  else lower = null
+     * </pre>
+     */
+    public final T lower(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        T result = null;
+        Node<T> n = this.root;
+        while (n != null) {
+            if (x.compareTo(n.label) <= 0) {
+                n = n.left;
+            } else {
+                result = n.label;
+                n = n.right;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports the smallest element of {@code this} that is greater than
+     * {@code x}.
+     *
+     * @param x
+     *            the bound
+     * @return the smallest element greater than x, or null if none
+     * @requires x is not null
+     * @ensures <pre>
+     * if there exists y: T (y is in this  and  y > x)
+     *  then (higher is in this  and  higher > x  and
+     *        for all y: T where (y is in this  and  y > x) (y >= higher))
+     *  else higher = null
+     * </pre>
+     */
+    public final T higher(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        T result = null;
+        Node<T> n = this.root;
+        while (n != null) {
+            if (x.compareTo(n.label) >= 0) {
+                n = n.right;
+            } else {
+                result = n.label;
+                n = n.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports the number of elements of {@code this} that are less than
+     * {@code x}; {@code x} need not be in {@code this}.
+     *
+     * @param x
+     *            the bound
+     * @return the rank of x
+     * @requires x is not null
+     * @ensures rank = |{y: T where (y is in this  and  y < x) (y)}|
+     */
+    public final int rank(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        int result = 0;
+        Node<T> n = this.root;
+        while (n != null) {
+            int cmp = x.compareTo(n.label);
+            if (cmp < 0) {
+                n = n.left;
+            } else {
+                result += count(n.left);
+                if (cmp == 0) {
+                    n = null;
+                } else {
+                    result++;
+                    n = n.right;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports the element of {@code this} with rank {@code i}, i.e., the
+     * {@code i}-th smallest, counting from 0.
+     *
+     * @param i
+     *            the rank
+     * @return the element with rank i
+     * @requires 0 <= i < |this|
+     * @ensures select is in this  and  rank(select) = i
+     */
+    public final T select(int i) {
+        assert 0 <= i : "Violation of: 0 <= i";
+        assert i < this.size() : "Violation of: i < |this|";
+
+        Node<T> n = this.root;
+        int remaining = i;
+        int leftCount = count(n.left);
+        while (remaining != leftCount) {
+            if (remaining < leftCount) {
+                n = n.left;
+            } else {
+                remaining -= leftCount + 1;
+                n = n.right;
+            }
+            leftCount = count(n.left);
+        }
+        return n.label;
+    }
+
+    /**
+     * Returns an iterator over the elements {@code y} of {@code this} with
+     * {@code from <= y < to}, in increasing order. {@code this} must not be
+     * changed while the iterator is in use.
+     *
+     * @param from
+     *            the lower bound, inclusive
+     * @param to
+     *            the upper bound, exclusive
+     * @return the iterator
+     * @requires from is not null  and  to is not null  and  from <= to
+     * @ensures <pre>
+     * [subSetIterator will visit, in increasing order, each y in this with
+     *  from <= y < to, exactly once]
+     * </pre>
+     */
+    public final Iterator<T> subSetIterator(T from, T to) {
+        assert from != null : "Violation of: from is not null";
+        assert to != null : "Violation of: to is not null";
+        assert from.compareTo(to) <= 0 : "Violation of: from <= to";
+
+        return new Set3aIterator(from, to);
     }
 
     @Override
     public final Iterator<T> iterator() {
-        return this.tree.iterator();
+        return new Set3aIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3a}, which
+     * visits the elements, or those in a range, in increasing order.
+     */
+    private final class Set3aIterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels and right subtrees are still to be visited, the
+         * next one on top.
+         */
+        private final Stack<Node<T>> pending;
+
+        /**
+         * Exclusive upper bound of the elements visited, or {@code null} for
+         * none.
+         */
+        private final T to;
+
+        /**
+         * No-argument constructor.
+         */
+        Set3aIterator() {
+            this.pending = new Stack1L<Node<T>>();
+            this.to = null;
+            this.pushLeftPath(Set3a.this.root);
+        }
+
+        /**
+         * Constructor for the elements {@code y} with {@code from <= y < to}.
+         *
+         * @param from
+         *            the lower bound, inclusive
+         * @param to
+         *            the upper bound, exclusive
+         */
+        Set3aIterator(T from, T to) {
+            this.pending = new Stack1L<Node<T>>();
+            this.to = to;
+            /*
+             * Push the nodes on the search path for from whose labels are at
+             * least from; each is followed, in order, by its right subtree
+             */
+            Node<T> n = Set3a.this.root;
+            while (n != null) {
+                if (from.compareTo(n.label) <= 0) {
+                    this.pending.push(n);
+                    n = n.left;
+                } else {
+                    n = n.right;
+                }
+            }
+        }
+
+        /**
+         * Pushes {@code n} and the left-most path below it onto
+         * {@code pending}.
+         *
+         * @param n
+         *            the node, or null
+         */
+        private void pushLeftPath(Node<T> n) {
+            Node<T> m = n;
+            while (m != null) {
+                this.pending.push(m);
+                m = m.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pending.length() > 0 && (this.to == null
+                    || this.pending.top().label.compareTo(this.to) < 0);
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node<T> n = this.pending.pop();
+            this.pushLeftPath(n.right);
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
     }
 
 }
@@ -0,0 +1,499 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as an AVL tree of elements with implementations of
+ * primary methods.
+ *
+ * <p>
+ * Unlike {@code Set3a}, whose binary search tree takes the shape dictated by
+ * the order of insertion, the tree is rebalanced by rotations after every
+ * insertion and removal, so that its height stays below 1.44 log(n+2), and
+ * {@code add}, {@code remove}, {@code removeAny}, and {@code contains} take
+ * O(log n) time even when the elements arrive in sorted order.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * IS_AVL(
+ *   n: Node
+ *  ): boolean satisfies
+ *  [the tree rooted at n satisfies the binary search tree properties with
+ *   the ordering reported by compareTo for T, including that it has no
+ *   duplicate labels]  and
+ *  [for every node m in the tree rooted at n, m.height is the number of
+ *   nodes on the longest path from m down to a leaf, and the heights of the
+ *   subtrees of m differ by at most 1]
+ * </pre>
+ * @convention <pre>
+ * IS_AVL($this.root)  and
+ * $this.size = [number of nodes in the tree rooted at $this.root]
+ * </pre>
+ * @correspondence this = [labels of the nodes in the tree rooted at $this.root]
+ */
+public class Set3b<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node class for AVL tree.
+     */
+    private final class Node {
+
+        /**
+         * Data in node.
+         */
+        private T label;
+
+        /**
+         * Left subtree, or {@code null} if empty.
+         */
+        private Node left;
+
+        /**
+         * Right subtree, or {@code null} if empty.
+         */
+        private Node right;
+
+        /**
+         * Number of nodes on the longest path from this node down to a leaf.
+         */
+        private int height;
+
+        /**
+         * Constructor of a leaf.
+         *
+         * @param label
+         *            the data in the node
+         */
+        Node(T label) {
+            this.label = label;
+            this.left = null;
+            this.right = null;
+            this.height = 1;
+        }
+
+    }
+
+    /**
+     * Root of the tree, or {@code null} if {@code this} is empty.
+     */
+    private Node root;
+
+    /**
+     * Number of elements in {@code this}.
+     */
+    private int size;
+
+    /**
+     * Label most recently removed by {@code removeSmallest} or
+     * {@code delete}, which return the new root of the subtree instead.
+     */
+    private T removedLabel;
+
+    /**
+     * Returns the height of the tree rooted at {@code n}.
+     *
+     * @param n
+     *            the root, or null
+     * @return the height, 0 for an empty tree
+     */
+    private int height(Node n) {
+        int h = 0;
+        if (n != null) {
+            h = n.height;
+        }
+        return h;
+    }
+
+    /**
+     * Recomputes the height of {@code n} from the heights of its subtrees.
+     *
+     * @param n
+     *            the node
+     * @updates n.height
+     * @ensures n.height = 1 + max(height(n.left), height(n.right))
+     */
+    private void updateHeight(Node n) {
+        n.height = 1 + Math.max(this.height(n.left), this.height(n.right));
+    }
+
+    /**
+     * Rotates the tree rooted at {@code n} to the right, and returns its new
+     * root.
+     *
+     * @param n
+     *            the root
+     * @return the new root, which was the left child of {@code n}
+     * @requires n.left /= null
+     * @ensures [the tree is rotated right, with heights of the two nodes
+     *          moved recomputed]
+     */
+    private Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = n;
+        this.updateHeight(n);
+        this.updateHeight(l);
+        return l;
+    }
+
+    /**
+     * Rotates the tree rooted at {@code n} to the left, and returns its new
+     * root.
+     *
+     * @param n
+     *            the root
+     * @return the new root, which was the right child of {@code n}
+     * @requires n.right /= null
+     * @ensures [the tree is rotated left, with heights of the two nodes moved
+     *          recomputed]
+     */
+    private Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = n;
+        this.updateHeight(n);
+        this.updateHeight(r);
+        return r;
+    }
+
+    /**
+     * Restores the balance of the tree rooted at {@code n}, whose subtrees are
+     * AVL trees with heights differing by at most 2, and returns its new root.
+     *
+     * @param n
+     *            the root
+     * @return the new root
+     * @requires <pre>
+     * IS_AVL(n.left)  and  IS_AVL(n.right)  and
+     * |height(n.left) - height(n.right)| <= 2
+     * </pre>
+     * @ensures IS_AVL(balance)  and  [labels are unchanged]
+     */
+    private Node balance(Node n) {
+        Node result = n;
+        int diff = this.height(n.left) - this.height(n.right);
+        if (diff > 1) {
+            if (this.height(n.left.left) < this.height(n.left.right)) {
+                n.left = this.rotateLeft(n.left);
+            }
+            result = this.rotateRight(n);
+        } else if (diff < -1) {
+            if (this.height(n.right.right) < this.height(n.right.left)) {
+                n.right = this.rotateRight(n.right);
+            }
+            result = this.rotateLeft(n);
+        } else {
+            this.updateHeight(n);
+        }
+        return result;
+    }
+
+    /**
+     * Inserts {@code x} in the tree rooted at {@code n}, and returns its new
+     * root.
+     *
+     * @param n
+     *            the root, or null
+     * @param x
+     *            the label to be inserted
+     * @return the new root
+     * @aliases reference {@code x}
+     * @requires IS_AVL(n)  and  x is not in labels(n)
+     * @ensures IS_AVL(insert)  and  labels(insert) = labels(#n) union {x}
+     */
+    private Node insert(Node n, T x) {
+        Node result;
+        if (n == null) {
+            result = new Node(x);
+        } else {
+            if (x.compareTo(n.label) < 0) {
+                n.left = this.insert(n.left, x);
+            } else {
+                n.right = this.insert(n.right, x);
+            }
+            result = this.balance(n);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the smallest label from the tree rooted at {@code n}, stores it
+     * in {@code removedLabel}, and returns the new root.
+     *
+     * @param n
+     *            the root
+     * @return the new root
+     * @updates $this.removedLabel
+     * @requires IS_AVL(n)  and  n /= null
+     * @ensures <pre>
+     * IS_AVL(removeSmallest)  and
+     * $this.removedLabel = [the smallest label in #n]  and
+     * labels(removeSmallest) = labels(#n) \ {$this.removedLabel}
+     * </pre>
+     */
+    private Node removeSmallest(Node n) {
+        Node result;
+        if (n.left == null) {
+            this.removedLabel = n.label;
+            result = n.right;
+        } else {
+            n.left = this.removeSmallest(n.left);
+            result = this.balance(n);
+        }
+        return result;
+    }
+
+    /**
+     * Removes {@code x} from the tree rooted at {@code n}, stores the label
+     * removed in {@code removedLabel}, and returns the new root.
+     *
+     * @param n
+     *            the root
+     * @param x
+     *            the label to be removed
+     * @return the new root
+     * @updates $this.removedLabel
+     * @requires IS_AVL(n)  and  x is in labels(n)
+     * @ensures <pre>
+     * IS_AVL(delete)  and  $this.removedLabel = x  and
+     * labels(delete) = labels(#n) \ {x}
+     * </pre>
+     */
+    private Node delete(Node n, T x) {
+        Node result;
+        int cmp = x.compareTo(n.label);
+        if (cmp < 0) {
+            n.left = this.delete(n.left, x);
+            result = this.balance(n);
+        } else if (cmp > 0) {
+            n.right = this.delete(n.right, x);
+            result = this.balance(n);
+        } else if (n.right == null) {
+            this.removedLabel = n.label;
+            result = n.left;
+        } else {
+            /*
+             * Replace the label of n by its successor, taken from the right
+             * subtree, and report the original label as removed
+             */
+            T label = n.label;
+            n.right = this.removeSmallest(n.right);
+            n.label = this.removedLabel;
+            this.removedLabel = label;
+            result = this.balance(n);
+        }
+        return result;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = null;
+        this.size = 0;
+        this.removedLabel = null;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3b() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3b<?> : ""
+                + "Violation of: source is of dynamic type Set3b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3b<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3b<T> localSource = (Set3b<T>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        this.root = this.insert(this.root, x);
+        this.size++;
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        this.root = this.delete(this.root, x);
+        this.size--;
+        T removed = this.removedLabel;
+        this.removedLabel = null;
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        this.root = this.removeSmallest(this.root);
+        this.size--;
+        T removed = this.removedLabel;
+        this.removedLabel = null;
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node n = this.root;
+        int cmp = 1;
+        while (n != null && cmp != 0) {
+            cmp = x.compareTo(n.label);
+            if (cmp < 0) {
+                n = n.left;
+            } else if (cmp > 0) {
+                n = n.right;
+            }
+        }
+        return n != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    /**
+     * Reports the height of the tree.
+     *
+     * @return the height
+     * @ensures height = height($this.root)
+     */
+    final int height() {
+        return this.height(this.root);
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set3bIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3b}, which
+     * visits the elements in increasing order.
+     */
+    private final class Set3bIterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels and right subtrees are still to be visited, the
+         * next one on top; the path from the root to the next node has at
+         * most height($this.root) nodes.
+         */
+        private final Object[] stack;
+
+        /**
+         * Number of nodes in {@code stack}.
+         */
+        private int top;
+
+        /**
+         * No-argument constructor.
+         */
+        Set3bIterator() {
+            this.stack = new Object[Set3b.this.height(Set3b.this.root)];
+            this.top = 0;
+            this.pushLeftPath(Set3b.this.root);
+        }
+
+        /**
+         * Pushes {@code n} and the left-most path below it onto the stack.
+         *
+         * @param n
+         *            the node, or null
+         */
+        private void pushLeftPath(Node n) {
+            Node m = n;
+            while (m != null) {
+                this.stack[this.top] = m;
+                this.top++;
+                m = m.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.top > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.top--;
+            Node n = (Node) this.stack[this.top];
+            this.stack[this.top] = null;
+            this.pushLeftPath(n.right);
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,246 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that reports the throughput of a 90% lookup workload at 1, 2, 4, 8,
+ * and 16 threads, for {@code ConcurrentSet3} and for {@code Set3a} behind a
+ * global lock. Scaling with the number of threads shows only on a machine
+ * with several cores.
+ */
+public final class ConcurrentSet3Benchmark {
+
+    /**
+     * Number of distinct keys operated on.
+     */
+    static final int KEYS = 4096;
+
+    /**
+     * Number of operations each thread performs in the benchmark.
+     */
+    private static final int OPS_PER_THREAD = 200000;
+
+    /**
+     * Percentage of operations that are lookups; the rest are split evenly
+     * between adds and removes.
+     */
+    private static final int LOOKUP_PERCENT = 90;
+
+    /**
+     * Thread counts timed.
+     */
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16 };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ConcurrentSet3Benchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Shared sorted set of {@code Integer} keys under test by the
+     * multi-threaded tests and the benchmark.
+     */
+    interface SharedSet {
+
+        /**
+         * Reports whether {@code x} is in the set.
+         *
+         * @param x
+         *            the key
+         * @return true iff x is in the set
+         */
+        boolean contains(Integer x);
+
+        /**
+         * Adds {@code x} to the set if it is not there.
+         *
+         * @param x
+         *            the key
+         * @return true iff x was added
+         */
+        boolean addIfAbsent(Integer x);
+
+        /**
+         * Removes {@code x} from the set if it is there.
+         *
+         * @param x
+         *            the key
+         * @return true iff x was removed
+         */
+        boolean removeIfPresent(Integer x);
+
+    }
+
+    /**
+     * {@code SharedSet} backed by a {@code ConcurrentSet3}.
+     */
+    static final class LockFree implements SharedSet {
+
+        /**
+         * The set.
+         */
+        private final ConcurrentSet3<Integer> set;
+
+        /**
+         * Constructor.
+         *
+         * @param set
+         *            the set
+         */
+        LockFree(ConcurrentSet3<Integer> set) {
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Integer x) {
+            return this.set.contains(x);
+        }
+
+        @Override
+        public boolean addIfAbsent(Integer x) {
+            return this.set.addIfAbsent(x);
+        }
+
+        @Override
+        public boolean removeIfPresent(Integer x) {
+            return this.set.removeIfPresent(x);
+        }
+
+    }
+
+    /**
+     * {@code SharedSet} backed by a {@code Set3a} behind a global lock, the
+     * arrangement {@code ConcurrentSet3} replaces.
+     */
+    private static final class Locked implements SharedSet {
+
+        /**
+         * The set, which is also the lock.
+         */
+        private final Set3a<Integer> set = new Set3a<>();
+
+        @Override
+        public boolean contains(Integer x) {
+            synchronized (this.set) {
+                return this.set.contains(x);
+            }
+        }
+
+        @Override
+        public boolean addIfAbsent(Integer x) {
+            synchronized (this.set) {
+                boolean absent = !this.set.contains(x);
+                if (absent) {
+                    this.set.add(x);
+                }
+                return absent;
+            }
+        }
+
+        @Override
+        public boolean removeIfPresent(Integer x) {
+            synchronized (this.set) {
+                boolean present = this.set.contains(x);
+                if (present) {
+                    this.set.remove(x);
+                }
+                return present;
+            }
+        }
+
+    }
+
+    /**
+     * Runs {@code opsPerThread} random operations on {@code set} on each of
+     * {@code threadCount} threads, recording in {@code net} the number of
+     * successful adds minus successful removes of each key, and returns the
+     * elapsed time in nanoseconds.
+     *
+     * @param set
+     *            the set under test
+     * @param threadCount
+     *            number of threads
+     * @param opsPerThread
+     *            number of operations each thread performs
+     * @param net
+     *            net number of times each key was added, or null
+     * @return elapsed time
+     * @updates set, net
+     */
+    static long run(final SharedSet set, int threadCount,
+            final int opsPerThread, final AtomicIntegerArray net) {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            final long seed = t;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < opsPerThread; i++) {
+                        int key = random.nextInt(KEYS);
+                        int op = random.nextInt(100);
+                        if (op < LOOKUP_PERCENT) {
+                            set.contains(key);
+                        } else if (op % 2 == 0) {
+                            if (set.addIfAbsent(key) && net != null) {
+                                net.incrementAndGet(key);
+                            }
+                        } else {
+                            if (set.removeIfPresent(key) && net != null) {
+                                net.decrementAndGet(key);
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        for (Thread th : threads) {
+            th.start();
+        }
+        for (Thread th : threads) {
+            try {
+                th.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        out.println(Runtime.getRuntime().availableProcessors()
+                + " processors");
+        // warm up
+        run(new LockFree(new ConcurrentSet3<Integer>()), 4, OPS_PER_THREAD,
+                null);
+        run(new Locked(), 4, OPS_PER_THREAD, null);
+        for (int threadCount : THREAD_COUNTS) {
+            long lockFree = run(new LockFree(new ConcurrentSet3<Integer>()),
+                    threadCount, OPS_PER_THREAD, null);
+            long locked = run(new Locked(), threadCount, OPS_PER_THREAD,
+                    null);
+            double ops = (double) threadCount * OPS_PER_THREAD;
+            out.println(String.format(
+                    "%2d threads: ConcurrentSet3 %.1f ops/us, "
+                            + "locked Set3a %.1f ops/us",
+                    threadCount, ops / (lockFree / 1000.0),
+                    ops / (locked / 1000.0)));
+        }
+        out.close();
+    }
+
+}
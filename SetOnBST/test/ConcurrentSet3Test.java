@@ -0,0 +1,119 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code ConcurrentSet3}, with
+ * multi-threaded stress tests. Throughput is reported by
+ * {@code ConcurrentSet3Benchmark}.
+ */
+public class ConcurrentSet3Test extends SetTest {
+
+    /**
+     * Number of distinct keys in the multi-threaded tests.
+     */
+    private static final int KEYS = ConcurrentSet3Benchmark.KEYS;
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new ConcurrentSet3<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Test that racing adds and removes of the same keys lose no update: each
+     * key ends up in the set exactly when it was added once more than it was
+     * removed.
+     */
+    @Test
+    public void concurrentAddRemoveSameKeys() {
+        final int threadCount = 8;
+        ConcurrentSet3<Integer> set = new ConcurrentSet3<>();
+        AtomicIntegerArray net = new AtomicIntegerArray(KEYS);
+        ConcurrentSet3Benchmark.run(
+                new ConcurrentSet3Benchmark.LockFree(set), threadCount, 50000,
+                net);
+        int expectedSize = 0;
+        for (int key = 0; key < KEYS; key++) {
+            int n = net.get(key);
+            assertTrue(n == 0 || n == 1);
+            assertEquals(n == 1, set.contains(key));
+            expectedSize += n;
+        }
+        assertEquals(expectedSize, set.size());
+        assertTrue(set.height() <= 1.45 * Math.log(expectedSize + 2)
+                / Math.log(2));
+    }
+
+    /**
+     * Test that iterators running alongside writers each see a strictly
+     * increasing snapshot, and that {@code pollFirst} hands every element to
+     * exactly one of several racing threads.
+     */
+    @Test
+    public void concurrentIterationAndPollFirst() {
+        final int threadCount = 4;
+        final ConcurrentSet3<Integer> set = new ConcurrentSet3<>();
+        for (int key = 0; key < KEYS; key += 2) {
+            set.add(key);
+        }
+        final AtomicIntegerArray polled = new AtomicIntegerArray(KEYS);
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            final int first = 2 * t + 1;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int key = first; key < KEYS; key += 2 * threadCount) {
+                        set.add(key);
+                        Iterator<Integer> it = set.iterator();
+                        int previous = -1;
+                        while (it.hasNext()) {
+                            int x = it.next();
+                            if (previous >= x) {
+                                outOfOrder.incrementAndGet();
+                            }
+                            previous = x;
+                        }
+                    }
+                    Integer x = set.pollFirst();
+                    while (x != null) {
+                        polled.incrementAndGet(x);
+                        x = set.pollFirst();
+                    }
+                }
+            }));
+        }
+        for (Thread th : threads) {
+            th.start();
+        }
+        for (Thread th : threads) {
+            try {
+                th.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+        assertEquals(0, outOfOrder.get());
+        assertEquals(0, set.size());
+        for (int key = 0; key < KEYS; key++) {
+            assertEquals(1, polled.get(key));
+        }
+    }
+
+}
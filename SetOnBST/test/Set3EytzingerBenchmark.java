@@ -0,0 +1,133 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that compares the {@code contains} throughput of
+ * {@code Set3Eytzinger} with {@code Set3a} and {@code TreeSet}, on the same
+ * random probes, half of them present, after a warm-up round.
+ */
+public final class Set3EytzingerBenchmark {
+
+    /**
+     * Set sizes timed.
+     */
+    private static final int[] SIZES = { 1000, 100000, 1000000 };
+
+    /**
+     * Number of {@code contains} calls per measurement.
+     */
+    private static final int LOOKUPS = 2000000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Set3EytzingerBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * A batch of {@code contains} calls to be timed.
+     */
+    private interface Lookup {
+
+        /**
+         * Makes the calls.
+         *
+         * @return the number of calls that returned true
+         */
+        int run();
+
+    }
+
+    /**
+     * Returns the {@code contains} calls per microsecond made by
+     * {@code lookup}.
+     *
+     * @param lookup
+     *            the lookups to time
+     * @return the throughput
+     */
+    private static double lookupsPerMicro(Lookup lookup) {
+        long start = System.nanoTime();
+        lookup.run();
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        final double nanosPerMicro = 1000;
+        return LOOKUPS * nanosPerMicro / elapsed;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        for (int n : SIZES) {
+            List<Integer> sorted = new ArrayList<Integer>(n);
+            for (int i = 0; i < n; i++) {
+                sorted.add(2 * i);
+            }
+            final Set3Eytzinger<Integer> eytzinger = new Set3Eytzinger<Integer>(
+                    sorted);
+            final Set3a<Integer> bst = new Set3a<Integer>(sorted);
+            final TreeSet<Integer> treeSet = new TreeSet<Integer>(sorted);
+            final Integer[] probes = new Integer[LOOKUPS];
+            Random random = new Random(n);
+            for (int k = 0; k < LOOKUPS; k++) {
+                probes[k] = random.nextInt(2 * n);
+            }
+            Lookup[] lookups = { new Lookup() {
+                @Override
+                public int run() {
+                    int hits = 0;
+                    for (Integer x : probes) {
+                        if (eytzinger.contains(x)) {
+                            hits++;
+                        }
+                    }
+                    return hits;
+                }
+            }, new Lookup() {
+                @Override
+                public int run() {
+                    int hits = 0;
+                    for (Integer x : probes) {
+                        if (bst.contains(x)) {
+                            hits++;
+                        }
+                    }
+                    return hits;
+                }
+            }, new Lookup() {
+                @Override
+                public int run() {
+                    int hits = 0;
+                    for (Integer x : probes) {
+                        if (treeSet.contains(x)) {
+                            hits++;
+                        }
+                    }
+                    return hits;
+                }
+            } };
+            double[] rates = new double[lookups.length];
+            for (int i = 0; i < lookups.length; i++) {
+                // warm up
+                lookupsPerMicro(lookups[i]);
+                rates[i] = lookupsPerMicro(lookups[i]);
+            }
+            out.println(String.format(
+                    "contains, %7d elements: Set3Eytzinger %.1f, "
+                            + "Set3a %.1f, TreeSet %.1f ops/us",
+                    n, rates[0], rates[1], rates[2]));
+        }
+        out.close();
+    }
+
+}
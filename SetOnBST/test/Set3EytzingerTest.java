@@ -0,0 +1,65 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code Set3Eytzinger}. Its {@code contains}
+ * throughput is compared with {@code Set3a} and {@code TreeSet} by
+ * {@code Set3EytzingerBenchmark}.
+ */
+public class Set3EytzingerTest {
+
+    /**
+     * Test contains and in-order iteration for every size up to 100, probing
+     * every element and the gaps between them.
+     */
+    @Test
+    public void smallSizes() {
+        for (int n = 0; n <= 100; n++) {
+            List<Integer> sorted = new ArrayList<Integer>();
+            for (int i = 0; i < n; i++) {
+                sorted.add(2 * i);
+            }
+            Set3Eytzinger<Integer> s = new Set3Eytzinger<Integer>(sorted);
+            assertEquals(n, s.size());
+            for (int x = -1; x <= 2 * n; x++) {
+                assertEquals(x >= 0 && x < 2 * n && x % 2 == 0,
+                        s.contains(x));
+            }
+            Iterator<Integer> it = s.iterator();
+            for (int x : sorted) {
+                assertEquals(Integer.valueOf(x), it.next());
+            }
+            assertFalse(it.hasNext());
+        }
+    }
+
+    /**
+     * Test building from a {@code Set3a}.
+     */
+    @Test
+    public void fromSet3a() {
+        Set3a<String> source = new Set3a<String>();
+        String[] words = { "pear", "apple", "fig", "kiwi", "date", "lime" };
+        for (String w : words) {
+            source.add(w);
+        }
+        Set3Eytzinger<String> s = new Set3Eytzinger<String>(source);
+        assertEquals(words.length, s.size());
+        for (String w : words) {
+            assertTrue(s.contains(w));
+        }
+        assertFalse(s.contains("plum"));
+        Iterator<String> it = s.iterator();
+        for (String w : source) {
+            assertEquals(w, it.next());
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * JUnit test fixture for {@code Set3a}'s bulk-load constructors and linear
+ * {@code add(Set)} and {@code remove(Set)}.
+ */
+public class Set3aBulkTest {
+
+    /**
+     * Number of elements bulk-loaded in the timing test.
+     */
+    private static final int LARGE = 1000000;
+
+    /**
+     * Comparator for the natural order of {@code Integer}s.
+     */
+    private static final class IntegerOrder implements Comparator<Integer> {
+
+        @Override
+        public int compare(Integer a, Integer b) {
+            return a.compareTo(b);
+        }
+
+    }
+
+    /**
+     * Returns the base-2 logarithm of {@code n + 1}, rounded up: the minimum
+     * height of a binary tree with {@code n} nodes.
+     *
+     * @param n
+     *            the number of nodes
+     * @return the minimum height
+     */
+    private static int minimumHeight(int n) {
+        return 32 - Integer.numberOfLeadingZeros(n);
+    }
+
+    /**
+     * Checks that {@code test} has exactly the elements of {@code ref}, in
+     * order, and has minimum height.
+     *
+     * @param ref
+     *            the reference set
+     * @param test
+     *            the set under test
+     */
+    private static void assertSameBalanced(NavigableSet<Integer> ref,
+            Set3a<Integer> test) {
+        assertEquals(ref.size(), test.size());
+        assertEquals(minimumHeight(ref.size()), test.height());
+        Iterator<Integer> it = test.iterator();
+        int i = 0;
+        for (int x : ref) {
+            assertEquals(Integer.valueOf(x), it.next());
+            assertEquals(i, test.rank(x));
+            assertTrue(test.contains(x));
+            i++;
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Returns a {@code Set3a} and a reference set with the same {@code n}
+     * random elements from 0 to {@code range - 1}.
+     *
+     * @param n
+     *            the number of elements
+     * @param range
+     *            the number of possible elements
+     * @param random
+     *            the source of randomness
+     * @param ref
+     *            the reference set, filled in
+     * @return the {@code Set3a}
+     * @replaces ref
+     */
+    private static Set3a<Integer> randomSet(int n, int range, Random random,
+            NavigableSet<Integer> ref) {
+        ref.clear();
+        while (ref.size() < n) {
+            ref.add(random.nextInt(range));
+        }
+        return new Set3a<Integer>(ref);
+    }
+
+    /**
+     * Test bulk loading from a sorted iterable, including 10^6 ascending
+     * elements.
+     */
+    @Test
+    public void fromSortedIterable() {
+        assertSameBalanced(new TreeSet<Integer>(),
+                new Set3a<Integer>(new ArrayList<Integer>()));
+        NavigableSet<Integer> ref = new TreeSet<Integer>();
+        for (int n = 1; n <= 100; n++) {
+            ref.add(3 * n);
+            assertSameBalanced(ref, new Set3a<Integer>(ref));
+        }
+
+        List<Integer> ascending = new ArrayList<Integer>(LARGE);
+        for (int i = 0; i < LARGE; i++) {
+            ascending.add(i);
+        }
+        Set3a<Integer> large = new Set3a<Integer>(ascending);
+        assertEquals(LARGE, large.size());
+        assertEquals(minimumHeight(LARGE), large.height());
+        assertEquals(Integer.valueOf(LARGE / 2), large.select(LARGE / 2));
+    }
+
+    /**
+     * Test bulk loading from a sorting machine in extraction mode.
+     */
+    @Test
+    public void fromSortingMachine() {
+        SortingMachine<Integer> m = new SortingMachine1L<Integer>(
+                new IntegerOrder());
+        NavigableSet<Integer> ref = new TreeSet<Integer>();
+        Random random = new Random(3);
+        final int n = 1000;
+        while (ref.size() < n) {
+            int x = random.nextInt(10 * n);
+            if (ref.add(x)) {
+                m.add(x);
+            }
+        }
+        m.changeToExtractionMode();
+        Set3a<Integer> test = new Set3a<Integer>(m);
+        assertEquals(0, m.size());
+        assertSameBalanced(ref, test);
+    }
+
+    /**
+     * Test add(Set) and remove(Set) between two {@code Set3a}s against
+     * {@code TreeSet}.
+     */
+    @Test
+    public void unionAndDifference() {
+        Random random = new Random(4);
+        final int n = 3000;
+        final int range = 8000;
+        NavigableSet<Integer> refA = new TreeSet<Integer>();
+        NavigableSet<Integer> refB = new TreeSet<Integer>();
+        Set3a<Integer> a = randomSet(n, range, random, refA);
+        Set3a<Integer> b = randomSet(n, range, random, refB);
+
+        NavigableSet<Integer> union = new TreeSet<Integer>(refA);
+        union.addAll(refB);
+        NavigableSet<Integer> intersection = new TreeSet<Integer>(refA);
+        intersection.retainAll(refB);
+        a.add(b);
+        assertSameBalanced(union, a);
+        assertSameBalanced(intersection, b);
+
+        a = randomSet(n, range, random, refA);
+        b = randomSet(n, range, random, refB);
+        NavigableSet<Integer> difference = new TreeSet<Integer>(refA);
+        difference.removeAll(refB);
+        intersection = new TreeSet<Integer>(refA);
+        intersection.retainAll(refB);
+        Set<Integer> removed = a.remove(b);
+        assertSameBalanced(difference, a);
+        assertSameBalanced(refB, b);
+        assertTrue(removed instanceof Set3a<?>);
+        assertSameBalanced(intersection, (Set3a<Integer>) removed);
+    }
+
+    /**
+     * Test that add(Set) and remove(Set) still work with another kind of
+     * {@code Set}.
+     */
+    @Test
+    public void mixedImplementations() {
+        Set3a<Integer> a = new Set3a<Integer>();
+        Set<Integer> b = new Set1L<Integer>();
+        for (int i = 0; i < 20; i++) {
+            a.add(i);
+            b.add(i + 10);
+        }
+        Set<Integer> removed = a.remove(b);
+        assertEquals(10, a.size());
+        assertEquals(10, removed.size());
+        a.add(b);
+        assertEquals(30, a.size());
+        assertEquals(0, b.size());
+    }
+
+}
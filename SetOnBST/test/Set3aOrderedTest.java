@@ -0,0 +1,150 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code Set3a}'s ordered queries, checked against
+ * {@code java.util.TreeSet}.
+ */
+public class Set3aOrderedTest {
+
+    /**
+     * Number of elements in the sets under test.
+     */
+    private static final int N = 2000;
+
+    /**
+     * Elements are drawn from 0 to {@code RANGE - 1}.
+     */
+    private static final int RANGE = 5000;
+
+    /**
+     * Fills {@code test} and {@code ref} with the same {@code N} random
+     * elements.
+     *
+     * @param test
+     *            the set under test
+     * @param ref
+     *            the reference set
+     * @param random
+     *            the source of randomness
+     */
+    private static void fill(Set3a<Integer> test, NavigableSet<Integer> ref,
+            Random random) {
+        while (ref.size() < N) {
+            int x = random.nextInt(RANGE);
+            if (ref.add(x)) {
+                test.add(x);
+            }
+        }
+    }
+
+    /**
+     * Checks every ordered query of {@code test} against {@code ref}, for
+     * every possible argument.
+     *
+     * @param test
+     *            the set under test
+     * @param ref
+     *            the reference set
+     */
+    private static void assertSameOrder(Set3a<Integer> test,
+            NavigableSet<Integer> ref) {
+        assertEquals(ref.size(), test.size());
+        for (int x = -1; x <= RANGE; x++) {
+            assertEquals(ref.floor(x), test.floor(x));
+            assertEquals(ref.ceiling(x), test.ceiling(x));
+            assertEquals(ref.lower(x), test.lower(x));
+            assertEquals(ref.higher(x), test.higher(x));
+            assertEquals(ref.headSet(x).size(), test.rank(x));
+        }
+        int i = 0;
+        for (int x : ref) {
+            assertEquals(Integer.valueOf(x), test.select(i));
+            i++;
+        }
+        Iterator<Integer> it = test.iterator();
+        for (int x : ref) {
+            assertEquals(Integer.valueOf(x), it.next());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Test the ordered queries on random elements, then again after removing
+     * half of them.
+     */
+    @Test
+    public void queriesMatchTreeSet() {
+        Random random = new Random(1);
+        Set3a<Integer> test = new Set3a<Integer>();
+        NavigableSet<Integer> ref = new TreeSet<Integer>();
+        fill(test, ref, random);
+        assertSameOrder(test, ref);
+
+        for (int k = 0; k < N / 2; k++) {
+            if (k % 2 == 0) {
+                int x = ref.ceiling(random.nextInt(RANGE));
+                assertEquals(Integer.valueOf(x), test.remove(x));
+                ref.remove(x);
+            } else {
+                assertEquals(ref.pollFirst(), test.removeAny());
+            }
+        }
+        assertSameOrder(test, ref);
+    }
+
+    /**
+     * Test that range iteration visits exactly the elements in the range, in
+     * order.
+     */
+    @Test
+    public void subSetIteratorMatchesTreeSet() {
+        Random random = new Random(2);
+        Set3a<Integer> test = new Set3a<Integer>();
+        NavigableSet<Integer> ref = new TreeSet<Integer>();
+        fill(test, ref, random);
+        final int queries = 500;
+        for (int k = 0; k < queries; k++) {
+            int from = random.nextInt(RANGE + 2) - 1;
+            int to = from + random.nextInt(RANGE / 10);
+            Iterator<Integer> it = test.subSetIterator(from, to);
+            for (int x : ref.subSet(from, true, to, false)) {
+                assertEquals(Integer.valueOf(x), it.next());
+            }
+            assertFalse(it.hasNext());
+        }
+    }
+
+    /**
+     * Test the queries on an empty set and on ascending insertions, which
+     * give a tree that is a single path.
+     */
+    @Test
+    public void emptyAndDegenerate() {
+        Set3a<Integer> empty = new Set3a<Integer>();
+        assertEquals(null, empty.floor(0));
+        assertEquals(null, empty.ceiling(0));
+        assertEquals(0, empty.rank(0));
+        assertFalse(empty.subSetIterator(0, 10).hasNext());
+
+        Set3a<Integer> path = new Set3a<Integer>();
+        NavigableSet<Integer> ref = new TreeSet<Integer>();
+        for (int x = 0; x < RANGE; x += 3) {
+            path.add(x);
+            ref.add(x);
+        }
+        for (int x = -1; x <= RANGE; x++) {
+            assertEquals(ref.floor(x), path.floor(x));
+            assertEquals(ref.headSet(x).size(), path.rank(x));
+        }
+        assertEquals(Integer.valueOf(RANGE - 2), path.select(ref.size() - 1));
+    }
+
+}
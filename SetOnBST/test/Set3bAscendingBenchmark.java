@@ -0,0 +1,69 @@
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that compares the time {@code Set3b} and {@code Set3a} take to add
+ * ascending keys, which degenerate an unbalanced binary search tree into a
+ * list.
+ */
+public final class Set3bAscendingBenchmark {
+
+    /**
+     * Number of ascending keys inserted into {@code Set3b}.
+     */
+    private static final int BALANCED_SIZE = 1000000;
+
+    /**
+     * Sizes at which {@code Set3a} is measured; each insertion costs it time
+     * linear in the size, so 10^6 keys would take most of an hour.
+     */
+    private static final int[] UNBALANCED_SIZES = { 1000, 2000, 4000, 8000 };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Set3bAscendingBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Adds the keys {@code 0} to {@code n - 1}, in that order, to {@code s},
+     * and reports the elapsed time in milliseconds.
+     *
+     * @param s
+     *            the set
+     * @param n
+     *            the number of keys
+     * @return the elapsed time
+     * @updates s
+     */
+    private static long millisToAddAscending(Set<Integer> s, int n) {
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            s.add(i);
+        }
+        final long nanosPerMilli = 1000000;
+        return (System.nanoTime() - start) / nanosPerMilli;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        for (int n : UNBALANCED_SIZES) {
+            long millis = millisToAddAscending(new Set3a<Integer>(), n);
+            out.println("Set3a, " + n + " ascending adds: " + millis + " ms");
+        }
+        Set3b<Integer> balanced = new Set3b<Integer>();
+        long millis = millisToAddAscending(balanced, BALANCED_SIZE);
+        out.println("Set3b, " + BALANCED_SIZE + " ascending adds: " + millis
+                + " ms, height " + balanced.height());
+        out.close();
+    }
+
+}
@@ -0,0 +1,48 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code Set3b} on ascending keys, which degenerate an
+ * unbalanced binary search tree into a list. Insertion times are compared
+ * with {@code Set3a} by {@code Set3bAscendingBenchmark}.
+ */
+public class Set3bAscendingTest {
+
+    /**
+     * Number of ascending keys inserted into {@code Set3b}.
+     */
+    private static final int BALANCED_SIZE = 1000000;
+
+    /**
+     * Test that 10^6 ascending keys keep {@code Set3b} within the AVL height
+     * bound, and that iteration and removal still work on the result.
+     */
+    @Test
+    public void ascendingInsertion() {
+        Set3b<Integer> balanced = new Set3b<Integer>();
+        for (int i = 0; i < BALANCED_SIZE; i++) {
+            balanced.add(i);
+        }
+        assertEquals(BALANCED_SIZE, balanced.size());
+        final double avlBound = 1.4405;
+        assertTrue(balanced.height() <= avlBound
+                * Math.log(BALANCED_SIZE + 2) / Math.log(2));
+        int expected = 0;
+        for (int x : balanced) {
+            assertEquals(expected, x);
+            expected++;
+        }
+        for (int i = 0; i < BALANCED_SIZE; i += 2) {
+            assertEquals(Integer.valueOf(i), balanced.remove(i));
+        }
+        assertTrue(balanced.height() <= avlBound
+                * Math.log(balanced.size() + 2) / Math.log(2));
+        while (balanced.size() > 0) {
+            int x = balanced.removeAny();
+            assertEquals(1, x % 2);
+        }
+    }
+
+}
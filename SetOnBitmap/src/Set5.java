@@ -0,0 +1,385 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set<Integer>} of non-negative integers represented as a bitmap, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * Bit i of the bitmap is set exactly when i is in {@code this}, so an element
+ * costs one bit of the range up to the largest element rather than a boxed
+ * {@code Integer} and a node; this suits dense sets of small IDs. The bitmap
+ * grows as needed. When the argument is another {@code Set5},
+ * {@code add(Set)}, {@code remove(Set)}, and {@code retain} combine the two
+ * bitmaps a 64-bit word at a time, and recompute the size with one popcount
+ * per word.
+ *
+ * @mathdefinitions <pre>
+ * BIT(
+ *   words: string of integer,
+ *   i: integer
+ *  ): boolean satisfies
+ *  [bit i mod 64 of words[i / 64, i / 64 + 1) is 1, and i / 64 < |words|]
+ * </pre>
+ * @convention <pre>
+ * |$this.words| > 0  and
+ * $this.size = |{i: integer where (i >= 0  and  BIT($this.words, i)) (i)}|
+ * and
+ * 0 <= $this.lowestWord  and
+ * [every word of $this.words before position $this.lowestWord is 0]
+ * </pre>
+ * @correspondence this = {i: integer where (BIT($this.words, i)) (i)}
+ */
+public class Set5 extends SetSecondary<Integer> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of elements the bitmap can hold before it grows.
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Number of bits in a word.
+     */
+    private static final int WORD_BITS = 64;
+
+    /**
+     * log2(WORD_BITS): shift from an element to the index of its word.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * The bitmap.
+     */
+    private long[] words;
+
+    /**
+     * Number of elements in {@code this}.
+     */
+    private int size;
+
+    /**
+     * Position of a word at or before the first non-zero word, so that
+     * {@code removeAny} need not rescan the empty words at the front.
+     */
+    private int lowestWord;
+
+    /**
+     * Returns the number of elements in {@code words}, counted a word at a
+     * time.
+     *
+     * @param words
+     *            the bitmap
+     * @return the number of bits set
+     */
+    private static int popcount(long[] words) {
+        int count = 0;
+        for (long w : words) {
+            count += Long.bitCount(w);
+        }
+        return count;
+    }
+
+    /**
+     * Makes the bitmap large enough to hold the word at position
+     * {@code wordIndex}.
+     *
+     * @param wordIndex
+     *            the position of the word
+     * @updates $this.words
+     * @ensures |$this.words| > wordIndex  and  this = #this
+     */
+    private void ensureWord(int wordIndex) {
+        if (wordIndex >= this.words.length) {
+            this.words = Arrays.copyOf(this.words,
+                    Math.max(wordIndex + 1, 2 * this.words.length));
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            number of elements the bitmap can hold before it grows
+     */
+    private void createNewRep(int capacity) {
+        this.words = new long[Math.max(1,
+                (capacity + WORD_BITS - 1) >>> WORD_SHIFT)];
+        this.size = 0;
+        this.lowestWord = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set5() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor resulting in a bitmap large enough to hold the elements
+     * {@code 0} to {@code capacity - 1} without growing.
+     *
+     * @param capacity
+     *            the number of elements held without growing
+     * @requires capacity >= 0
+     * @ensures this = {}
+     */
+    public Set5(int capacity) {
+        assert capacity >= 0 : "Violation of: capacity >= 0";
+
+        this.createNewRep(capacity);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final Set<Integer> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public final void transferFrom(Set<Integer> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set5 : ""
+                + "Violation of: source is of dynamic type Set5";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        Set5 localSource = (Set5) source;
+        this.words = localSource.words;
+        this.size = localSource.size;
+        this.lowestWord = localSource.lowestWord;
+        localSource.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(Integer x) {
+        assert x != null : "Violation of: x is not null";
+        assert x >= 0 : "Violation of: x >= 0";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        int i = x;
+        int wordIndex = i >>> WORD_SHIFT;
+        this.ensureWord(wordIndex);
+        this.words[wordIndex] |= 1L << i;
+        this.size++;
+        if (wordIndex < this.lowestWord) {
+            this.lowestWord = wordIndex;
+        }
+    }
+
+    @Override
+    public final Integer remove(Integer x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        int i = x;
+        this.words[i >>> WORD_SHIFT] &= ~(1L << i);
+        this.size--;
+        return x;
+    }
+
+    @Override
+    public final Integer removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        while (this.words[this.lowestWord] == 0) {
+            this.lowestWord++;
+        }
+        long w = this.words[this.lowestWord];
+        int bit = Long.numberOfTrailingZeros(w);
+        this.words[this.lowestWord] = w & (w - 1);
+        this.size--;
+        return (this.lowestWord << WORD_SHIFT) + bit;
+    }
+
+    @Override
+    public final boolean contains(Integer x) {
+        assert x != null : "Violation of: x is not null";
+
+        int i = x;
+        int wordIndex = i >>> WORD_SHIFT;
+        return i >= 0 && wordIndex < this.words.length
+                && (this.words[wordIndex] & (1L << i)) != 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Integer> iterator() {
+        return new Set5Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    @Override
+    public final void add(Set<Integer> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        if (s instanceof Set5) {
+            Set5 other = (Set5) s;
+            this.ensureWord(other.words.length - 1);
+            for (int k = 0; k < other.words.length; k++) {
+                long mine = this.words[k];
+                this.words[k] = mine | other.words[k];
+                other.words[k] &= mine;
+            }
+            this.size = popcount(this.words);
+            other.size = popcount(other.words);
+            this.lowestWord = Math.min(this.lowestWord, other.lowestWord);
+        } else {
+            super.add(s);
+        }
+    }
+
+    @Override
+    public final Set<Integer> remove(Set<Integer> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        Set<Integer> result;
+        if (s instanceof Set5) {
+            Set5 other = (Set5) s;
+            Set5 removed = new Set5(this.words.length << WORD_SHIFT);
+            int shared = Math.min(this.words.length, other.words.length);
+            for (int k = 0; k < shared; k++) {
+                removed.words[k] = this.words[k] & other.words[k];
+                this.words[k] &= ~other.words[k];
+            }
+            removed.size = popcount(removed.words);
+            this.size = popcount(this.words);
+            result = removed;
+        } else {
+            result = super.remove(s);
+        }
+        return result;
+    }
+
+    /**
+     * Removes from {@code this} all elements not in {@code s}, a word at a
+     * time.
+     *
+     * @param s
+     *            the set of elements to keep
+     * @updates this
+     * @requires s is not this
+     * @ensures this = #this intersection s
+     */
+    public final void retain(Set5 s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        for (int k = 0; k < this.words.length; k++) {
+            if (k < s.words.length) {
+                this.words[k] &= s.words[k];
+            } else {
+                this.words[k] = 0;
+            }
+        }
+        this.size = popcount(this.words);
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set5}, which
+     * visits the elements in increasing order, a word at a time.
+     */
+    private final class Set5Iterator implements Iterator<Integer> {
+
+        /**
+         * Position of the word being visited.
+         */
+        private int wordIndex;
+
+        /**
+         * Bits of that word not visited yet.
+         */
+        private long remaining;
+
+        /**
+         * No-argument constructor.
+         */
+        Set5Iterator() {
+            this.wordIndex = 0;
+            this.remaining = Set5.this.words[0];
+            this.skipEmptyWords();
+        }
+
+        /**
+         * Moves to the next word with bits not visited yet, if there is one.
+         */
+        private void skipEmptyWords() {
+            while (this.remaining == 0
+                    && this.wordIndex + 1 < Set5.this.words.length) {
+                this.wordIndex++;
+                this.remaining = Set5.this.words[this.wordIndex];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining != 0;
+        }
+
+        @Override
+        public Integer next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            int bit = Long.numberOfTrailingZeros(this.remaining);
+            this.remaining &= this.remaining - 1;
+            int x = (this.wordIndex << WORD_SHIFT) + bit;
+            this.skipEmptyWords();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,199 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set5}, including its word-at-a-time
+ * bulk operations, checked against {@code java.util.TreeSet}.
+ */
+public class Set5Test extends SetTest {
+
+    /**
+     * Seed for the random sets, so failures can be reproduced.
+     */
+    private static final long SEED = 17;
+
+    /**
+     * Elements of the random sets are drawn from [0, DOMAIN).
+     */
+    private static final int DOMAIN = 1000;
+
+    @Override
+    protected final Set<Integer> constructorTest() {
+        return new Set5();
+    }
+
+    @Override
+    protected final Set<Integer> constructorRef() {
+        return new Set1L<Integer>();
+    }
+
+    /**
+     * Fills {@code s} and {@code ref} with the same random elements.
+     *
+     * @param random
+     *            source of the elements
+     * @param count
+     *            number of elements to try to add
+     * @param s
+     *            the {@code Set5} to fill
+     * @param ref
+     *            the reference set to fill
+     */
+    private static void fill(Random random, int count, Set<Integer> s,
+            java.util.Set<Integer> ref) {
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(DOMAIN);
+            if (!s.contains(x)) {
+                s.add(x);
+                ref.add(x);
+            }
+        }
+    }
+
+    /**
+     * Checks that {@code s} iterates over exactly the elements of
+     * {@code ref}, in increasing order.
+     *
+     * @param ref
+     *            the expected elements
+     * @param s
+     *            the set to check
+     */
+    private static void assertSame(java.util.Set<Integer> ref,
+            Set<Integer> s) {
+        assertEquals(ref.size(), s.size());
+        Iterator<Integer> it = s.iterator();
+        for (Integer x : ref) {
+            assertTrue(it.hasNext());
+            assertEquals(x, it.next());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public final void testIteratesInIncreasingOrder() {
+        Set<Integer> s = this.constructorTest();
+        TreeSet<Integer> ref = new TreeSet<Integer>();
+        fill(new Random(SEED), DOMAIN, s, ref);
+        assertSame(ref, s);
+    }
+
+    @Test
+    public final void testAddGrowsBitmap() {
+        Set5 s = new Set5(1);
+        s.add(0);
+        s.add(64);
+        s.add(100000);
+        assertTrue(s.contains(100000));
+        assertFalse(s.contains(99999));
+        assertFalse(s.contains(1000000));
+        assertEquals(3, s.size());
+    }
+
+    @Test
+    public final void testRemoveAnyTakesSmallest() {
+        Set<Integer> s = this.constructorTest();
+        s.add(700);
+        s.add(3);
+        s.add(130);
+        assertEquals(Integer.valueOf(3), s.removeAny());
+        assertEquals(Integer.valueOf(130), s.removeAny());
+        s.add(5);
+        assertEquals(Integer.valueOf(5), s.removeAny());
+        assertEquals(Integer.valueOf(700), s.removeAny());
+        assertEquals(0, s.size());
+    }
+
+    @Test
+    public final void testAddSetRandom() {
+        Random random = new Random(SEED);
+        for (int trial = 0; trial < 20; trial++) {
+            Set<Integer> s = new Set5();
+            Set<Integer> t = new Set5(DOMAIN / 2);
+            TreeSet<Integer> sRef = new TreeSet<Integer>();
+            TreeSet<Integer> tRef = new TreeSet<Integer>();
+            fill(random, random.nextInt(DOMAIN), s, sRef);
+            fill(random, random.nextInt(DOMAIN), t, tRef);
+            TreeSet<Integer> both = new TreeSet<Integer>(sRef);
+            both.retainAll(tRef);
+            sRef.addAll(tRef);
+
+            s.add(t);
+
+            assertSame(sRef, s);
+            assertSame(both, t);
+        }
+    }
+
+    @Test
+    public final void testRemoveSetRandom() {
+        Random random = new Random(SEED);
+        for (int trial = 0; trial < 20; trial++) {
+            Set<Integer> s = new Set5(DOMAIN / 2);
+            Set<Integer> t = new Set5();
+            TreeSet<Integer> sRef = new TreeSet<Integer>();
+            TreeSet<Integer> tRef = new TreeSet<Integer>();
+            fill(random, random.nextInt(DOMAIN), s, sRef);
+            fill(random, random.nextInt(DOMAIN), t, tRef);
+            TreeSet<Integer> both = new TreeSet<Integer>(sRef);
+            both.retainAll(tRef);
+            sRef.removeAll(tRef);
+
+            Set<Integer> removed = s.remove(t);
+
+            assertSame(sRef, s);
+            assertSame(both, removed);
+            assertEquals(tRef.size(), t.size());
+        }
+    }
+
+    @Test
+    public final void testRetainRandom() {
+        Random random = new Random(SEED);
+        for (int trial = 0; trial < 20; trial++) {
+            Set5 s = new Set5();
+            Set5 t = new Set5(DOMAIN / 4);
+            TreeSet<Integer> sRef = new TreeSet<Integer>();
+            TreeSet<Integer> tRef = new TreeSet<Integer>();
+            fill(random, random.nextInt(DOMAIN), s, sRef);
+            fill(random, random.nextInt(DOMAIN), t, tRef);
+            sRef.retainAll(tRef);
+
+            s.retain(t);
+
+            assertSame(sRef, s);
+            assertEquals(tRef.size(), t.size());
+        }
+    }
+
+    @Test
+    public final void testAddSetFromOtherImplementation() {
+        Set<Integer> s = this.constructorTest();
+        s.add(1);
+        s.add(2);
+        s.add(300);
+        Set<Integer> t = new Set1L<Integer>();
+        t.add(2);
+        t.add(4000);
+        s.add(t);
+        TreeSet<Integer> sRef = new TreeSet<Integer>();
+        sRef.add(1);
+        sRef.add(2);
+        sRef.add(300);
+        sRef.add(4000);
+        assertSame(sRef, s);
+        assertEquals(1, t.size());
+        assertTrue(t.contains(2));
+    }
+
+}
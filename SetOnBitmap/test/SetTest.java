@@ -0,0 +1,358 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.set.Set;
+
+/**
+ * JUnit test fixture for {@code Set<Integer>}'s constructor and kernel methods.
+ *
+ * @author Jonathan Rhymond & Suya Dulal
+ *
+ */
+public abstract class SetTest {
+
+    /**
+     * Invokes the appropriate {@code Set} constructor for the implementation
+     * under test and returns the result.
+     *
+     * @return the new set
+     * @ensures constructorTest = {}
+     */
+    protected abstract Set<Integer> constructorTest();
+
+    /**
+     * Invokes the appropriate {@code Set} constructor for the reference
+     * implementation and returns the result.
+     *
+     * @return the new set
+     * @ensures constructorRef = {}
+     */
+    protected abstract Set<Integer> constructorRef();
+
+    /**
+     * Creates and returns a {@code Set<Integer>} of the implementation under
+     * test type with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     * @ensures createFromArgsTest = [entries in args]
+     */
+    private Set<Integer> createFromArgsTest(Integer... args) {
+        Set<Integer> set = this.constructorTest();
+        for (Integer s : args) {
+            assert !set.contains(
+                    s) : "Violation of: every entry in args is unique";
+            set.add(s);
+        }
+        return set;
+    }
+
+    /**
+     * Creates and returns a {@code Set<Integer>} of the reference
+     * implementation type with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     * @ensures createFromArgsRef = [entries in args]
+     */
+    private Set<Integer> createFromArgsRef(Integer... args) {
+        Set<Integer> set = this.constructorRef();
+        for (Integer s : args) {
+            assert !set.contains(
+                    s) : "Violation of: every entry in args is unique";
+            set.add(s);
+        }
+        return set;
+    }
+
+    /**
+     * Tests the constructor when empty.
+     */
+    @Test
+    public final void testConstructor1() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest();
+        Set<Integer> sRef = this.createFromArgsRef();
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests the constructor when not empty.
+     */
+    @Test
+    public final void testConstructor2() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1, 2, 3);
+        Set<Integer> sRef = this.createFromArgsRef(1, 2, 3);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests adding to an empty set.
+     */
+    @Test
+    public final void testAdd1() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest();
+        Set<Integer> sRef = this.createFromArgsRef(1);
+
+        sTest.add(1);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests adding to a non-empty set.
+     */
+    @Test
+    public final void testAdd2() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1);
+        Set<Integer> sRef = this.createFromArgsRef(1, 2);
+
+        sTest.add(2);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests adding to a non-empty set.
+     */
+    @Test
+    public final void testAdd3() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1, 2);
+        Set<Integer> sRef = this.createFromArgsRef(1, 2, 3);
+
+        sTest.add(3);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests removing from a set with only one element, making an empty set.
+     */
+    @Test
+    public final void testRemove1() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1);
+        Set<Integer> sRef = this.createFromArgsRef();
+
+        sTest.remove(1);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests removing from a set with more than one element.
+     */
+    @Test
+    public final void testRemove2() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1, 2);
+        Set<Integer> sRef = this.createFromArgsRef(1);
+
+        sTest.remove(2);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests removing from a set with more than one element.
+     */
+    @Test
+    public final void testRemove3() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1, 2, 3);
+        Set<Integer> sRef = this.createFromArgsRef(1, 2);
+
+        sTest.remove(3);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests removeAny with a set with only one element, making an empty set.
+     */
+    @Test
+    public final void testRemoveAny1() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1);
+        Set<Integer> sRef = this.createFromArgsRef(1);
+
+        Integer removed = sTest.removeAny();
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sRef.contains(removed), true);
+        sRef.remove(removed);
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests removeAny with a set with more than one element.
+     */
+    @Test
+    public final void testRemoveAny2() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1, 2, 3);
+        Set<Integer> sRef = this.createFromArgsRef(1, 2, 3);
+
+        Integer removed = sTest.removeAny();
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sRef.contains(removed), true);
+        sRef.remove(removed);
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests contains method on an empty set.
+     */
+    @Test
+    public final void testContains1() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest();
+        Set<Integer> sRef = this.createFromArgsRef();
+
+        Integer item = 1;
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest.contains(item), sRef.contains(item));
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests contains method on set with more than one element.
+     */
+    @Test
+    public final void testContains2() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1, 2, 3);
+        Set<Integer> sRef = this.createFromArgsRef(1, 2, 3);
+
+        Integer item = 1;
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest.contains(item), sRef.contains(item));
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests contains method on set with more than one element.
+     */
+    @Test
+    public final void testContains3() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1, 2, 3);
+        Set<Integer> sRef = this.createFromArgsRef(1, 2, 3);
+
+        Integer item = 4;
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest.contains(item), sRef.contains(item));
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests size method on an empty set.
+     */
+    @Test
+    public final void testSize1() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest();
+        Set<Integer> sRef = this.createFromArgsRef();
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest.size(), sRef.size());
+        assertEquals(sTest, sRef);
+    }
+
+    /**
+     * Tests size method on a set with more than one element.
+     */
+    @Test
+    public final void testSize2() {
+        /*
+         * Set up variables and call method under test
+         */
+        Set<Integer> sTest = this.createFromArgsTest(1, 2, 3);
+        Set<Integer> sRef = this.createFromArgsTest(1, 2, 3);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sTest.size(), sRef.size());
+        assertEquals(sTest, sRef);
+    }
+}
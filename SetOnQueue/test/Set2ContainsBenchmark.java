@@ -0,0 +1,135 @@
+import java.util.Random;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that compares the throughput of {@code Set2.contains}, which moves
+ * the element found to the front with a single rotation of the queue, with
+ * that of the former move-to-front, which shuttled every element through a
+ * temporary queue. Run it with assertions disabled, since {@code Set2.add}
+ * otherwise checks its precondition with a linear {@code contains}, which
+ * makes building the larger sets quadratic.
+ */
+public final class Set2ContainsBenchmark {
+
+    /**
+     * Set sizes to measure.
+     */
+    private static final int[] SIZES = { 10, 100, 1000, 10000, 100000 };
+
+    /**
+     * Number of queue entries each measurement visits, approximately.
+     */
+    private static final long WORK = 5000000L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Set2ContainsBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * The former move-to-front: finds {@code x} in {@code q} and, if such
+     * exists, moves it to the front of {@code q}, by way of a new queue.
+     *
+     * @param <T>
+     *            type of {@code Queue} entries
+     * @param q
+     *            the {@code Queue} to be searched
+     * @param x
+     *            the entry to be searched for
+     * @updates q
+     * @ensures <pre>
+     * perms(q, #q)  and
+     * if <x> is substring of q
+     *  then <x> is prefix of q
+     * </pre>
+     */
+    private static <T> void copyingMoveToFront(Queue<T> q, T x) {
+        Queue<T> rest = q.newInstance();
+        boolean found = false;
+        while (q.length() > 0) {
+            T e = q.dequeue();
+            if (!found && e.equals(x)) {
+                found = true;
+            } else {
+                rest.enqueue(e);
+            }
+        }
+        if (found) {
+            q.enqueue(x);
+        }
+        q.append(rest);
+    }
+
+    /**
+     * Returns {@code contains} operations per millisecond on {@code set}, if
+     * {@code copying} is false, and otherwise the throughput of the copying
+     * move-to-front on {@code queue}, with uniformly random probes for the
+     * elements {@code 0} to {@code n - 1} of both.
+     *
+     * @param set
+     *            the set
+     * @param queue
+     *            the queue
+     * @param n
+     *            the number of elements
+     * @param copying
+     *            whether to measure the former move-to-front
+     * @return the throughput
+     */
+    private static double containsPerMilli(Set<Integer> set,
+            Queue<Integer> queue, int n, boolean copying) {
+        int ops = (int) Math.max(10, WORK / n);
+        Random random = new Random(n);
+        long start = System.nanoTime();
+        for (int k = 0; k < ops; k++) {
+            Integer x = random.nextInt(n);
+            if (copying) {
+                copyingMoveToFront(queue, x);
+            } else {
+                set.contains(x);
+            }
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        final double nanosPerMilli = 1e6;
+        return ops * nanosPerMilli / elapsed;
+    }
+
+    /**
+     * Main method; reports the throughput of both move-to-fronts across set
+     * sizes, each after a warm-up round.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        if (Set2.class.desiredAssertionStatus()) {
+            out.println("Warning: assertions are enabled; building the sets"
+                    + " will dominate the run time");
+        }
+        for (int n : SIZES) {
+            Set<Integer> set = new Set2<Integer>();
+            Queue<Integer> queue = new Queue1L<Integer>();
+            for (int i = 0; i < n; i++) {
+                set.add(i);
+                queue.enqueue(i);
+            }
+            containsPerMilli(set, queue, n, true);
+            containsPerMilli(set, queue, n, false);
+            double before = containsPerMilli(set, queue, n, true);
+            double after = containsPerMilli(set, queue, n, false);
+            out.println(String.format("Set2 contains, %6d elements: "
+                    + "copying %9.1f ops/ms, rotating %9.1f ops/ms", n,
+                    before, after));
+        }
+        out.close();
+    }
+
+}
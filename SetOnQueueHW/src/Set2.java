@@ -45,27 +45,24 @@ public class Set2<T> extends SetSecondary<T> {
     private static <T> void moveToFront(Queue<T> q, T x) {
         assert q != null : "Violation of: q is not null";
 
-        // TODO - fill in body
-        T e;
-        int size = q.length();
+        /*
+         * Find the position of x with the read-only iterator, then bring it to
+         * the front with a single rotation; a rotation of q is a permutation
+         * of it, so no other queue is needed
+         */
+        int index = 0;
         boolean found = false;
-        Queue<T> tempQ = new Queue1L<>();
-        for (int i = 0; i < size; i++) {
-            e = q.dequeue();
-            if (e.equals(x)) {
+        Iterator<T> it = q.iterator();
+        while (!found && it.hasNext()) {
+            if (it.next().equals(x)) {
                 found = true;
             } else {
-                tempQ.enqueue(e);
+                index++;
             }
         }
-        int tempSize = tempQ.length();
-        for (int i = 0; i < tempSize; i++) {
-            q.enqueue(tempQ.dequeue());
-        }
-        if (found) {
-            q.enqueue(x);
+        if (found && index > 0) {
+            q.rotate(index);
         }
-
     }
 
     /**
@@ -131,8 +128,7 @@ public class Set2<T> extends SetSecondary<T> {
         assert x != null : "Violation of: x is not null";
         assert !this.contains(x) : "Violation of: x is not in this";
 
-        // TODO - fill in body
-
+        this.elements.enqueue(x);
     }
 
     @Override
@@ -140,39 +136,28 @@ public class Set2<T> extends SetSecondary<T> {
         assert x != null : "Violation of: x is not null";
         assert this.contains(x) : "Violation of: x is in this";
 
-        // TODO - fill in body
-
-        // This line added just to make the component compilable.
-        return null;
+        moveToFront(this.elements, x);
+        return this.elements.dequeue();
     }
 
     @Override
     public final T removeAny() {
         assert this.size() > 0 : "Violation of: |this| > 0";
 
-        // TODO - fill in body
-
-        // This line added just to make the component compilable.
-        return null;
+        return this.elements.dequeue();
     }
 
     @Override
     public final boolean contains(T x) {
         assert x != null : "Violation of: x is not null";
 
-        // TODO - fill in body
-
-        // This line added just to make the component compilable.
-        return false;
+        moveToFront(this.elements, x);
+        return this.elements.length() > 0 && this.elements.front().equals(x);
     }
 
     @Override
     public final int size() {
-
-        // TODO - fill in body
-
-        // This line added just to make the component compilable.
-        return 0;
+        return this.elements.length();
     }
 
     @Override
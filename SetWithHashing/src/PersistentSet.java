@@ -0,0 +1,222 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+
+/**
+ * Immutable set represented as a {@code PersistentMap} from each element to
+ * itself, in which every update returns a new version that shares structure
+ * with the version it was made from.
+ *
+ * <p>
+ * Since a version never changes, any number of threads may read it without
+ * locking or copying, while a writer builds new versions from it. The
+ * {@code Set} adapter {@code Set6} keeps one current version and hands it out
+ * through {@code snapshot}.
+ *
+ * @param <T>
+ *            type of set elements
+ * @mathmodel type PersistentSet is modeled by finite set of T
+ * @initially <pre>
+ * empty():
+ *  ensures empty = {}
+ * </pre>
+ * @convention <pre>
+ * for all (x, y): (T, T) where ((x, y) is in $this.map) (x = y)
+ * </pre>
+ * @correspondence this = DOMAIN($this.map)
+ */
+public final class PersistentSet<T> implements Iterable<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * The empty set.
+     */
+    private static final PersistentSet<?> EMPTY = new PersistentSet<>(
+            PersistentMap.empty());
+
+    /**
+     * Map from each element to itself; an element is kept as the value as
+     * well so that {@code element} can report the instance in the set.
+     */
+    private final PersistentMap<T, T> map;
+
+    /**
+     * Constructor from a map.
+     *
+     * @param map
+     *            the map from each element to itself
+     */
+    private PersistentSet(PersistentMap<T, T> map) {
+        this.map = map;
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Returns the empty set.
+     *
+     * @param <T>
+     *            type of set elements
+     * @return the empty set
+     * @ensures empty = {}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentSet<T> empty() {
+        return (PersistentSet<T>) EMPTY;
+    }
+
+    /**
+     * Returns the set that is {@code this} with {@code x}, which is
+     * {@code this} itself if {@code x} is already in it. {@code this} is
+     * unchanged.
+     *
+     * @param x
+     *            the element
+     * @return the new set
+     * @aliases reference {@code x}
+     * @requires x is not null
+     * @ensures with = this union {x}
+     */
+    public PersistentSet<T> with(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        PersistentSet<T> result = this;
+        if (!this.map.hasKey(x)) {
+            result = new PersistentSet<T>(this.map.with(x, x));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the set that is {@code this} without {@code x}, which is
+     * {@code this} itself if {@code x} is not in it. {@code this} is
+     * unchanged.
+     *
+     * @param x
+     *            the element
+     * @return the new set
+     * @requires x is not null
+     * @ensures without = this \ {x}
+     */
+    public PersistentSet<T> without(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        PersistentSet<T> result = this;
+        PersistentMap<T, T> newMap = this.map.without(x);
+        if (newMap != this.map) {
+            result = new PersistentSet<T>(newMap);
+        }
+        return result;
+    }
+
+    /**
+     * Reports whether {@code x} is in {@code this}.
+     *
+     * @param x
+     *            the element to be checked
+     * @return true iff element is in {@code this}
+     * @requires x is not null
+     * @ensures contains = (x is in this)
+     */
+    public boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return this.map.hasKey(x);
+    }
+
+    /**
+     * Returns the element of {@code this} equal to {@code x}.
+     *
+     * @param x
+     *            the element to be found
+     * @return the element of {@code this} equal to {@code x}
+     * @requires x is in this
+     * @ensures element = x
+     */
+    public T element(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        return this.map.value(x);
+    }
+
+    /**
+     * Reports size of {@code this}.
+     *
+     * @return the number of elements in {@code this}
+     * @ensures size = |this|
+     */
+    public int size() {
+        return this.map.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PersistentSetIterator();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        boolean first = true;
+        for (T x : this) {
+            if (!first) {
+                result.append(",");
+            }
+            result.append(x);
+            first = false;
+        }
+        return result.append("}").toString();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code PersistentSet}.
+     */
+    private final class PersistentSetIterator implements Iterator<T> {
+
+        /**
+         * Iterator over the entries of the map.
+         */
+        private final Iterator<Map.Pair<T, T>> pairs;
+
+        /**
+         * No-argument constructor.
+         */
+        PersistentSetIterator() {
+            this.pairs = PersistentSet.this.map.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pairs.hasNext();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            return this.pairs.next().key();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
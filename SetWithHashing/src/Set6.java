@@ -0,0 +1,170 @@
+import java.util.Iterator;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as the current version of a {@code PersistentSet},
+ * with implementations of primary methods.
+ *
+ * <p>
+ * Every kernel update replaces the current version by a new one that shares
+ * structure with it, so {@code snapshot} can hand readers the current version
+ * in O(1) time: a reader holding a snapshot needs no lock and no copy, and
+ * never sees later updates. Iteration is over the version current when the
+ * iterator was made. Updates are not synchronized; threads that update the
+ * same {@code Set6} must coordinate among themselves, while any number of
+ * threads read snapshots.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @convention $this.current is not null
+ * @correspondence this = $this.current
+ */
+public class Set6<T> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * The current version; volatile so that a snapshot taken by one thread
+     * is the latest version published by another.
+     */
+    private volatile PersistentSet<T> current;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.current = PersistentSet.empty();
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set6() {
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor resulting in a set whose current version is
+     * {@code snapshot}.
+     *
+     * @param snapshot
+     *            the initial version
+     * @requires snapshot is not null
+     * @ensures this = snapshot
+     */
+    public Set6(PersistentSet<T> snapshot) {
+        assert snapshot != null : "Violation of: snapshot is not null";
+
+        this.current = snapshot;
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set6<?> : ""
+                + "Violation of: source is of dynamic type Set6<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set6<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set6<T> localSource = (Set6<T>) source;
+        this.current = localSource.current;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        this.current = this.current.with(x);
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        PersistentSet<T> version = this.current;
+        T removed = version.element(x);
+        this.current = version.without(x);
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        PersistentSet<T> version = this.current;
+        T removed = version.iterator().next();
+        this.current = version.without(removed);
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return this.current.contains(x);
+    }
+
+    @Override
+    public final int size() {
+        return this.current.size();
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return this.current.iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Returns the current version of {@code this}, which later updates of
+     * {@code this} leave unchanged.
+     *
+     * @return the current version
+     * @ensures snapshot = this
+     */
+    public final PersistentSet<T> snapshot() {
+        return this.current;
+    }
+
+}
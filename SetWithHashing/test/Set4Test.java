@@ -0,0 +1,219 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set4}, with a one-bucket initial
+ * hash table for the kernel tests, and tests of hashing, of draining with
+ * {@code removeAny}, and of the table {@code clear} and {@code transferFrom}
+ * leave behind.
+ */
+public class Set4Test extends SetTest {
+
+    /**
+     * Initial size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 1;
+
+    /**
+     * Maximum load factor to be used in tests.
+     */
+    private static final double TEST_LOAD_FACTOR = 1.0;
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set4<String>(TEST_HASH_TABLE_SIZE, TEST_LOAD_FACTOR);
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Element whose hash code is chosen by the test, independently of the
+     * identity used by {@code equals}.
+     */
+    private static final class Key {
+
+        /**
+         * Identity of this key.
+         */
+        private final int id;
+
+        /**
+         * Hash code reported for this key.
+         */
+        private final int hash;
+
+        /**
+         * Constructor.
+         *
+         * @param id
+         *            identity of this key
+         * @param hash
+         *            hash code reported for this key
+         */
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).id == this.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public String toString() {
+            return "Key" + this.id;
+        }
+
+    }
+
+    /**
+     * Test elements that all share one hash code, and elements with negative
+     * hash codes down to {@code Integer.MIN_VALUE}, which must still land in
+     * a bucket inside the table as it grows and shrinks.
+     */
+    @Test
+    public void collidingAndNegativeHashCodes() {
+        final int n = 200;
+        Set4<Key> s = new Set4<Key>(TEST_HASH_TABLE_SIZE, TEST_LOAD_FACTOR);
+        for (int i = 0; i < n; i++) {
+            s.add(new Key(i, -42));
+            s.add(new Key(n + i, Integer.MIN_VALUE + i));
+        }
+        assertEquals(2 * n, s.size());
+        for (int i = 0; i < n; i++) {
+            assertTrue(s.contains(new Key(i, -42)));
+            assertTrue(s.contains(new Key(n + i, Integer.MIN_VALUE + i)));
+        }
+        assertFalse(s.contains(new Key(2 * n, -42)));
+        for (int i = 0; i < n; i += 2) {
+            assertEquals(new Key(i, -42), s.remove(new Key(i, -42)));
+            s.remove(new Key(n + i, Integer.MIN_VALUE + i));
+        }
+        assertEquals(n, s.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i % 2 == 1, s.contains(new Key(i, -42)));
+            assertEquals(i % 2 == 1,
+                    s.contains(new Key(n + i, Integer.MIN_VALUE + i)));
+        }
+    }
+
+    /**
+     * Test that draining a grown set with {@code removeAny} returns every
+     * element exactly once while the table shrinks under it, leaving the
+     * rest findable after every shrink, and ends at the initial table size.
+     */
+    @Test
+    public void removeAnyDrainsAcrossShrink() {
+        final int n = 5000;
+        final int initial = 7;
+        Set4<String> s = new Set4<String>(initial, 0.75);
+        HashSet<String> remaining = new HashSet<String>();
+        for (int i = 0; i < n; i++) {
+            s.add("e" + i);
+            remaining.add("e" + i);
+        }
+        int tableSize = s.hashTableSize();
+        int shrinks = 0;
+        while (s.size() > 0) {
+            assertTrue(remaining.remove(s.removeAny()));
+            assertEquals(remaining.size(), s.size());
+            if (s.hashTableSize() != tableSize) {
+                assertTrue(s.hashTableSize() < tableSize);
+                tableSize = s.hashTableSize();
+                shrinks++;
+                for (String x : remaining) {
+                    assertTrue(s.contains(x));
+                }
+            }
+        }
+        assertTrue(remaining.isEmpty());
+        assertTrue(shrinks > 1);
+        assertEquals(initial, s.hashTableSize());
+    }
+
+    /**
+     * Test that iteration, which visits only the occupied buckets, sees every
+     * element exactly once after the table has grown and been thinned out.
+     */
+    @Test
+    public void iteratorVisitsEveryElementOnce() {
+        final int n = 5000;
+        Set4<String> s = new Set4<String>(TEST_HASH_TABLE_SIZE,
+                TEST_LOAD_FACTOR);
+        for (int i = 0; i < n; i++) {
+            s.add("e" + i);
+        }
+        for (int i = 0; i < n; i += 3) {
+            s.remove("e" + i);
+        }
+        HashSet<String> seen = new HashSet<String>();
+        for (String x : s) {
+            assertTrue(seen.add(x));
+        }
+        assertEquals(s.size(), seen.size());
+        for (String x : seen) {
+            assertTrue(s.contains(x));
+        }
+    }
+
+    /**
+     * Test that {@code clear} and {@code transferFrom} leave a grown set with
+     * an empty table of its initial size, which then works as a fresh set,
+     * and that the receiving set takes over the source's table and initial
+     * size.
+     */
+    @Test
+    public void transferFromAndClearRestoreInitialTable() {
+        final int n = 1000;
+        final int sourceInitial = 7;
+        final int targetInitial = 3;
+        Set4<String> source = new Set4<String>(sourceInitial, 0.75);
+        for (int i = 0; i < n; i++) {
+            source.add("e" + i);
+        }
+        int grown = source.hashTableSize();
+        assertTrue(grown > sourceInitial);
+
+        Set4<String> target = new Set4<String>(targetInitial, 0.75);
+        target.add("x");
+        target.transferFrom(source);
+        assertEquals(0, source.size());
+        assertEquals(sourceInitial, source.hashTableSize());
+        assertFalse(source.iterator().hasNext());
+        source.add("e0");
+        assertTrue(source.contains("e0"));
+        assertEquals(1, source.size());
+
+        assertEquals(n, target.size());
+        assertEquals(grown, target.hashTableSize());
+        assertFalse(target.contains("x"));
+        assertTrue(target.contains("e" + (n - 1)));
+
+        target.clear();
+        assertEquals(0, target.size());
+        assertEquals(sourceInitial, target.hashTableSize());
+        assertFalse(target.contains("e0"));
+        assertFalse(target.iterator().hasNext());
+        target.add("e0");
+        assertEquals(1, target.size());
+        assertTrue(target.contains("e0"));
+    }
+
+}
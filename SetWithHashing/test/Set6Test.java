@@ -0,0 +1,58 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set6}, including that snapshots
+ * are unaffected by later updates.
+ */
+public class Set6Test extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set6<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Test that a snapshot keeps its contents while the set it came from is
+     * updated.
+     */
+    @Test
+    public void snapshotUnchangedByLaterUpdates() {
+        Set6<String> s = new Set6<String>();
+        s.add("a");
+        s.add("b");
+        PersistentSet<String> before = s.snapshot();
+        s.remove("a");
+        s.add("c");
+        assertEquals(2, before.size());
+        assertTrue(before.contains("a"));
+        assertFalse(before.contains("c"));
+        assertTrue(s.contains("c"));
+        assertFalse(s.contains("a"));
+    }
+
+    /**
+     * Test that {@code with} of a present element and {@code without} of a
+     * missing one return the same version.
+     */
+    @Test
+    public void unchangedVersionsAreShared() {
+        PersistentSet<String> s = PersistentSet.<String> empty().with("a");
+        assertSame(s, s.with("a"));
+        assertSame(s, s.without("b"));
+        assertEquals("{a}", s.toString());
+    }
+
+}
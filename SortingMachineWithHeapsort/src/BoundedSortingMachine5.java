@@ -0,0 +1,529 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} that keeps only the first {@code bound} entries in
+ * order, represented as an array holding a heap of at most {@code bound}
+ * entries, with implementations of primary methods.
+ *
+ * <p>
+ * This is a variant of {@code SortingMachine}: once {@code bound} entries have
+ * been added, {@code add} keeps {@code x} only if it comes before the last
+ * entry kept, which is then dropped. So {@code this.contents} is always the
+ * {@code bound} first of the entries added (ties broken arbitrarily), and
+ * {@code removeFirst} hands them back in order. In insertion mode the heap is
+ * ordered by the reverse of {@code this.order}, so the last entry kept is at
+ * the root and each {@code add} takes O(log bound) time; the array never
+ * holds more than {@code bound} entries. With
+ * {@code bound = Integer.MAX_VALUE} it behaves as any other
+ * {@code SortingMachine}.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * SUBTREE_IS_HEAP (
+ *   a: string of T,
+ *   start: integer,
+ *   stop: integer,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  [the subtree of a (when a is interpreted as a complete binary tree) rooted
+ *   at index start and only through entry stop of a satisfies the heap
+ *   ordering property according to the relation r]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * $this.bound >= 0  and
+ * 0 <= $this.heapSize <= |$this.heap|  and
+ * $this.heapSize <= $this.bound  and
+ * for all i: integer
+ *     where (0 <= i  and  i < $this.heapSize)
+ *   ([entry at position i in $this.heap is not null])  and
+ * if $this.insertionMode then
+ *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+ *     [relation computed by $this.reverseOrder.compare method])
+ * else
+ *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *   multiset_entries($this.heap[0, $this.heapSize)))
+ * </pre>
+ */
+public class BoundedSortingMachine5<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Reverse of order, for the heap in insertion mode.
+     */
+    private Comparator<T> reverseOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Heap.
+     */
+    private T[] heap;
+
+    /**
+     * Heap size.
+     */
+    private int heapSize;
+
+    /**
+     * Largest number of entries kept.
+     */
+    private int bound;
+
+    /**
+     * Initial length of the heap array, when {@code bound} is at least this.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Given an array that represents a complete binary tree and an index
+     * referring to the root of a subtree that would be a heap except for its
+     * root, sifts the root down to turn that whole subtree into a heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= top  and  last < |array|  and
+     * [entries of array through position last are not null]  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 1, last,
+     *     [relation computed by order.compare method])  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 2, last,
+     *     [relation computed by order.compare method])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, top, last,
+     *     [relation computed by order.compare method])  and
+     * perms(array, #array)  and
+     * [the entries of array outside the subtree are the same as in #array]
+     * </pre>
+     */
+    private static <T> void siftDown(T[] array, int top, int last,
+            Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert last < array.length : "Violation of: last < |array|";
+
+        T root = array[top];
+        int hole = top;
+        int child = 2 * hole + 1;
+        while (child <= last) {
+            if (child < last
+                    && order.compare(array[child + 1], array[child]) < 0) {
+                child++;
+            }
+            if (order.compare(array[child], root) >= 0) {
+                break;
+            }
+            array[hole] = array[child];
+            hole = child;
+            child = 2 * hole + 1;
+        }
+        array[hole] = root;
+    }
+
+    /**
+     * Given an array that represents a complete binary tree that is a heap
+     * through position {@code last - 1}, sifts the entry at position
+     * {@code last} up to make it a heap through position {@code last}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= last  and  last < |array|  and
+     * [entries of array through position last are not null]  and
+     * SUBTREE_IS_HEAP(array, 0, last - 1,
+     *     [relation computed by order.compare method])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * SUBTREE_IS_HEAP(array, 0, last,
+     *     [relation computed by order.compare method])  and
+     * perms(array, #array)  and
+     * [the entries of array after position last are the same as in #array]
+     * </pre>
+     */
+    private static <T> void siftUp(T[] array, int last, Comparator<T> order) {
+        assert array != null : "Violation of: array is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= last : "Violation of: 0 <= last";
+        assert last < array.length : "Violation of: last < |array|";
+
+        T entry = array[last];
+        int hole = last;
+        while (hole > 0
+                && order.compare(entry, array[(hole - 1) / 2]) < 0) {
+            array[hole] = array[(hole - 1) / 2];
+            hole = (hole - 1) / 2;
+        }
+        array[hole] = entry;
+    }
+
+    /**
+     * Checks if the given array, through position {@code last}, is a heap
+     * according to {@code order}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param last
+     *            the index of the last entry in the heap
+     * @param order
+     *            total preorder for sorting
+     * @return true if the array through position {@code last} is a heap; false
+     *         otherwise
+     * @requires <pre>
+     * last < |array|  and
+     * [entries of array through position last are not null]
+     * </pre>
+     * @ensures <pre>
+     * isHeap = SUBTREE_IS_HEAP(array, 0, last,
+     *     [relation computed by order.compare method])
+     * </pre>
+     */
+    private static <T> boolean isHeap(T[] array, int last,
+            Comparator<T> order) {
+        boolean isHeap = true;
+        for (int i = 1; isHeap && i <= last; i++) {
+            isHeap = order.compare(array[(i - 1) / 2], array[i]) <= 0;
+        }
+        return isHeap;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.bound >= 0  and
+     * 0 <= $this.heapSize <= |$this.heap|  and
+     * $this.heapSize <= $this.bound  and
+     * for all i: integer
+     *     where (0 <= i  and  i < $this.heapSize)
+     *   ([entry at position i in $this.heap is not null])  and
+     * if $this.insertionMode then
+     *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+     *     [relation computed by $this.reverseOrder.compare method])
+     * else
+     *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
+     *     [relation computed by $this.machineOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.bound >= 0 : "Violation of: $this.bound >= 0";
+        assert 0 <= this.heapSize : "Violation of: 0 <= $this.heapSize";
+        assert this.heapSize <= this.heap.length : ""
+                + "Violation of: $this.heapSize <= |$this.heap|";
+        assert this.heapSize <= this.bound : ""
+                + "Violation of: $this.heapSize <= $this.bound";
+        for (int i = 0; i < this.heapSize; i++) {
+            assert this.heap[i] != null : ""
+                    + "Violation of: [entry at position i in $this.heap"
+                    + " is not null]";
+        }
+        Comparator<T> order = this.machineOrder;
+        if (this.insertionMode) {
+            order = this.reverseOrder;
+        }
+        assert isHeap(this.heap, this.heapSize - 1, order) : ""
+                + "Violation of: SUBTREE_IS_HEAP($this.heap, 0,"
+                + " $this.heapSize - 1, [relation computed by order])";
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method]
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * $this.heapSize = 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(final Comparator<T> order) {
+
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.reverseOrder = new Comparator<T>() {
+            @Override
+            public int compare(T o1, T o2) {
+                return order.compare(o2, o1);
+            }
+        };
+        this.heap = (T[]) (new Object[Math.min(this.bound,
+                INITIAL_CAPACITY)]);
+        this.heapSize = 0;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order and bound.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param bound
+     *            largest number of entries kept
+     * @requires bound >= 0
+     */
+    public BoundedSortingMachine5(Comparator<T> order, int bound) {
+        assert bound >= 0 : "Violation of: bound >= 0";
+
+        this.bound = bound;
+        this.createNewRep(order);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass()
+                    .getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.bound);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof BoundedSortingMachine5<?> : ""
+                + "Violation of: source is of dynamic type"
+                + " BoundedSortingMachine5<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * BoundedSortingMachine5<?>, and the ? must be T or the call would not
+         * have compiled.
+         */
+        BoundedSortingMachine5<T> localSource =
+                (BoundedSortingMachine5<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.reverseOrder = localSource.reverseOrder;
+        this.heap = localSource.heap;
+        this.heapSize = localSource.heapSize;
+        this.bound = localSource.bound;
+        localSource.createNewRep(localSource.machineOrder);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Once {@code bound} entries are kept, {@code x} replaces the last of them
+     * if it comes before it, and is dropped otherwise.
+     */
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.heapSize < this.bound) {
+            if (this.heapSize == this.heap.length) {
+                int length = (int) Math.min(2L * this.heap.length,
+                        this.bound);
+                this.heap = Arrays.copyOf(this.heap, length);
+            }
+            this.heap[this.heapSize] = x;
+            siftUp(this.heap, this.heapSize, this.reverseOrder);
+            this.heapSize++;
+        } else if (this.heapSize > 0
+                && this.machineOrder.compare(x, this.heap[0]) < 0) {
+            this.heap[0] = x;
+            siftDown(this.heap, 0, this.heapSize - 1, this.reverseOrder);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        this.insertionMode = false;
+        for (int top = this.heapSize / 2 - 1; top >= 0; top--) {
+            siftDown(this.heap, top, this.heapSize - 1, this.machineOrder);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        T first = this.heap[0];
+        this.heapSize--;
+        this.heap[0] = this.heap[this.heapSize];
+        this.heap[this.heapSize] = null;
+        if (this.heapSize > 0) {
+            siftDown(this.heap, 0, this.heapSize - 1, this.machineOrder);
+        }
+
+        assert this.conventionHolds();
+        return first;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.heapSize;
+    }
+
+    /**
+     * Reports the largest number of entries {@code this} keeps.
+     *
+     * @return the bound
+     */
+    public final int bound() {
+        assert this.conventionHolds();
+        return this.bound;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new BoundedSortingMachine5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code BoundedSortingMachine5}.
+     */
+    private final class BoundedSortingMachine5Iterator implements Iterator<T> {
+
+        /**
+         * Representation iterator count.
+         */
+        private int currentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private BoundedSortingMachine5Iterator() {
+            this.currentIndex = 0;
+            assert BoundedSortingMachine5.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            assert BoundedSortingMachine5.this.conventionHolds();
+            return this.currentIndex < BoundedSortingMachine5.this.heapSize;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = BoundedSortingMachine5.this.heap[this.currentIndex];
+            this.currentIndex++;
+            assert BoundedSortingMachine5.this.conventionHolds();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -11,6 +11,13 @@ import components.sortingmachine.SortingMachineSecondary;
  * {@code SortingMachine} represented as a {@code Queue} and an array (using an
  * embedding of heap sort), with implementations of primary methods.
  *
+ * <p>
+ * The heap is d-ary, with d chosen at construction (2 by default): the
+ * children of the entry at index i are at indices d * i + 1 through
+ * d * i + d. A larger d makes the heap shallower, so {@code removeFirst} moves
+ * fewer entries, and keeps the children of an entry next to each other in
+ * memory, at the cost of d - 1 comparisons to find the smallest of them.
+ *
  * @param <T>
  *            type of {@code SortingMachine} entries
  * @mathdefinitions <pre>
@@ -25,23 +32,26 @@ import components.sortingmachine.SortingMachineSecondary;
  *   a: string of T,
  *   start: integer,
  *   stop: integer,
- *   r: binary relation on T
+ *   r: binary relation on T,
+ *   d: integer
  *  ) : boolean is
- *  [the subtree of a (when a is interpreted as a complete binary tree) rooted
+ *  [the subtree of a (when a is interpreted as a complete d-ary tree) rooted
  *   at index start and only through entry stop of a satisfies the heap
  *   ordering property according to the relation r]
  *
  * SUBTREE_ARRAY_ENTRIES (
  *   a: string of T,
  *   start: integer,
- *   stop: integer
+ *   stop: integer,
+ *   d: integer
  *  ) : finite multiset of T is
  *  [the multiset of entries in a that belong to the subtree of a
- *   (when a is interpreted as a complete binary tree) rooted at
+ *   (when a is interpreted as a complete d-ary tree) rooted at
  *   index start and only through entry stop]
  * </pre>
  * @convention <pre>
  * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method]  and
+ * $this.arity >= 2  and
  * if $this.insertionMode then
  *   $this.heapSize = 0
  * else
@@ -50,7 +60,8 @@ import components.sortingmachine.SortingMachineSecondary;
  *       where (0 <= i  and  i < |$this.heap|)
  *     ([entry at position i in $this.heap is not null])  and
  *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
- *     [relation computed by $this.machineOrder.compare method])  and
+ *     [relation computed by $this.machineOrder.compare method],
+ *     $this.arity)  and
  *   0 <= $this.heapSize <= |$this.heap|
  * </pre>
  * @correspondence <pre>
@@ -95,40 +106,27 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     private int heapSize;
 
     /**
-     * Exchanges entries at indices {@code i} and {@code j} of {@code array}.
-     *
-     * @param <T>
-     *            type of array entries
-     * @param array
-     *            the array whose entries are to be exchanged
-     * @param i
-     *            one index
-     * @param j
-     *            the other index
-     * @updates array
-     * @requires 0 <= i < |array| and 0 <= j < |array|
-     * @ensures array = [#array with entries at indices i and j exchanged]
+     * Number of children of each interior entry of the heap.
      */
-    private static <T> void exchangeEntries(T[] array, int i, int j) {
-        assert array != null : "Violation of: array is not null";
-        assert 0 <= i : "Violation of: 0 <= i";
-        assert i < array.length : "Violation of: i < |array|";
-        assert 0 <= j : "Violation of: 0 <= j";
-        assert j < array.length : "Violation of: j < |array|";
-
-        if (i != j) {
-            T tmp = array[i];
-            array[i] = array[j];
-            array[j] = tmp;
-        }
+    private int arity;
 
-    }
+    /**
+     * Default number of children of each interior entry of the heap.
+     */
+    private static final int DEFAULT_ARITY = 2;
 
     /**
-     * Given an array that represents a complete binary tree and an index
+     * Given an array that represents a complete d-ary tree and an index
      * referring to the root of a subtree that would be a heap except for its
      * root, sifts the root down to turn that whole subtree into a heap.
      *
+     * <p>
+     * The root is lifted out, leaving a hole that is moved down to a leaf
+     * along the path of smallest children, at d - 1 comparisons per level; the
+     * old root is then put back by moving up from that leaf, which usually
+     * takes only a comparison or two because most entries of a heap are near
+     * the bottom.
+     *
      * @param <T>
      *            type of array entries
      * @param array
@@ -139,128 +137,118 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      *            the index of the last entry in the heap
      * @param order
      *            total preorder for sorting
+     * @param d
+     *            the arity of the tree
      * @updates array
      * @requires <pre>
-     * 0 <= top  and  last < |array|  and
+     * 0 <= top  and  last < |array|  and  d >= 2  and
      * for all i: integer
      *     where (0 <= i  and  i < |array|)
      *   ([entry at position i in array is not null])  and
-     * [subtree rooted at {@code top} is a complete binary tree]  and
-     * SUBTREE_IS_HEAP(array, 2 * top + 1, last,
-     *     [relation computed by order.compare method])  and
-     * SUBTREE_IS_HEAP(array, 2 * top + 2, last,
-     *     [relation computed by order.compare method])  and
+     * [subtree rooted at {@code top} is a complete d-ary tree]  and
+     * for all c: integer
+     *     where (d * top + 1 <= c  and  c <= d * top + d)
+     *   (SUBTREE_IS_HEAP(array, c, last,
+     *     [relation computed by order.compare method], d))  and
      * IS_TOTAL_PREORDER([relation computed by order.compare method])
      * </pre>
      * @ensures <pre>
      * SUBTREE_IS_HEAP(array, top, last,
-     *     [relation computed by order.compare method])  and
+     *     [relation computed by order.compare method], d)  and
      * perms(array, #array)  and
-     * SUBTREE_ARRAY_ENTRIES(array, top, last) =
-     *  SUBTREE_ARRAY_ENTRIES(#array, top, last)  and
+     * SUBTREE_ARRAY_ENTRIES(array, top, last, d) =
+     *  SUBTREE_ARRAY_ENTRIES(#array, top, last, d)  and
      * [the other entries in array are the same as in #array]
      * </pre>
      */
     private static <T> void siftDown(T[] array, int top, int last,
-            Comparator<T> order) {
+            Comparator<T> order, int d) {
         assert array != null : "Violation of: array is not null";
         assert order != null : "Violation of: order is not null";
         assert 0 <= top : "Violation of: 0 <= top";
         assert last < array.length : "Violation of: last < |array|";
+        assert d >= 2 : "Violation of: d >= 2";
         for (int i = 0; i < array.length; i++) {
             assert array[i] != null : ""
                     + "Violation of: all entries in array are not null";
         }
-        assert isHeap(array, 2 * top + 1, last, order) : ""
-                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 1, last,"
-                + " [relation computed by order.compare method])";
-        assert isHeap(array, 2 * top + 2, last, order) : ""
-                + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 2, last,"
-                + " [relation computed by order.compare method])";
+        for (int c = d * top + 1; c <= d * top + d; c++) {
+            assert isHeap(array, c, last, order, d) : ""
+                    + "Violation of: SUBTREE_IS_HEAP(array, c, last,"
+                    + " [relation computed by order.compare method], d)";
+        }
         /*
          * Impractical to check last requires clause; no need to check the other
          * requires clause, because it must be true when using the array
          * representation for a complete binary tree.
          */
 
-        // *** you must use the recursive algorithm discussed in class ***
-        int leftIndex = (2 * top) + 1;
-        int rightIndex = (2 * top) + 2;
-        if (rightIndex <= last) {
-
-            T left = array[leftIndex];
-            T right = array[rightIndex];
-
-            if (order.compare(left, right) <= 0) {
-                if (order.compare(left, array[top]) < 0) {
-                    exchangeEntries(array, leftIndex, top);
-                    siftDown(array, leftIndex, last, order);
-                }
-            } else if (order.compare(right, left) < 0) {
-                if (order.compare(right, array[top]) < 0) {
-                    exchangeEntries(array, rightIndex, top);
-                    siftDown(array, rightIndex, last, order);
+        T root = array[top];
+        // move the hole down to a leaf, promoting the smallest child each time
+        int hole = top;
+        int first = d * hole + 1;
+        while (first <= last) {
+            int smallest = first;
+            int end = Math.min(first + d - 1, last);
+            for (int c = first + 1; c <= end; c++) {
+                if (order.compare(array[c], array[smallest]) < 0) {
+                    smallest = c;
                 }
             }
-        } else if (leftIndex <= last) {
-            T left = array[leftIndex];
-            if (order.compare(left, array[top]) < 0) {
-                exchangeEntries(array, leftIndex, top);
-            }
+            array[hole] = array[smallest];
+            hole = smallest;
+            first = d * hole + 1;
+        }
+        // move the hole back up until the old root fits in it
+        while (hole > top
+                && order.compare(root, array[(hole - 1) / d]) < 0) {
+            array[hole] = array[(hole - 1) / d];
+            hole = (hole - 1) / d;
         }
+        array[hole] = root;
 
     }
 
     /**
-     * Heapifies the subtree of the given array rooted at the given {@code top}.
+     * Heapifies the given array bottom-up, sifting down the root of every
+     * subtree with children, from the last one, the parent of the last entry,
+     * back to the root of the whole tree; this takes O(|array|) comparisons.
      *
      * @param <T>
      *            type of array entries
      * @param array
-     *            the complete binary tree
-     * @param top
-     *            the index of the root of the "subtree" to heapify
+     *            the complete d-ary tree
      * @param order
      *            the total preorder for sorting
+     * @param d
+     *            the arity of the tree
      * @updates array
      * @requires <pre>
-     * 0 <= top  and
+     * d >= 2  and
      * for all i: integer
      *     where (0 <= i  and  i < |array|)
      *   ([entry at position i in array is not null])  and
-     * [subtree rooted at {@code top} is a complete binary tree]  and
      * IS_TOTAL_PREORDER([relation computed by order.compare method])
      * </pre>
      * @ensures <pre>
-     * SUBTREE_IS_HEAP(array, top, |array| - 1,
-     *     [relation computed by order.compare method])  and
+     * SUBTREE_IS_HEAP(array, 0, |array| - 1,
+     *     [relation computed by order.compare method], d)  and
      * perms(array, #array)
      * </pre>
      */
-    private static <T> void heapify(T[] array, int top, Comparator<T> order) {
+    private static <T> void heapify(T[] array, Comparator<T> order, int d) {
         assert array != null : "Violation of: array is not null";
         assert order != null : "Violation of: order is not null";
-        assert 0 <= top : "Violation of: 0 <= top";
         for (int i = 0; i < array.length; i++) {
             assert array[i] != null : ""
                     + "Violation of: all entries in array are not null";
         }
         /*
-         * Impractical to check last requires clause; no need to check the other
-         * requires clause, because it must be true when using the array
-         * representation for a complete binary tree.
+         * Impractical to check last requires clause.
          */
 
-        // *** you must use the recursive algorithm discussed in class ***
-
-        // Get the indices of the left and right children
-        int leftIndex = 2 * top + 1;
-        int rightIndex = 2 * top + 2;
-
-        if (top < array.length) {
-            heapify(array, leftIndex, order);
-            heapify(array, rightIndex, order);
-            siftDown(array, top, array.length - 1, order);
+        for (int top = (array.length + d - 2) / d - 1; top >= 0; top--) {
+            siftDown(array, top, array.length - 1, order, d);
         }
 
     }
@@ -275,11 +263,17 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      *            the {@code Queue} with the entries for the heap
      * @param order
      *            the total preorder for sorting
+     * @param d
+     *            the arity of the heap
      * @return the array representation of a heap
      * @clears q
-     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])  and
+     * d >= 2
+     * </pre>
      * @ensures <pre>
-     * SUBTREE_IS_HEAP(buildHeap, 0, |buildHeap| - 1)  and
+     * SUBTREE_IS_HEAP(buildHeap, 0, |buildHeap| - 1,
+     *     [relation computed by order.compare method], d)  and
      * perms(buildHeap, #q)  and
      * for all i: integer
      *     where (0 <= i  and  i < |buildHeap|)
@@ -287,7 +281,8 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      * </pre>
      */
     @SuppressWarnings("unchecked")
-    private static <T> T[] buildHeap(Queue<T> q, Comparator<T> order) {
+    private static <T> T[] buildHeap(Queue<T> q, Comparator<T> order,
+            int d) {
         assert q != null : "Violation of: q is not null";
         assert order != null : "Violation of: order is not null";
         /*
@@ -305,7 +300,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         for (int index = 0; index < qSize; index++) {
             heap[index] = q.dequeue();
         }
-        heapify(heap, 0, order);
+        heapify(heap, order, d);
         return heap;
     }
 
@@ -316,50 +311,48 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      * @param <T>
      *            type of array entries
      * @param array
-     *            the complete binary tree
+     *            the complete d-ary tree
      * @param top
      *            the index of the root of the "subtree"
      * @param last
      *            the index of the last entry in the heap
      * @param order
      *            total preorder for sorting
+     * @param d
+     *            the arity of the tree
      * @return true if the subtree of the given {@code array} rooted at the
      *         given {@code top} is a heap; false otherwise
      * @requires <pre>
-     * 0 <= top  and  last < |array|  and
+     * 0 <= top  and  last < |array|  and  d >= 2  and
      * for all i: integer
      *     where (0 <= i  and  i < |array|)
      *   ([entry at position i in array is not null])  and
-     * [subtree rooted at {@code top} is a complete binary tree]
+     * [subtree rooted at {@code top} is a complete d-ary tree]
      * </pre>
      * @ensures <pre>
      * isHeap = SUBTREE_IS_HEAP(array, top, last,
-     *     [relation computed by order.compare method])
+     *     [relation computed by order.compare method], d)
      * </pre>
      */
     private static <T> boolean isHeap(T[] array, int top, int last,
-            Comparator<T> order) {
+            Comparator<T> order, int d) {
         assert array != null : "Violation of: array is not null";
         assert 0 <= top : "Violation of: 0 <= top";
         assert last < array.length : "Violation of: last < |array|";
+        assert d >= 2 : "Violation of: d >= 2";
         for (int i = 0; i < array.length; i++) {
             assert array[i] != null : ""
                     + "Violation of: all entries in array are not null";
         }
         /*
          * No need to check the other requires clause, because it must be true
-         * when using the Array representation for a complete binary tree.
+         * when using the Array representation for a complete d-ary tree.
          */
-        int left = 2 * top + 1;
         boolean isHeap = true;
-        if (left <= last) {
-            isHeap = (order.compare(array[top], array[left]) <= 0)
-                    && isHeap(array, left, last, order);
-            int right = left + 1;
-            if (isHeap && (right <= last)) {
-                isHeap = (order.compare(array[top], array[right]) <= 0)
-                        && isHeap(array, right, last, order);
-            }
+        int end = Math.min(d * top + d, last);
+        for (int c = d * top + 1; isHeap && c <= end; c++) {
+            isHeap = (order.compare(array[top], array[c]) <= 0)
+                    && isHeap(array, c, last, order, d);
         }
         return isHeap;
     }
@@ -371,6 +364,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      * @return true if the convention holds (or if assertion checking is off);
      *         otherwise reports a violated assertion
      * @convention <pre>
+     * $this.arity >= 2  and
      * if $this.insertionMode then
      *   $this.heapSize = 0
      * else
@@ -379,11 +373,13 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      *       where (0 <= i  and  i < |$this.heap|)
      *     ([entry at position i in $this.heap is not null])  and
      *   SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,
-     *     [relation computed by $this.machineOrder.compare method])  and
+     *     [relation computed by $this.machineOrder.compare method],
+     *     $this.arity)  and
      *   0 <= $this.heapSize <= |$this.heap|
      * </pre>
      */
     private boolean conventionHolds() {
+        assert this.arity >= 2 : "Violation of: $this.arity >= 2";
         if (this.insertionMode) {
             assert this.heapSize == 0 : ""
                     + "Violation of: if $this.insertionMode then $this.heapSize = 0";
@@ -401,11 +397,11 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
                         + " all entries in $this.heap are not null";
             }
             assert isHeap(this.heap, 0, this.heapSize - 1,
-                    this.machineOrder) : ""
+                    this.machineOrder, this.arity) : ""
                             + "Violation of: if not $this.insertionMode then"
                             + " SUBTREE_IS_HEAP($this.heap, 0, $this.heapSize - 1,"
                             + " [relation computed by $this.machineOrder.compare"
-                            + " method])";
+                            + " method], $this.arity)";
         }
         return true;
     }
@@ -443,6 +439,23 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      *            total preorder for sorting
      */
     public SortingMachine5a(Comparator<T> order) {
+        this(order, DEFAULT_ARITY);
+    }
+
+    /**
+     * Constructor from order and heap arity.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param arity
+     *            number of children of each interior entry of the heap, e.g.,
+     *            2, 4, or 8
+     * @requires arity >= 2
+     */
+    public SortingMachine5a(Comparator<T> order, int arity) {
+        assert arity >= 2 : "Violation of: arity >= 2";
+
+        this.arity = arity;
         this.createNewRep(order);
         assert this.conventionHolds();
     }
@@ -455,8 +468,9 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     @Override
     public final SortingMachine<T> newInstance() {
         try {
-            return this.getClass().getConstructor(Comparator.class)
-                    .newInstance(this.machineOrder);
+            return this.getClass()
+                    .getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.arity);
         } catch (ReflectiveOperationException e) {
             throw new AssertionError(
                     "Cannot construct object of type " + this.getClass());
@@ -487,6 +501,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         this.entries = localSource.entries;
         this.heap = localSource.heap;
         this.heapSize = localSource.heapSize;
+        this.arity = localSource.arity;
         localSource.createNewRep(localSource.machineOrder);
         assert this.conventionHolds();
         assert localSource.conventionHolds();
@@ -512,7 +527,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
 
         this.insertionMode = false;
         this.heapSize = this.entries.length();
-        this.heap = buildHeap(this.entries, this.machineOrder);
+        this.heap = buildHeap(this.entries, this.machineOrder, this.arity);
 
         assert this.conventionHolds();
     }
@@ -531,7 +546,8 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         this.heapSize--;
 
         // Sift down the new root to maintain the heap property
-        siftDown(this.heap, 0, this.heapSize - 1, this.machineOrder);
+        siftDown(this.heap, 0, this.heapSize - 1, this.machineOrder,
+                this.arity);
 
         assert this.conventionHolds();
         // Fix this line to return the result after checking the convention.
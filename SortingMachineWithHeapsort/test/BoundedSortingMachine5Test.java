@@ -0,0 +1,131 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code BoundedSortingMachine5}. With no
+ * practical bound it must pass every {@code SortingMachine} test; the tests
+ * added here check that a small bound keeps exactly the first entries.
+ */
+public final class BoundedSortingMachine5Test extends SortingMachineTest {
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new BoundedSortingMachine5<String>(order, Integer.MAX_VALUE);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Natural order on {@code Integer}.
+     */
+    private static final class IntegerLT implements Comparator<Integer> {
+
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+
+    }
+
+    /**
+     * Adds {@code entries} to a new {@code BoundedSortingMachine5} with the
+     * given bound, and returns what it hands back in extraction mode.
+     *
+     * @param entries
+     *            the entries
+     * @param bound
+     *            the bound
+     * @return the entries removed, in order
+     */
+    private static List<Integer> topK(List<Integer> entries, int bound) {
+        SortingMachine<Integer> m = new BoundedSortingMachine5<Integer>(
+                new IntegerLT(), bound);
+        for (Integer x : entries) {
+            m.add(x);
+        }
+        assertEquals(Math.min(bound, entries.size()), m.size());
+        m.changeToExtractionMode();
+        List<Integer> out = new ArrayList<Integer>();
+        while (m.size() > 0) {
+            out.add(m.removeFirst());
+        }
+        return out;
+    }
+
+    /**
+     * Test that a bound of zero keeps nothing.
+     */
+    @Test
+    public void testBoundZero() {
+        List<Integer> entries = new ArrayList<Integer>();
+        entries.add(3);
+        entries.add(1);
+        assertEquals(new ArrayList<Integer>(), topK(entries, 0));
+    }
+
+    /**
+     * Test that a bound of one keeps the smallest entry.
+     */
+    @Test
+    public void testBoundOne() {
+        List<Integer> entries = new ArrayList<Integer>();
+        entries.add(3);
+        entries.add(1);
+        entries.add(2);
+        assertEquals(Collections.singletonList(1), topK(entries, 1));
+    }
+
+    /**
+     * Test, on random entries with many duplicates, that every bound keeps
+     * exactly the first entries of the sorted input, in order.
+     */
+    @Test
+    public void testRandomAgainstSort() {
+        final int n = 500;
+        final int[] bounds = { 2, 3, 15, 16, 17, 100, 499, 500, 501 };
+        Random random = new Random(23);
+        List<Integer> entries = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++) {
+            entries.add(random.nextInt(n / 4));
+        }
+        List<Integer> sorted = new ArrayList<Integer>(entries);
+        Collections.sort(sorted);
+        for (int bound : bounds) {
+            assertEquals(sorted.subList(0, Math.min(bound, n)),
+                    topK(entries, bound));
+        }
+    }
+
+    /**
+     * Test that clear and newInstance keep the bound.
+     */
+    @Test
+    public void testClearAndNewInstanceKeepBound() {
+        BoundedSortingMachine5<Integer> m = new BoundedSortingMachine5<Integer>(
+                new IntegerLT(), 2);
+        m.add(1);
+        m.clear();
+        assertEquals(2, m.bound());
+        BoundedSortingMachine5<Integer> n =
+                (BoundedSortingMachine5<Integer>) m.newInstance();
+        assertEquals(2, n.bound());
+        n.add(3);
+        n.add(2);
+        n.add(1);
+        assertEquals(2, n.size());
+    }
+
+}
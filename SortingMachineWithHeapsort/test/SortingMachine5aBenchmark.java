@@ -0,0 +1,228 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine3;
+import components.sortingmachine.SortingMachine4;
+
+/**
+ * Program that reports the time to add n entries to {@code SortingMachine5a},
+ * change to extraction mode, and remove them all, compared with the library's
+ * {@code SortingMachine3} (insertion sort) and {@code SortingMachine4}
+ * (quicksort), and across heap arities for {@code Integer} and
+ * {@code String} entries. Run it with assertions disabled, since
+ * {@code SortingMachine5a} otherwise checks its whole heap on every call.
+ */
+public final class SortingMachine5aBenchmark {
+
+    /**
+     * Seed for the random entries, so runs can be reproduced.
+     */
+    private static final long SEED = 21;
+
+    /**
+     * Sizes timed.
+     */
+    private static final int[] SIZES = { 1000, 10000, 100000, 1000000,
+        10000000 };
+
+    /**
+     * Largest size timed for insertion sort, whose {@code add} is linear.
+     */
+    private static final int INSERTION_SORT_LIMIT = 20000;
+
+    /**
+     * Heap arities timed.
+     */
+    private static final int[] ARITIES = { 2, 4, 8 };
+
+    /**
+     * Size timed across arities.
+     */
+    private static final int ARITY_SIZE = 1000000;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachine5aBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Natural order on {@code Integer}.
+     */
+    static final class IntegerLT implements Comparator<Integer> {
+
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+
+    }
+
+    /**
+     * Natural order on {@code String}.
+     */
+    private static final class StringLT implements Comparator<String> {
+
+        @Override
+        public int compare(String o1, String o2) {
+            return o1.compareTo(o2);
+        }
+
+    }
+
+    /**
+     * Returns {@code n} random entries from [0, n / 2), so that about half
+     * are duplicates.
+     *
+     * @param n
+     *            the number of entries
+     * @return the entries
+     */
+    static Integer[] randomEntries(int n) {
+        Random random = new Random(SEED);
+        Integer[] a = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = random.nextInt(Math.max(1, n / 2));
+        }
+        return a;
+    }
+
+    /**
+     * Returns the entries of {@code randomEntries(n)} as strings, with a
+     * common prefix so that comparisons look past the first few characters.
+     *
+     * @param n
+     *            the number of entries
+     * @return the entries
+     */
+    private static String[] randomStrings(int n) {
+        Integer[] ints = randomEntries(n);
+        String[] a = new String[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = "entry-" + ints[i];
+        }
+        return a;
+    }
+
+    /**
+     * Adds {@code entries} to {@code m}, changes it to extraction mode, and
+     * removes them all into {@code out}, returning the elapsed time in
+     * nanoseconds.
+     *
+     * @param <T>
+     *            type of entries
+     * @param m
+     *            the machine, empty and in insertion mode
+     * @param entries
+     *            the entries
+     * @param out
+     *            the entries in the order removed
+     * @return elapsed time
+     * @updates m, out
+     */
+    static <T> long sort(SortingMachine<T> m, T[] entries, T[] out) {
+        long start = System.nanoTime();
+        for (T x : entries) {
+            m.add(x);
+        }
+        m.changeToExtractionMode();
+        for (int i = 0; i < out.length; i++) {
+            out[i] = m.removeFirst();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Reports the time to sort n entries with {@code SortingMachine5a},
+     * {@code SortingMachine4}, and {@code SortingMachine3}.
+     *
+     * @param out
+     *            the output stream
+     * @updates out.content
+     */
+    private static void sortBenchmark(SimpleWriter out) {
+        // warm up
+        Integer[] warm = randomEntries(100000);
+        sort(new SortingMachine5a<Integer>(new IntegerLT()), warm,
+                new Integer[warm.length]);
+        sort(new SortingMachine4<Integer>(new IntegerLT()), warm,
+                new Integer[warm.length]);
+        for (int n : SIZES) {
+            Integer[] entries = randomEntries(n);
+            Integer[] sorted = new Integer[n];
+            long heap = sort(new SortingMachine5a<Integer>(new IntegerLT()),
+                    entries, sorted);
+            long quick = sort(new SortingMachine4<Integer>(new IntegerLT()),
+                    entries, sorted);
+            String insertion = "skipped";
+            if (n <= INSERTION_SORT_LIMIT) {
+                insertion = (sort(
+                        new SortingMachine3<Integer>(new IntegerLT()),
+                        entries, sorted) / NANOS_PER_MILLI) + " ms";
+            }
+            out.println("sort " + n + ": SortingMachine5a "
+                    + (heap / NANOS_PER_MILLI) + " ms, SortingMachine4 "
+                    + (quick / NANOS_PER_MILLI) + " ms, SortingMachine3 "
+                    + insertion);
+        }
+    }
+
+    /**
+     * Reports the time to sort n {@code Integer} and n {@code String} entries
+     * with {@code SortingMachine5a} at each arity.
+     *
+     * @param out
+     *            the output stream
+     * @updates out.content
+     */
+    private static void arityBenchmark(SimpleWriter out) {
+        int n = ARITY_SIZE;
+        Integer[] ints = randomEntries(n);
+        String[] strings = randomStrings(n);
+        // warm up
+        for (int d : ARITIES) {
+            sort(new SortingMachine5a<Integer>(new IntegerLT(), d), ints,
+                    new Integer[n]);
+            sort(new SortingMachine5a<String>(new StringLT(), d), strings,
+                    new String[n]);
+        }
+        for (int d : ARITIES) {
+            long intTime = sort(
+                    new SortingMachine5a<Integer>(new IntegerLT(), d), ints,
+                    new Integer[n]);
+            long stringTime = sort(
+                    new SortingMachine5a<String>(new StringLT(), d), strings,
+                    new String[n]);
+            out.println("arity " + d + ", " + n + " entries: Integer "
+                    + (intTime / NANOS_PER_MILLI) + " ms, String "
+                    + (stringTime / NANOS_PER_MILLI) + " ms");
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        if (SortingMachine5a.class.desiredAssertionStatus()) {
+            out.println("Warning: assertions are enabled; timings will be"
+                    + " dominated by SortingMachine5a's convention checks");
+        }
+        sortBenchmark(out);
+        arityBenchmark(out);
+        out.close();
+    }
+
+}
@@ -0,0 +1,43 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture that checks {@code SortingMachine5a}, at each heap arity,
+ * against {@code Arrays.sort} on random input with many duplicates. Timings
+ * are reported by {@code SortingMachine5aBenchmark}.
+ */
+public class SortingMachine5aBenchmarkTest {
+
+    /**
+     * Heap arities checked.
+     */
+    private static final int[] ARITIES = { 2, 4, 8 };
+
+    /**
+     * Test that entries come out in the order {@code Arrays.sort} gives, for
+     * every arity and for sizes that leave the last internal node of the
+     * heap with anywhere from one child to a full set.
+     */
+    @Test
+    public void sortsLikeArraysSort() {
+        final int[] sizes = { 1, 2, 3, 4, 5, 8, 9, 10, 11, 12, 100, 101, 102,
+            103, 104, 105, 106, 107 };
+        for (int d : ARITIES) {
+            for (int n : sizes) {
+                Integer[] entries = SortingMachine5aBenchmark.randomEntries(n);
+                Integer[] expected = entries.clone();
+                Arrays.sort(expected);
+                Integer[] out = new Integer[n];
+                SortingMachine5aBenchmark.sort(
+                        new SortingMachine5a<Integer>(
+                                new SortingMachine5aBenchmark.IntegerLT(), d),
+                        entries, out);
+                assertEquals(Arrays.asList(expected), Arrays.asList(out));
+            }
+        }
+    }
+
+}
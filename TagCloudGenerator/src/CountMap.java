@@ -0,0 +1,409 @@
+import java.util.NoSuchElementException;
+
+import components.standard.Standard;
+
+/**
+ * Counting map from keys to {@code int} counts, represented as an
+ * open-addressing hash table with linear probing over parallel arrays of keys,
+ * counts, and cached hash codes.
+ *
+ * <p>
+ * This is the {@code int}-valued counterpart of {@code Map<K, Integer>} for
+ * word-frequency style counting: {@link #increment} and {@link #addTo} find
+ * or insert the key in a single probe, and counts are never boxed, neither
+ * while counting nor while traversing the entries with a {@link Cursor}.
+ *
+ * @param <K>
+ *            type of key
+ * @mathmodel type CountMap is modeled by finite set of (key: K, count: integer)
+ * @constraint this is a partial function with no count equal to 0
+ * @initially <pre>
+ * ():
+ *  ensures this = {}
+ * </pre>
+ * @convention <pre>
+ * |$this.keys| = |$this.counts| = |$this.hashes|  and
+ * [|$this.keys| is a power of 2]  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.keys|  and  $this.keys[i] /= null)
+ *   ($this.counts[i] /= 0  and
+ *    $this.hashes[i] = spread([computed result of
+ *                             $this.keys[i].hashCode()])  and
+ *    [every slot from $this.hashes[i] mod |$this.keys| cyclically up to i
+ *     holds a non-null key])  and
+ * [no key appears in more than one slot]  and
+ * $this.size = [number of non-null entries in $this.keys]  and
+ * $this.size <= MAX_LOAD_FACTOR * |$this.keys|
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, count): (K, integer)
+ *         where (there exists i: integer
+ *                  (0 <= i  and  i < |$this.keys|  and
+ *                   $this.keys[i] = key  and  $this.counts[i] = count))}
+ * </pre>
+ */
+public class CountMap<K> implements Standard<CountMap<K>> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default capacity of hash table.
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Largest capacity this implementation will grow to.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Maximum fraction of slots in use before the table doubles.
+     */
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    /**
+     * Keys, or {@code null} in empty slots.
+     */
+    private K[] keys;
+
+    /**
+     * Counts, parallel to {@code keys}.
+     */
+    private int[] counts;
+
+    /**
+     * Spread hash codes of {@code keys}.
+     */
+    private int[] hashes;
+
+    /**
+     * Number of keys in {@code this}.
+     */
+    private int size;
+
+    /**
+     * Mixes the high bits of {@code h} into the low bits used for indexing.
+     *
+     * @param h
+     *            the hash code
+     * @return the spread hash code
+     * @ensures spread = [h with its high half XORed into its low half]
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or the empty slot at which the
+     * probe for {@code key} ends if {@code key} is not in {@code this}.
+     *
+     * @param key
+     *            the key
+     * @param hash
+     *            spread hash code of {@code key}
+     * @return the slot index
+     * @requires hash = spread([computed result of key.hashCode()])
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then $this.keys[find] = key
+     *  else $this.keys[find] = null
+     * </pre>
+     */
+    private int find(K key, int hash) {
+        int mask = this.keys.length - 1;
+        int i = hash & mask;
+        while (this.keys[i] != null
+                && !(this.hashes[i] == hash && this.keys[i].equals(key))) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Replaces the arrays with empty ones of length {@code capacity}.
+     *
+     * @param capacity
+     *            the capacity
+     * @replaces $this.keys, $this.counts, $this.hashes
+     * @requires [capacity is a power of 2]
+     * @ensures <pre>
+     * |$this.keys| = |$this.counts| = |$this.hashes| = capacity  and
+     * [every entry of $this.keys is null]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        /*
+         * With "new K[...]" in place of "(K[]) new Object[...]" it does not
+         * compile; as shown, it results in a warning about an unchecked
+         * conversion, though it cannot fail since the array never escapes.
+         */
+        this.keys = (K[]) new Object[capacity];
+        this.counts = new int[capacity];
+        this.hashes = new int[capacity];
+    }
+
+    /**
+     * Doubles the capacity, moving every entry of {@code this}.
+     *
+     * @updates $this.keys, $this.counts, $this.hashes
+     * @ensures |$this.keys| = 2 * |#$this.keys|  and  this = #this
+     */
+    private void grow() {
+        K[] oldKeys = this.keys;
+        int[] oldCounts = this.counts;
+        int[] oldHashes = this.hashes;
+        this.allocate(2 * oldKeys.length);
+        int mask = this.keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = oldHashes[j] & mask;
+                while (this.keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = oldKeys[j];
+                this.counts[i] = oldCounts[j];
+                this.hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.allocate(DEFAULT_CAPACITY);
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public CountMap() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final CountMap<K> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(CountMap<K> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+
+        this.keys = source.keys;
+        this.counts = source.counts;
+        this.hashes = source.hashes;
+        this.size = source.size;
+        source.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code delta} to the count of {@code key}, treating a missing key
+     * as having count 0, and reports the new count.
+     *
+     * @param key
+     *            the key
+     * @param delta
+     *            the amount to add
+     * @return the new count of {@code key}
+     * @updates this
+     * @requires key is not null  and  count(key) + delta /= 0
+     * @ensures <pre>
+     * addTo = #count(key) + delta  and
+     * this = (#this \ {(key, #count(key))}) union {(key, addTo)}
+     * </pre>
+     */
+    public final int addTo(K key, int delta) {
+        assert key != null : "Violation of: key is not null";
+
+        int hash = spread(key.hashCode());
+        int i = this.find(key, hash);
+        if (this.keys[i] == null) {
+            if (this.size + 1 > MAX_LOAD_FACTOR * this.keys.length
+                    && this.keys.length < MAXIMUM_CAPACITY) {
+                this.grow();
+                i = this.find(key, hash);
+            }
+            this.keys[i] = key;
+            this.hashes[i] = hash;
+            this.size++;
+        }
+        this.counts[i] += delta;
+        assert this.counts[i] != 0 : ""
+                + "Violation of: count(key) + delta /= 0";
+        return this.counts[i];
+    }
+
+    /**
+     * Adds 1 to the count of {@code key}, treating a missing key as having
+     * count 0, and reports the new count.
+     *
+     * @param key
+     *            the key
+     * @return the new count of {@code key}
+     * @updates this
+     * @requires key is not null  and  count(key) /= -1
+     * @ensures <pre>
+     * increment = #count(key) + 1  and
+     * this = (#this \ {(key, #count(key))}) union {(key, increment)}
+     * </pre>
+     */
+    public final int increment(K key) {
+        return this.addTo(key, 1);
+    }
+
+    /**
+     * Reports the count of {@code key}, or 0 if {@code key} has not been
+     * counted.
+     *
+     * @param key
+     *            the key
+     * @return the count of {@code key}
+     * @requires key is not null
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then (key, count) is in this
+     *  else count = 0
+     * </pre>
+     */
+    public final int count(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.counts[this.find(key, spread(key.hashCode()))];
+    }
+
+    /**
+     * Reports whether {@code key} has been counted.
+     *
+     * @param key
+     *            the key
+     * @return true iff {@code key} is in DOMAIN(this)
+     * @requires key is not null
+     * @ensures hasKey = (key is in DOMAIN(this))
+     */
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.keys[this.find(key, spread(key.hashCode()))] != null;
+    }
+
+    /**
+     * Reports the number of keys in {@code this}.
+     *
+     * @return the number of keys
+     * @ensures size = |this|
+     */
+    public final int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a cursor over the entries of {@code this}, positioned before the
+     * first entry. {@code this} must not be changed while the cursor is in
+     * use.
+     *
+     * @return the cursor
+     * @ensures [cursor will visit each entry of this exactly once]
+     */
+    public final Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Allocation-free cursor over the entries of a {@code CountMap}: unlike an
+     * {@code Iterator}, it exposes the key and count of the current entry
+     * separately, so counts are never boxed.
+     */
+    public final class Cursor {
+
+        /**
+         * Slot of the current entry, or -1 before the first call to
+         * {@code advance}.
+         */
+        private int slot;
+
+        /**
+         * Number of entries visited so far.
+         */
+        private int numberSeen;
+
+        /**
+         * No-argument constructor.
+         */
+        Cursor() {
+            this.slot = -1;
+            this.numberSeen = 0;
+        }
+
+        /**
+         * Moves to the next entry, if there is one.
+         *
+         * @return true iff there was a next entry
+         */
+        public boolean advance() {
+            boolean found = this.numberSeen < CountMap.this.size;
+            if (found) {
+                this.slot++;
+                while (CountMap.this.keys[this.slot] == null) {
+                    this.slot++;
+                }
+                this.numberSeen++;
+            }
+            return found;
+        }
+
+        /**
+         * Reports the key of the current entry.
+         *
+         * @return the key
+         * @requires [advance has returned true]
+         */
+        public K key() {
+            if (this.slot < 0) {
+                throw new NoSuchElementException();
+            }
+            return CountMap.this.keys[this.slot];
+        }
+
+        /**
+         * Reports the count of the current entry.
+         *
+         * @return the count
+         * @requires [advance has returned true]
+         */
+        public int count() {
+            if (this.slot < 0) {
+                throw new NoSuchElementException();
+            }
+            return CountMap.this.counts[this.slot];
+        }
+
+    }
+
+}
@@ -10,7 +10,6 @@ import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
 import components.simplewriter.SimpleWriter1L;
 import components.sortingmachine.SortingMachine;
-import components.sortingmachine.SortingMachine3;
 import components.utilities.Reporter;
 
 /**
@@ -95,6 +94,48 @@ public final class TagCloudGenerator {
         }
     }
 
+    /**
+     * Immutable word-frequency pair, used to hand the entries of a
+     * {@code CountMap} to a {@code SortingMachine}.
+     */
+    private static final class WordCount
+            implements Map.Pair<String, Integer> {
+
+        /**
+         * The word.
+         */
+        private final String word;
+
+        /**
+         * Number of occurrences of the word.
+         */
+        private final Integer count;
+
+        /**
+         * Constructor.
+         *
+         * @param word
+         *            the word
+         * @param count
+         *            number of occurrences of the word
+         */
+        WordCount(String word, int count) {
+            this.word = word;
+            this.count = count;
+        }
+
+        @Override
+        public String key() {
+            return this.word;
+        }
+
+        @Override
+        public Integer value() {
+            return this.count;
+        }
+
+    }
+
     /**
      * Private constructor so this utility class cannot be instantiated.
      */
@@ -116,12 +157,12 @@ public final class TagCloudGenerator {
      * @ensures the resulting map contains unique words as keys and their counts
      *          as values
      */
-    public static Map<String, Integer> getCountMap(SimpleReader input) {
+    public static CountMap<String> getCountMap(SimpleReader input) {
 
         int index = 0;
 
         // Map of strings and their counts
-        Map<String, Integer> countMap = new Map1L<String, Integer>();
+        CountMap<String> countMap = new CountMap<String>();
 
         String s = "";
 
@@ -135,13 +176,9 @@ public final class TagCloudGenerator {
         while (index < s.length() - 1) {
             String nextWord = nextWordOrSeparator(s, index);
             index += nextWord.length();
-            // Check if the word is not in the map and not a separator
-            if (!countMap.hasKey(nextWord)
-                    && !SEPARATORS.contains(nextWord.substring(0, 1))) {
-                countMap.add(nextWord, 1);
-            } else if (!SEPARATORS.contains(nextWord.substring(0, 1))) {
-                // If the word is already in the map, increment its count
-                countMap.replaceValue(nextWord, countMap.value(nextWord) + 1);
+            // Count the word, adding it if new, unless it is a separator
+            if (!SEPARATORS.contains(nextWord.substring(0, 1))) {
+                countMap.increment(nextWord);
             }
 //         // Check if the word is not in the map and not a separator - //'corrected'
 //            if (!countMap.hasKey(nextWord) && !countMap.hasKey(nextWord.toLowerCase())
@@ -330,8 +367,9 @@ public final class TagCloudGenerator {
         out.println("<div class = \"cdiv\">");
         out.println("<p class = \"cbox\">");
 
-        SortingMachine<Map.Pair<String, Integer>> sm2 = new SortingMachine3<>(
-                new AlphabeticalComparator());
+        SortingMachine<Map.Pair<String, Integer>> sm2 =
+                new BoundedSortingMachine5<>(
+                        new AlphabeticalComparator(), wordsNum);
 
         Map<String, Integer> countMap = new Map1L<String, Integer>();
 
@@ -443,15 +481,16 @@ public final class TagCloudGenerator {
         SimpleWriter fileOut = new SimpleWriter1L(outputFileName);
 
         // Generate word count map from the input
-        Map<String, Integer> countMap = getCountMap(fileIn);
+        CountMap<String> countMap = getCountMap(fileIn);
 
-        // Create a SortingMachine to sort word-frequency pairs
-        SortingMachine<Map.Pair<String, Integer>> sm = new SortingMachine3<>(
-                new CompareArgs());
+        // Create a SortingMachine that keeps only the wordsNum most frequent
+        SortingMachine<Map.Pair<String, Integer>> sm =
+                new BoundedSortingMachine5<>(new CompareArgs(), wordsNum);
 
         // Add all word-frequency pairs to the SortingMachine
-        while (countMap.size() > 0) {
-            sm.add(countMap.removeAny());
+        CountMap<String>.Cursor entry = countMap.cursor();
+        while (entry.advance()) {
+            sm.add(new WordCount(entry.key(), entry.count()));
         }
         sm.changeToExtractionMode();
 
@@ -156,27 +156,47 @@ public final class TagCloudGeneratorStandard {
     }
 
     /**
-     * Put all keys and associated values from the map into a new PriorityQueue.
+     * Put the first {@code k} entries of the map, according to {@code comp},
+     * into a new PriorityQueue. The entries are screened through a heap of at
+     * most {@code k} entries whose head is the last one kept, so this takes
+     * O(|entries| log k) time and O(k) space rather than queueing every entry.
      *
      * @param entries
      *            Map for all the words and counts
      * @param comp
      *            Comparator
+     * @param k
+     *            number of entries to keep
      * @return PriorityQueue sorted
-     *
+     * @requires k >= 0
      */
     private static PriorityQueue<Map.Entry<String, Integer>> sortWords(
             Map<String, Integer> entries,
-            Comparator<Map.Entry<String, Integer>> comp) {
-        PriorityQueue<Map.Entry<String, Integer>> q = new PriorityQueue(
-                entries.size(), comp);
+            final Comparator<Map.Entry<String, Integer>> comp, int k) {
+        PriorityQueue<Map.Entry<String, Integer>> last = new PriorityQueue<>(
+                Math.max(1, Math.min(k, entries.size())),
+                new Comparator<Map.Entry<String, Integer>>() {
+                    @Override
+                    public int compare(Map.Entry<String, Integer> o1,
+                            Map.Entry<String, Integer> o2) {
+                        return comp.compare(o2, o1);
+                    }
+                });
 
         Set<Map.Entry<String, Integer>> keySet = entries.entrySet();
         for (Iterator<Map.Entry<String, Integer>> it = keySet.iterator(); it
                 .hasNext();) {
             Map.Entry<String, Integer> entry = it.next();
-            q.add(entry);
+            if (last.size() < k) {
+                last.add(entry);
+            } else if (k > 0 && comp.compare(entry, last.peek()) < 0) {
+                last.remove();
+                last.add(entry);
+            }
         }
+        PriorityQueue<Map.Entry<String, Integer>> q = new PriorityQueue<>(
+                Math.max(1, last.size()), comp);
+        q.addAll(last);
         return q;
     }
 
@@ -281,12 +301,12 @@ public final class TagCloudGeneratorStandard {
                 Comparator<Map.Entry<String, Integer>> wordCount = new CompareArgs();
                 // Words in decreasing order
                 PriorityQueue<Map.Entry<String, Integer>> decreaseWords = sortWords(
-                        entries, wordCount);
+                        entries, wordCount, n);
 
                 //alphabetical order comparator
                 Comparator<Map.Entry<String, Integer>> alphabetSort = new AlphabeticalComparator();
                 PriorityQueue<Map.Entry<String, Integer>> sorted = new PriorityQueue<>(
-                        entries.size(), alphabetSort);
+                        Math.max(1, decreaseWords.size()), alphabetSort);
 
                 int min = 0, max = 0;
                 if (n >= 2) {
@@ -1,11 +1,8 @@
 import java.util.Comparator;
 
-import components.map.Map;
-import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
 import components.set.Set;
-import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -146,7 +143,7 @@ public final class WordCounter {
         SimpleReader in = new SimpleReader1L();
 
         //set of reasonable separators
-        Set<Character> seperatorSet = new Set1L<>();
+        Set<Character> seperatorSet = new Set4<>();
         seperatorSet.add(' ');
         seperatorSet.add('/');
         seperatorSet.add('-');
@@ -176,7 +173,7 @@ public final class WordCounter {
         SimpleWriter filePrinter = new SimpleWriter1L(outputFile);
 
         //creates map for terms and number of times they appear
-        Map<String, Integer> termsCount = new Map1L<>();
+        CountMap<String> termsCount = new CountMap<>();
 
         //creates queues for terms (sortable with comparator)
         Queue<String> wordsList = new Queue1L<>();
@@ -191,13 +188,8 @@ public final class WordCounter {
             while (index < currentLine.length()) {
                 currentWord = nextWordOrSeparator(currentLine, index,
                         seperatorSet);
-                if (termsCount.hasKey(currentWord)) {
-                    int tempCount = termsCount.value(currentWord);
-                    tempCount++;
-                    termsCount.remove(currentWord);
-                    termsCount.add(currentWord, tempCount);
-                } else {
-                    termsCount.add(currentWord, 1);
+                //a count of 1 means this is the first time the term was seen
+                if (termsCount.increment(currentWord) == 1) {
                     boolean containsSeparator = false;
                     for (char c : currentWord.toCharArray()) {
                         if (seperatorSet.contains(c)) {
@@ -242,7 +234,7 @@ public final class WordCounter {
         //loop to complete body table
         for (int i = 0; i < wordsListCopy.length(); i++) {
             String currentWord = wordsList.dequeue();
-            int currentCount = termsCount.value(currentWord);
+            int currentCount = termsCount.count(currentWord);
 
             filePrinter.println("<tr>");
             filePrinter.print("<td>");